@@ -0,0 +1,33 @@
+package dev.iseif.reactiverestapi.benchmark;
+
+import dev.iseif.reactiverestapi.model.Product;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.types.ObjectId;
+
+final class BenchmarkProducts {
+
+  private static final String[] BRANDS = {"Apple", "Samsung", "Google", "Sony", "Lenovo"};
+  private static final String[] MODELS = {"Phone", "Tablet", "Laptop", "Watch", "Headphones"};
+
+  private BenchmarkProducts() {
+  }
+
+  static Product product(int i) {
+    return Product.builder()
+        .id(new ObjectId().toHexString())
+        .version((long) i % 7)
+        .title(BRANDS[i % BRANDS.length] + " " + MODELS[(i / BRANDS.length) % MODELS.length] + " " + i)
+        .description("Benchmark product number " + i)
+        .price(10 + (i % 1000) * 1.5)
+        .build();
+  }
+
+  static List<Product> create(int size) {
+    List<Product> products = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      products.add(product(i));
+    }
+    return products;
+  }
+}
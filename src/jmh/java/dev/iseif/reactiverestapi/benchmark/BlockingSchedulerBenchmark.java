@@ -0,0 +1,85 @@
+package dev.iseif.reactiverestapi.benchmark;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.service.BlockingScheduler;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A burst of {@code concurrency} calls that each wait {@code latencyMillis} for I/O, as a request
+ * fanning out to a slow backend would. {@code reactive} waits without a thread, as the reactive
+ * driver does; the other two block a thread per call through {@link BlockingScheduler}. Reports
+ * time per burst with its percentiles; run with {@code -prof gc} for the allocation per burst
+ * ({@code gc.alloc.rate.norm}). {@code virtual-threads} needs a Java 21 runtime and fails its setup
+ * on older ones rather than measuring the fallback under its name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockingSchedulerBenchmark {
+
+  @Param({"reactive", "bounded-elastic", "virtual-threads"})
+  private String execution;
+
+  @Param({"100", "1000"})
+  private int concurrency;
+
+  @Param({"1"})
+  private long latencyMillis;
+
+  private BlockingScheduler blockingScheduler;
+  private Duration latency;
+
+  @Setup
+  public void setUp() {
+    ProductProperties productProperties = new ProductProperties();
+    if (execution.equals("virtual-threads")) {
+      if (!BlockingScheduler.isVirtualThreadsAvailable()) {
+        throw new IllegalStateException("Virtual threads need Java 21 or later, this is " + System.getProperty("java.version"));
+      }
+      productProperties.getBlocking().setExecutor(ProductProperties.Blocking.Executor.VIRTUAL_THREADS);
+    }
+    blockingScheduler = new BlockingScheduler(productProperties);
+    latency = Duration.ofMillis(latencyMillis);
+  }
+
+  @TearDown
+  public void tearDown() {
+    blockingScheduler.destroy();
+  }
+
+  @Benchmark
+  public Long burst() {
+    return Flux.range(0, concurrency)
+        .flatMap(i -> call(), concurrency)
+        .count()
+        .block();
+  }
+
+  private Mono<Long> call() {
+    if (execution.equals("reactive")) {
+      return Mono.delay(latency);
+    }
+    return blockingScheduler.call(() -> {
+      Thread.sleep(latencyMillis);
+      return 0L;
+    });
+  }
+}
@@ -0,0 +1,106 @@
+package dev.iseif.reactiverestapi.benchmark;
+
+import dev.iseif.reactiverestapi.ReactiveRestApiApplication;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductPage;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * End-to-end round trips through Netty, WebFlux and an embedded Mongo. Needs the flapdoodle
+ * embedded Mongo binaries, which are downloaded on first use. Caching, search coalescing and rate
+ * limiting are off, so every request does its own database round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class ProductApiBenchmark {
+
+  private static final int PRODUCTS = 1_000;
+
+  private ConfigurableApplicationContext context;
+  private WebTestClient client;
+  private List<Product> products;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = new SpringApplicationBuilder(ReactiveRestApiApplication.class)
+        .properties("server.port=0", "products.cache.enabled=false", "products.search.coalesce=false",
+            "products.rate-limit.enabled=false", "logging.level.root=WARN")
+        .run();
+    client = WebTestClient
+        .bindToServer()
+        .baseUrl("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/products")
+        .responseTimeout(Duration.ofSeconds(30))
+        .build();
+
+    ProductRepository productRepository = context.getBean(ProductRepository.class);
+    products = productRepository.deleteAll()
+        .thenMany(productRepository.saveAll(BenchmarkProducts.create(PRODUCTS)))
+        .collectList()
+        .block();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Product getById() {
+    Product product = products.get(ThreadLocalRandom.current().nextInt(products.size()));
+    return client.get().uri("/{id}", product.getId()).exchange()
+        .expectStatus().isOk()
+        .expectBody(Product.class).returnResult().getResponseBody();
+  }
+
+  @Benchmark
+  public ProductPage getPage() {
+    return client.get().uri("?size=20&sort=price").exchange()
+        .expectStatus().isOk()
+        .expectBody(ProductPage.class).returnResult().getResponseBody();
+  }
+
+  @Benchmark
+  public List<Product> searchByTitle() {
+    return client.get().uri("/search/{title}", "apple lap").exchange()
+        .expectStatus().isOk()
+        .expectBodyList(Product.class).returnResult().getResponseBody();
+  }
+
+  @Benchmark
+  public Product createAndDelete() {
+    Product created = client.post().uri("/")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(BenchmarkProducts.product(ThreadLocalRandom.current().nextInt(PRODUCTS)).toBuilder().id(null).build())
+        .exchange()
+        .expectStatus().isCreated()
+        .expectBody(Product.class).returnResult().getResponseBody();
+    client.delete().uri("/{id}", created.getId()).exchange().expectStatus().isOk();
+    return created;
+  }
+}
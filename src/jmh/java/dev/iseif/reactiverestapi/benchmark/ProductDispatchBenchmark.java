@@ -0,0 +1,202 @@
+package dev.iseif.reactiverestapi.benchmark;
+
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.iseif.reactiverestapi.config.CodecConfiguration;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.controller.ProductController;
+import dev.iseif.reactiverestapi.controller.ProductHandler;
+import dev.iseif.reactiverestapi.controller.ProductRouter;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import dev.iseif.reactiverestapi.service.ProductBulkService;
+import dev.iseif.reactiverestapi.service.ProductCache;
+import dev.iseif.reactiverestapi.service.ProductChangeFeed;
+import dev.iseif.reactiverestapi.service.ProductCreateBatcher;
+import dev.iseif.reactiverestapi.service.ProductRepositoryGuard;
+import dev.iseif.reactiverestapi.service.ProductSearchCache;
+import dev.iseif.reactiverestapi.service.ProductService;
+import dev.iseif.reactiverestapi.service.ProductSnapshotService;
+import dev.iseif.reactiverestapi.service.ProductStats;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.reactive.DispatcherHandler;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cost of dispatching a request to {@link ProductController} and to the {@link ProductRouter}
+ * routes, from the raw request to the written response body. Runs WebFlux in process without a
+ * server, with the product cached and a repository that answers immediately, so what is left is
+ * routing, argument resolution, codecs and the service layer. Run with {@code -prof gc} for the
+ * allocation per request ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductDispatchBenchmark {
+
+  @Param({"annotated", "functional"})
+  private String dispatch;
+
+  private AnnotationConfigApplicationContext context;
+  private HttpHandler httpHandler;
+  private Product product;
+  private String productJson;
+
+  @Setup
+  public void setUp() throws Exception {
+    // Logback logs everything at debug until Spring Boot configures it, which it does not here
+    LoggingSystem.get(getClass().getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+    product = BenchmarkProducts.product(1);
+    productJson = new ObjectMapper().writeValueAsString(product.toBuilder().id(null).version(null).build());
+
+    context = new AnnotationConfigApplicationContext();
+    context.getEnvironment().getPropertySources()
+        .addFirst(new MapPropertySource("benchmark", Collections.singletonMap("products.api.dispatch", dispatch)));
+    context.registerBean(Product.class, () -> product);
+    context.register(DispatchConfiguration.class, ProductController.class, ProductHandler.class, ProductRouter.class);
+    context.refresh();
+    httpHandler = WebHttpHandlerBuilder.applicationContext(context).build();
+
+    // Loads the product into the cache
+    getProductById();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public String getProductById() {
+    return exchange(MockServerHttpRequest.get("/api/products/{id}", product.getId())
+        .accept(MediaType.APPLICATION_JSON)
+        .build(), HttpStatus.OK);
+  }
+
+  @Benchmark
+  public String createProduct() {
+    return exchange(MockServerHttpRequest.post("/api/products")
+        .contentType(MediaType.APPLICATION_JSON)
+        .accept(MediaType.APPLICATION_JSON)
+        .body(productJson), HttpStatus.CREATED);
+  }
+
+  private String exchange(MockServerHttpRequest request, HttpStatus expectedStatus) {
+    MockServerHttpResponse response = new MockServerHttpResponse();
+    httpHandler.handle(request, response).block();
+    if (response.getStatusCode() != expectedStatus) {
+      throw new IllegalStateException("Expected " + expectedStatus + " but was " + response.getStatusCode());
+    }
+    return response.getBodyAsString().block();
+  }
+
+  /**
+   * The WebFlux infrastructure and the service layer of the application, with the collaborators
+   * the two benchmarked endpoints do not use mocked.
+   */
+  @Configuration(proxyBeanMethods = false)
+  @EnableWebFlux
+  static class DispatchConfiguration implements WebFluxConfigurer {
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+      new CodecConfiguration()
+          .binaryCodecsCustomizer(Jackson2ObjectMapperBuilder.json().build(), Jackson2ObjectMapperBuilder.json())
+          .customize(configurer);
+    }
+
+    @Bean
+    public DispatcherHandler webHandler() {
+      return new DispatcherHandler();
+    }
+
+    @Bean
+    public LocalValidatorFactoryBean validator() {
+      return new LocalValidatorFactoryBean();
+    }
+
+    @Bean
+    public ProductService productService(Product product) {
+      ProductProperties productProperties = new ProductProperties();
+      MeterRegistry meterRegistry = new SimpleMeterRegistry();
+      ProductRepository productRepository = repository(product);
+      ProductRepositoryGuard guard = new ProductRepositoryGuard(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(),
+          TimeLimiterRegistry.ofDefaults(), productProperties);
+      return new ProductService(productRepository, productProperties, new ProductCache(productProperties, meterRegistry),
+          new ProductSearchCache(productProperties, meterRegistry), guard, new ProductCreateBatcher(productRepository, guard, productProperties, meterRegistry),
+          new ProductStats(productRepository, productProperties), meterRegistry);
+    }
+
+    @Bean
+    public ProductBulkService productBulkService() {
+      return mock(ProductBulkService.class);
+    }
+
+    @Bean
+    public ProductChangeFeed productChangeFeed() {
+      return mock(ProductChangeFeed.class);
+    }
+
+    @Bean
+    public ProductSnapshotService productSnapshotService() {
+      return mock(ProductSnapshotService.class);
+    }
+
+    /**
+     * Finds {@code product} and saves anything as it, without the bookkeeping of a mock.
+     */
+    private static ProductRepository repository(Product product) {
+      return (ProductRepository) Proxy.newProxyInstance(ProductRepository.class.getClassLoader(), new Class<?>[] {ProductRepository.class},
+          (proxy, method, args) -> {
+            switch (method.getName()) {
+              case "findById":
+                return Mono.just(product);
+              case "save":
+                return Mono.just(((Product) args[0]).toBuilder().id(product.getId()).version(0L).build());
+              default:
+                throw new UnsupportedOperationException(method.getName());
+            }
+          });
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package dev.iseif.reactiverestapi.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import dev.iseif.reactiverestapi.codec.ProductProtobuf;
+import dev.iseif.reactiverestapi.model.Product;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Compares the negotiable product representations on a page of 100 products. The payload size of
+ * each format is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductEncodingBenchmark {
+
+  private static final int SIZE = 100;
+
+  @Param({"json", "cbor", "smile", "protobuf"})
+  private String format;
+
+  private ObjectMapper objectMapper;
+  private JavaType listType;
+  private List<Product> products;
+  private byte[] encoded;
+
+  @Setup
+  public void setUp() throws IOException {
+    objectMapper = mapper(format);
+    if (objectMapper != null) {
+      listType = objectMapper.getTypeFactory().constructCollectionType(List.class, Product.class);
+    }
+    products = BenchmarkProducts.create(SIZE);
+    encoded = encode();
+    System.out.println(format + " payload for " + SIZE + " products: " + encoded.length + " bytes");
+  }
+
+  @Benchmark
+  public byte[] encode() throws IOException {
+    if (objectMapper != null) {
+      return objectMapper.writeValueAsBytes(products);
+    }
+    // Length-delimited messages, as written for a Flux<Product>
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+    for (Product product : products) {
+      output.writeUInt32NoTag(ProductProtobuf.serializedSize(product));
+      ProductProtobuf.writeTo(product, output);
+    }
+    output.flush();
+    return bytes.toByteArray();
+  }
+
+  @Benchmark
+  public List<Product> decode() throws IOException {
+    if (objectMapper != null) {
+      return objectMapper.readValue(encoded, listType);
+    }
+    CodedInputStream input = CodedInputStream.newInstance(encoded);
+    List<Product> decoded = new ArrayList<>(SIZE);
+    while (!input.isAtEnd()) {
+      decoded.add(ProductProtobuf.readDelimitedFrom(input));
+    }
+    return decoded;
+  }
+
+  private static ObjectMapper mapper(String format) {
+    switch (format) {
+      case "json":
+        return Jackson2ObjectMapperBuilder.json().build();
+      case "cbor":
+        return Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+      case "smile":
+        return Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package dev.iseif.reactiverestapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.iseif.reactiverestapi.codec.PooledJackson2JsonEncoder;
+import dev.iseif.reactiverestapi.model.Product;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+  private static final ResolvableType PRODUCT_TYPE = ResolvableType.forClass(Product.class);
+
+  @Param({"1", "100"})
+  private int size;
+
+  private ObjectMapper objectMapper;
+  private JavaType listType;
+  private List<Product> products;
+  private byte[] json;
+  private Jackson2JsonEncoder defaultEncoder;
+  private Jackson2JsonEncoder pooledEncoder;
+  private DataBufferFactory bufferFactory;
+
+  @Setup
+  public void setUp() throws JsonProcessingException {
+    // Same defaults as the mapper Spring Boot hands to the WebFlux codecs
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    listType = objectMapper.getTypeFactory().constructCollectionType(List.class, Product.class);
+    products = BenchmarkProducts.create(size);
+    json = objectMapper.writeValueAsBytes(products);
+    defaultEncoder = new Jackson2JsonEncoder(objectMapper);
+    pooledEncoder = new PooledJackson2JsonEncoder(objectMapper);
+    bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(products);
+  }
+
+  /**
+   * Encodes the listing as the WebFlux response does; compare with {@link #encodePooled()} under
+   * {@code -prof gc}.
+   */
+  @Benchmark
+  public int encodeDefault() {
+    return encode(defaultEncoder);
+  }
+
+  @Benchmark
+  public int encodePooled() {
+    return encode(pooledEncoder);
+  }
+
+  @Benchmark
+  public List<Product> deserialize() throws Exception {
+    return objectMapper.readValue(json, listType);
+  }
+
+  private int encode(Jackson2JsonEncoder encoder) {
+    return encoder.encode(Flux.fromIterable(products), bufferFactory, PRODUCT_TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap())
+        .map(buffer -> {
+          int length = buffer.readableByteCount();
+          DataBufferUtils.release(buffer);
+          return length;
+        })
+        .reduce(0, Integer::sum)
+        .block();
+  }
+}
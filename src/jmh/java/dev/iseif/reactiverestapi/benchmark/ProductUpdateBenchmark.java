@@ -0,0 +1,70 @@
+package dev.iseif.reactiverestapi.benchmark;
+
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.repository.ProductSearchFields;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+/**
+ * In-process cost of an update: copying the incoming product, deriving its search fields and
+ * mapping it to the document that is sent to Mongo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductUpdateBenchmark {
+
+  private MappingMongoConverter converter;
+  private Product existingProduct;
+  private Product updatedProduct;
+
+  @Setup
+  public void setUp() {
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setInitialEntitySet(Collections.singleton(Product.class));
+    mappingContext.afterPropertiesSet();
+    converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.afterPropertiesSet();
+
+    existingProduct = BenchmarkProducts.product(1);
+    updatedProduct = BenchmarkProducts.product(2);
+  }
+
+  @Benchmark
+  public Product builderCopy() {
+    return existingProduct.toBuilder()
+        .title(updatedProduct.getTitle())
+        .description(updatedProduct.getDescription())
+        .price(updatedProduct.getPrice())
+        .build();
+  }
+
+  @Benchmark
+  public Product builderCopyWithSearchFields() {
+    return ProductSearchFields.apply(builderCopy());
+  }
+
+  @Benchmark
+  public Document builderCopyToDocument() {
+    Document document = new Document();
+    converter.write(builderCopyWithSearchFields(), document);
+    return document;
+  }
+}
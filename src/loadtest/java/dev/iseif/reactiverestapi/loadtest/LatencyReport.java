@@ -0,0 +1,110 @@
+package dev.iseif.reactiverestapi.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Response times per operation, measured from when each request was due to be sent rather than
+ * from when it was, so that a stalled server shows up as latency instead of as fewer requests.
+ */
+final class LatencyReport {
+
+  private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+  private static final String RESULTS_HEADER =
+      "time,label,workload,rate,seconds,seed,operation,count,errors,throughput,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+
+  private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+  private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+  LatencyReport() {
+    for (Operation operation : Operation.values()) {
+      recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, 3));
+      errors.put(operation, new LongAdder());
+    }
+  }
+
+  /**
+   * @param status the response status, or {@code -1} when the request failed without one
+   */
+  void record(Operation operation, long intendedStartNanos, int status) {
+    long latency = System.nanoTime() - intendedStartNanos;
+    recorders.get(operation).recordValue(Math.min(latency, HIGHEST_TRACKABLE_NANOS));
+    if (status < 200 || status >= 300) {
+      errors.get(operation).increment();
+    }
+  }
+
+  /**
+   * Writes an {@code .hgrm} percentile distribution per operation and for all of them to
+   * {@code directory}, and appends a line per operation to {@code results.csv} next to it.
+   */
+  void write(Path directory, LoadTestOptions options, String label) throws IOException {
+    Files.createDirectories(directory);
+    Path results = directory.getParent().resolve("results.csv");
+    boolean newResults = !Files.exists(results);
+
+    Histogram all = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+    long allErrors = 0;
+    StringBuilder lines = new StringBuilder();
+    if (newResults) {
+      lines.append(RESULTS_HEADER).append('\n');
+    }
+    String run = String.join(",", Instant.now().toString(), label, options.getWorkload().name().toLowerCase(Locale.ROOT),
+        Integer.toString(options.getRate()), Long.toString(options.getDuration().getSeconds()), Long.toString(options.getSeed()));
+
+    System.out.printf("%-12s %9s %7s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "p50 ms", "p90 ms", "p99 ms",
+        "p99.9 ms", "max ms");
+    for (Operation operation : Operation.values()) {
+      Histogram histogram = recorders.get(operation).getIntervalHistogram();
+      if (histogram.getTotalCount() == 0) {
+        continue;
+      }
+      long operationErrors = errors.get(operation).sum();
+      all.add(histogram);
+      allErrors += operationErrors;
+      writeDistribution(directory.resolve(operation.name().toLowerCase(Locale.ROOT) + ".hgrm"), histogram);
+      lines.append(summary(run, operation.name().toLowerCase(Locale.ROOT), histogram, operationErrors, options.getDuration()));
+    }
+    writeDistribution(directory.resolve("all.hgrm"), all);
+    lines.append(summary(run, "all", all, allErrors, options.getDuration()));
+
+    Files.write(results, lines.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  private static String summary(String run, String operation, Histogram histogram, long errors, Duration duration) {
+    double throughput = histogram.getTotalCount() / (double) duration.getSeconds();
+    System.out.printf("%-12s %9d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation, histogram.getTotalCount(), errors,
+        millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+        histogram.getMaxValue() / NANOS_PER_MILLI);
+    return String.format(Locale.ROOT, "%s,%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f%n", run, operation, histogram.getTotalCount(),
+        errors, throughput, millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+        histogram.getMaxValue() / NANOS_PER_MILLI);
+  }
+
+  private static double millis(Histogram histogram, double percentile) {
+    return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+  }
+
+  private static void writeDistribution(Path file, Histogram histogram) {
+    try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+      histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package dev.iseif.reactiverestapi.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.iseif.reactiverestapi.ReactiveRestApiApplication;
+import dev.iseif.reactiverestapi.model.BulkChunkResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Drives a workload against the product API at a fixed request rate and reports response time
+ * percentiles. Starts the application on embedded Mongo unless {@code --base-url} is given:
+ *
+ * <pre>
+ * mvn -Ploadtest -DskipTests test-compile exec:exec -Dloadtest.args="--workload=read --rate=2000 --duration=60s"
+ * </pre>
+ *
+ * Reports go to {@code target/loadtest/<label>-<workload>/}, and every run adds its summary to
+ * {@code target/loadtest/results.csv}. Runs are only comparable when they start from the same
+ * catalog, so an instance given with {@code --base-url} should start empty.
+ */
+public final class LoadTest {
+
+  private static final int SEED_CHUNK = 500;
+
+  private LoadTest() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    // Logback logs everything until Spring configures it, which it does not when given a base url
+    LoggingSystem.get(LoadTest.class.getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+    ConfigurableApplicationContext context = options.getBaseUrl() == null ? start(options) : null;
+    String baseUrl = context == null
+        ? options.getBaseUrl()
+        : "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+        .maxConnections(options.getMaxInFlight())
+        .pendingAcquireMaxCount(-1)
+        .build();
+    try {
+      HttpClient client = HttpClient.create(connections).baseUrl(baseUrl).responseTimeout(Duration.ofMinutes(1));
+      ObjectMapper objectMapper = new ObjectMapper();
+      LoadTestData data = new LoadTestData(objectMapper, seed(client, objectMapper, options.getProducts()));
+
+      // Independent request sequences for the warmup and the measurement, both derived from the seed
+      SplittableRandom random = new SplittableRandom(options.getSeed());
+      run(client, data, options, options.getWarmup(), random.split(), new LatencyReport());
+      LatencyReport report = new LatencyReport();
+      run(client, data, options, options.getDuration(), random.split(), report);
+
+      String label = options.getLabel() != null ? options.getLabel() : commit();
+      Path directory = options.getOutput().resolve(label + "-" + options.getWorkload().name().toLowerCase(Locale.ROOT));
+      report.write(directory, options, label);
+      System.out.println("Reports written to " + directory.toAbsolutePath());
+    } finally {
+      connections.disposeLater().block();
+      if (context != null) {
+        context.close();
+      }
+    }
+  }
+
+  private static ConfigurableApplicationContext start(LoadTestOptions options) {
+    return new SpringApplicationBuilder(ReactiveRestApiApplication.class)
+        .properties("server.port=0", "logging.level.root=WARN", "products.rate-limit.enabled=false")
+        .properties(options.getProperties().toArray(new String[0]))
+        .run();
+  }
+
+  /**
+   * Creates the catalog through the bulk endpoint.
+   *
+   * @return the ids of the created products
+   */
+  private static List<String> seed(HttpClient client, ObjectMapper objectMapper, int size) {
+    LoadTestData data = new LoadTestData(objectMapper, Collections.emptyList());
+    return Flux.fromIterable(LoadTestData.catalog(size))
+        .buffer(SEED_CHUNK)
+        .concatMap(chunk -> client
+            .headers(headers -> headers
+                .set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE)
+                .set(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON_VALUE))
+            .post().uri(Operation.PATH + "/bulk")
+            .send(ByteBufFlux.fromString(Mono.just(data.ndjson(chunk))))
+            .responseSingle((response, body) -> body.asString()))
+        .flatMapIterable(ndjson -> Arrays.stream(ndjson.split("\n"))
+            .filter(line -> !line.isEmpty())
+            .map(line -> read(objectMapper, line, BulkChunkResult.class))
+            .flatMap(result -> result.getItems().stream())
+            .filter(item -> item.getStatus() == BulkItemResult.Status.CREATED)
+            .map(BulkItemResult::getId)
+            .collect(Collectors.toList()))
+        .collectList()
+        .block();
+  }
+
+  /**
+   * Sends requests at their scheduled times until {@code duration} is over, then waits for the
+   * outstanding ones. A request that has to wait for a free slot still counts from its schedule.
+   */
+  private static void run(HttpClient client, LoadTestData data, LoadTestOptions options, Duration duration,
+      SplittableRandom random, LatencyReport report) throws InterruptedException {
+    Semaphore inFlight = new Semaphore(options.getMaxInFlight());
+    long interval = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+    long start = System.nanoTime();
+    long end = start + duration.toNanos();
+    for (long intended = start; intended < end; intended += interval) {
+      long wait = intended - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      Operation operation = options.getWorkload().next(random);
+      Mono<Integer> request = operation.execute(client, data, random);
+      long scheduled = intended;
+      inFlight.acquire();
+      request
+          .doFinally(signal -> inFlight.release())
+          .subscribe(status -> report.record(operation, scheduled, status), error -> report.record(operation, scheduled, -1));
+    }
+    inFlight.acquire(options.getMaxInFlight());
+    inFlight.release(options.getMaxInFlight());
+  }
+
+  private static <T> T read(ObjectMapper objectMapper, String json, Class<T> type) {
+    try {
+      return objectMapper.readValue(json, type);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static String commit() {
+    try {
+      Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+        String commit = reader.readLine();
+        return git.waitFor() == 0 && commit != null ? commit.trim() : "unknown";
+      }
+    } catch (IOException e) {
+      return "unknown";
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return "unknown";
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package dev.iseif.reactiverestapi.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.iseif.reactiverestapi.model.Product;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * The seeded catalog and the products and queries sent to it.
+ */
+final class LoadTestData {
+
+  private static final String[] BRANDS = {"Apple", "Samsung", "Google", "Sony", "Lenovo"};
+  private static final String[] MODELS = {"Phone", "Tablet", "Laptop", "Watch", "Headphones"};
+  private static final double MAX_PRICE = 1_500;
+
+  private final ObjectMapper objectMapper;
+  private final List<String> ids;
+
+  LoadTestData(ObjectMapper objectMapper, List<String> ids) {
+    this.objectMapper = objectMapper;
+    this.ids = ids;
+  }
+
+  static List<Product> catalog(int size) {
+    List<Product> products = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      products.add(product(i, 10 + (i % 1000) * 1.5));
+    }
+    return products;
+  }
+
+  String randomId(SplittableRandom random) {
+    return ids.get(random.nextInt(ids.size()));
+  }
+
+  String randomPrice(SplittableRandom random) {
+    return String.valueOf(random.nextInt((int) MAX_PRICE));
+  }
+
+  /**
+   * A brand, or a brand and model, so that searches match a fifth or a 25th of the catalog.
+   */
+  String randomSearch(SplittableRandom random) {
+    String brand = BRANDS[random.nextInt(BRANDS.length)].toLowerCase(Locale.ROOT);
+    return random.nextBoolean() ? brand : brand + " " + MODELS[random.nextInt(MODELS.length)].toLowerCase(Locale.ROOT);
+  }
+
+  Product newProduct(SplittableRandom random) {
+    return product(random.nextInt(1_000_000), 1 + random.nextInt((int) MAX_PRICE * 100) / 100.0);
+  }
+
+  List<Product> newProducts(SplittableRandom random, int size) {
+    List<Product> products = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      products.add(newProduct(random));
+    }
+    return products;
+  }
+
+  String json(Product product) {
+    try {
+      return objectMapper.writeValueAsString(product);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  String ndjson(List<Product> products) {
+    StringBuilder body = new StringBuilder();
+    for (Product product : products) {
+      body.append(json(product)).append('\n');
+    }
+    return body.toString();
+  }
+
+  private static Product product(int i, double price) {
+    return Product.builder()
+        .title(BRANDS[i % BRANDS.length] + " " + MODELS[(i / BRANDS.length) % MODELS.length] + " " + i)
+        .description("Load test product number " + i)
+        .price(price)
+        .build();
+  }
+}
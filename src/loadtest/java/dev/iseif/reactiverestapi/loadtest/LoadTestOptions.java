@@ -0,0 +1,109 @@
+package dev.iseif.reactiverestapi.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import lombok.Data;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Command line options, given as {@code --name=value}. Runs with the same options and seed send
+ * the same sequence of requests, so their reports can be compared across commits.
+ */
+@Data
+class LoadTestOptions {
+
+  private Workload workload = Workload.MIXED;
+
+  /**
+   * Requests started per second, whether or not earlier ones have completed.
+   */
+  private int rate = 500;
+
+  private Duration warmup = Duration.ofSeconds(10);
+
+  private Duration duration = Duration.ofSeconds(60);
+
+  /**
+   * Products created before the run, which the reads and updates pick from.
+   */
+  private int products = 10_000;
+
+  private int maxInFlight = 256;
+
+  private long seed = 42;
+
+  /**
+   * A running instance to test, instead of starting one on embedded Mongo. Its rate limiter should
+   * be off.
+   */
+  private String baseUrl;
+
+  /**
+   * Application properties for the started instance, given as {@code --property=name=value} once per
+   * property, e.g. {@code --property=products.api.dispatch=blocking}.
+   */
+  private List<String> properties = new ArrayList<>();
+
+  private Path output = Paths.get("target", "loadtest");
+
+  /**
+   * Identifies the run in the reports, the current commit by default.
+   */
+  private String label;
+
+  static LoadTestOptions parse(String[] args) {
+    LoadTestOptions options = new LoadTestOptions();
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (!arg.startsWith("--") || separator < 0) {
+        throw new IllegalArgumentException("Expected --name=value but got " + arg);
+      }
+      options.set(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+    return options;
+  }
+
+  private void set(String name, String value) {
+    switch (name) {
+      case "workload":
+        workload = Workload.valueOf(value.toUpperCase(Locale.ROOT));
+        break;
+      case "rate":
+        rate = Integer.parseInt(value);
+        break;
+      case "warmup":
+        warmup = DurationStyle.detectAndParse(value);
+        break;
+      case "duration":
+        duration = DurationStyle.detectAndParse(value);
+        break;
+      case "products":
+        products = Integer.parseInt(value);
+        break;
+      case "max-in-flight":
+        maxInFlight = Integer.parseInt(value);
+        break;
+      case "seed":
+        seed = Long.parseLong(value);
+        break;
+      case "base-url":
+        baseUrl = value;
+        break;
+      case "property":
+        properties.add(value);
+        break;
+      case "output":
+        output = Paths.get(value);
+        break;
+      case "label":
+        label = value;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown option --" + name);
+    }
+  }
+}
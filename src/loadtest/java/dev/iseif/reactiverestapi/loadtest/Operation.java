@@ -0,0 +1,83 @@
+package dev.iseif.reactiverestapi.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * One request against the product API. The request is fully built from {@code random} when
+ * {@link #execute} is called, so the sequence of requests only depends on the seed.
+ */
+enum Operation {
+
+  GET_BY_ID {
+    @Override
+    Mono<Integer> execute(HttpClient client, LoadTestData data, SplittableRandom random) {
+      return status(client.get().uri(PATH + "/" + data.randomId(random)));
+    }
+  },
+
+  GET_PAGE {
+    @Override
+    Mono<Integer> execute(HttpClient client, LoadTestData data, SplittableRandom random) {
+      return status(client.get().uri(PATH + "?size=20&sort=price&minPrice=" + data.randomPrice(random)));
+    }
+  },
+
+  SEARCH {
+    @Override
+    Mono<Integer> execute(HttpClient client, LoadTestData data, SplittableRandom random) {
+      return status(client.get().uri(PATH + "/search/" + UriUtils.encodePathSegment(data.randomSearch(random), StandardCharsets.UTF_8)));
+    }
+  },
+
+  CREATE {
+    @Override
+    Mono<Integer> execute(HttpClient client, LoadTestData data, SplittableRandom random) {
+      String body = data.json(data.newProduct(random));
+      return status(client.headers(headers -> headers.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+          .post().uri(PATH).send(ByteBufFlux.fromString(Mono.just(body))));
+    }
+  },
+
+  UPDATE {
+    @Override
+    Mono<Integer> execute(HttpClient client, LoadTestData data, SplittableRandom random) {
+      String uri = PATH + "/" + data.randomId(random);
+      String body = data.json(data.newProduct(random));
+      return status(client.headers(headers -> headers.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+          .put().uri(uri).send(ByteBufFlux.fromString(Mono.just(body))));
+    }
+  },
+
+  BULK_CREATE {
+    @Override
+    Mono<Integer> execute(HttpClient client, LoadTestData data, SplittableRandom random) {
+      String body = data.ndjson(data.newProducts(random, BULK_SIZE));
+      return status(client.headers(headers -> headers
+              .set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE)
+              .set(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON_VALUE))
+          .post().uri(PATH + "/bulk").send(ByteBufFlux.fromString(Mono.just(body))));
+    }
+  };
+
+  static final String PATH = "/api/products";
+  static final int BULK_SIZE = 50;
+
+  /**
+   * @return the response status, once the whole response body has been read
+   */
+  abstract Mono<Integer> execute(HttpClient client, LoadTestData data, SplittableRandom random);
+
+  private static Mono<Integer> status(HttpClient.ResponseReceiver<?> request) {
+    // asByteArray releases the aggregated body
+    return request.responseSingle((response, body) -> body.asByteArray()
+        .map(bytes -> response.status().code())
+        .defaultIfEmpty(response.status().code()));
+  }
+}
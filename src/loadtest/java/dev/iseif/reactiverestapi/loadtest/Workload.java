@@ -0,0 +1,32 @@
+package dev.iseif.reactiverestapi.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Request mixes, in percent of the requests sent.
+ */
+enum Workload {
+
+  READ(Operation.GET_BY_ID, 95, Operation.GET_PAGE, 5),
+  SEARCH(Operation.SEARCH, 80, Operation.GET_BY_ID, 20),
+  WRITE(Operation.BULK_CREATE, 50, Operation.CREATE, 30, Operation.UPDATE, 20),
+  MIXED(Operation.GET_BY_ID, 60, Operation.SEARCH, 15, Operation.GET_PAGE, 10, Operation.UPDATE, 10, Operation.CREATE, 5);
+
+  private final Operation[] slots = new Operation[100];
+
+  Workload(Object... mix) {
+    int slot = 0;
+    for (int i = 0; i < mix.length; i += 2) {
+      for (int share = (Integer) mix[i + 1]; share > 0; share--) {
+        slots[slot++] = (Operation) mix[i];
+      }
+    }
+    if (slot != slots.length) {
+      throw new IllegalStateException(name() + " does not add up to 100%");
+    }
+  }
+
+  Operation next(SplittableRandom random) {
+    return slots[random.nextInt(slots.length)];
+  }
+}
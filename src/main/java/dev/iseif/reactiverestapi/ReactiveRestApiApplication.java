@@ -2,8 +2,18 @@ package dev.iseif.reactiverestapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
-@SpringBootApplication
+/**
+ * Runs on the reactive MongoDB driver. The synchronous driver's auto-configuration is left out,
+ * see {@link dev.iseif.reactiverestapi.config.BlockingMongoConfiguration}.
+ */
+@SpringBootApplication(exclude = {MongoAutoConfiguration.class, MongoDataAutoConfiguration.class,
+    MongoRepositoriesAutoConfiguration.class})
+@ConfigurationPropertiesScan
 public class ReactiveRestApiApplication {
 
   public static void main(String[] args) {
@@ -0,0 +1,42 @@
+package dev.iseif.reactiverestapi.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link Jackson2CborEncoder} rejects multi-value publishers, so a {@code Flux} is collected and
+ * written as one CBOR array instead. The whole array is held in memory, so this is only fit for
+ * bounded results: the only multi-value endpoint that negotiates CBOR is the title search, capped
+ * at {@code products.search.limit}, while the catalog streams are NDJSON or SSE only.
+ */
+public class CollectingJackson2CborEncoder extends Jackson2CborEncoder {
+
+  public CollectingJackson2CborEncoder(ObjectMapper mapper) {
+    super(mapper, MediaType.APPLICATION_CBOR);
+  }
+
+  @Override
+  public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+      MimeType mimeType, Map<String, Object> hints) {
+    if (inputStream instanceof Mono) {
+      return Mono.from(inputStream)
+          .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+          .flux();
+    }
+    ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+    return Flux.from(inputStream)
+        .collectList()
+        .map(list -> encodeValue(list, bufferFactory, listType, mimeType, hints))
+        .flux();
+  }
+}
@@ -0,0 +1,122 @@
+package dev.iseif.reactiverestapi.codec;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
+import java.io.IOException;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.CodecException;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link Jackson2JsonEncoder} that serializes straight into buffers allocated from the response's
+ * {@link DataBufferFactory} (pooled direct buffers on Netty) instead of going through an
+ * intermediate {@code byte[]} per value.
+ *
+ * <p>A {@code Flux} written as a JSON array is collected first, as the default encoder does, and
+ * then written into a single buffer: once the first element has been flushed the status can no
+ * longer change, and an error would leave a 200 with truncated JSON. Only the NDJSON and SSE
+ * streams are written element by element.
+ */
+public class PooledJackson2JsonEncoder extends Jackson2JsonEncoder {
+
+  public PooledJackson2JsonEncoder(ObjectMapper mapper) {
+    super(mapper);
+  }
+
+  @Override
+  public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+      MimeType mimeType, Map<String, Object> hints) {
+    if (inputStream instanceof Mono) {
+      return Mono.from(inputStream)
+          .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+          .flux();
+    }
+    ObjectWriter writer = writer(elementType, mimeType, hints);
+    JsonEncoding encoding = getJsonEncoding(mimeType);
+    byte[] separator = getStreamingMediaTypeSeparator(mimeType);
+    if (separator != null) {
+      return Flux.from(inputStream)
+          .map(value -> write(bufferFactory, writer.getFactory(), encoding, generator -> writer.writeValue(generator, value), separator));
+    }
+    return Flux.from(inputStream)
+        .collectList()
+        .map(values -> write(bufferFactory, writer.getFactory(), encoding, generator -> {
+          generator.writeStartArray();
+          for (Object value : values) {
+            writer.writeValue(generator, value);
+          }
+          generator.writeEndArray();
+        }, null))
+        .flux();
+  }
+
+  @Override
+  public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+      MimeType mimeType, Map<String, Object> hints) {
+    ObjectWriter writer = writer(valueType, mimeType, hints);
+    return write(bufferFactory, writer.getFactory(), getJsonEncoding(mimeType), generator -> writer.writeValue(generator, value), null);
+  }
+
+  private ObjectWriter writer(ResolvableType type, MimeType mimeType, Map<String, Object> hints) {
+    ObjectMapper mapper = selectObjectMapper(type, mimeType);
+    if (mapper == null) {
+      throw new CodecException("No ObjectMapper for " + type);
+    }
+    Class<?> jsonView = hints != null ? (Class<?>) hints.get(JSON_VIEW_HINT) : null;
+    ObjectWriter writer = jsonView != null ? mapper.writerWithView(jsonView) : mapper.writer();
+    JavaType javaType = getJavaType(type.getType(), null);
+    if (javaType.isContainerType()) {
+      writer = writer.forType(javaType);
+    }
+    return customizeWriter(writer, mimeType, type, hints);
+  }
+
+  /**
+   * Writes what {@code content} generates, then {@code suffix} (when not {@code null}), into one buffer.
+   */
+  private DataBuffer write(DataBufferFactory bufferFactory, JsonFactory factory, JsonEncoding encoding,
+      JsonContent content, byte[] suffix) {
+    DataBuffer buffer = bufferFactory.allocateBuffer();
+    boolean release = true;
+    try {
+      try (JsonGenerator generator = factory.createGenerator(buffer.asOutputStream(), encoding)) {
+        content.writeTo(generator);
+      }
+      if (suffix != null) {
+        buffer.write(suffix);
+      }
+      release = false;
+      return buffer;
+    } catch (InvalidDefinitionException ex) {
+      throw new CodecException("Type definition error: " + ex.getType(), ex);
+    } catch (JsonProcessingException ex) {
+      throw new EncodingException("JSON encoding error: " + ex.getOriginalMessage(), ex);
+    } catch (IOException ex) {
+      throw new IllegalStateException("Unexpected I/O error while writing to data buffer", ex);
+    } finally {
+      if (release) {
+        DataBufferUtils.release(buffer);
+      }
+    }
+  }
+
+  private interface JsonContent {
+
+    void writeTo(JsonGenerator generator) throws IOException;
+  }
+}
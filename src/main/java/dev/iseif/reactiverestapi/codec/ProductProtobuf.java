@@ -0,0 +1,216 @@
+package dev.iseif.reactiverestapi.codec;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import dev.iseif.reactiverestapi.model.MultiGetResult;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductPage;
+import java.io.IOException;
+import java.util.List;
+import org.springframework.util.MimeType;
+
+/**
+ * Reads and writes {@link Product} as the {@code Product} message of {@code proto/product.proto},
+ * and writes {@link ProductPage} and {@link MultiGetResult} as the messages of the same name. Absent
+ * fields are omitted, as proto3 does for defaults. The version is only written and read
+ * for snapshots; API bodies carry it in the {@code ETag} header, as with JSON.
+ */
+public final class ProductProtobuf {
+
+  public static final MimeType MIME_TYPE = new MimeType("application", "x-protobuf");
+
+  private static final int ID = 1;
+  private static final int TITLE = 2;
+  private static final int DESCRIPTION = 3;
+  private static final int PRICE = 4;
+  private static final int VERSION = 5;
+
+  private static final int ID_TAG = ID << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int TITLE_TAG = TITLE << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int DESCRIPTION_TAG = DESCRIPTION << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int PRICE_TAG = PRICE << 3 | WireFormat.WIRETYPE_FIXED64;
+  private static final int VERSION_TAG = VERSION << 3 | WireFormat.WIRETYPE_VARINT;
+
+  private static final int PAGE_CONTENT = 1;
+  private static final int PAGE_NEXT_CURSOR = 2;
+
+  private static final int MULTI_GET_PRODUCTS = 1;
+  private static final int MULTI_GET_MISSING = 2;
+
+  private ProductProtobuf() {
+  }
+
+  /**
+   * Serializes a product, preceded by its varint length when {@code delimited}.
+   */
+  public static byte[] toByteArray(Product product, boolean delimited) {
+    int size = serializedSize(product);
+    byte[] bytes = new byte[size + (delimited ? CodedOutputStream.computeUInt32SizeNoTag(size) : 0)];
+    CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+    try {
+      if (delimited) {
+        output.writeUInt32NoTag(size);
+      }
+      writeTo(product, output);
+      output.checkNoSpaceLeft();
+    } catch (IOException e) {
+      throw new IllegalStateException("Product does not fit its computed size", e);
+    }
+    return bytes;
+  }
+
+  public static int serializedSize(Product product) {
+    return serializedSize(product, false);
+  }
+
+  public static int serializedSize(Product product, boolean withVersion) {
+    int size = 0;
+    if (product.getId() != null) {
+      size += CodedOutputStream.computeStringSize(ID, product.getId());
+    }
+    if (product.getTitle() != null) {
+      size += CodedOutputStream.computeStringSize(TITLE, product.getTitle());
+    }
+    if (product.getDescription() != null) {
+      size += CodedOutputStream.computeStringSize(DESCRIPTION, product.getDescription());
+    }
+    if (product.getPrice() != null) {
+      size += CodedOutputStream.computeDoubleSize(PRICE, product.getPrice());
+    }
+    if (withVersion && product.getVersion() != null) {
+      size += CodedOutputStream.computeInt64Size(VERSION, product.getVersion());
+    }
+    return size;
+  }
+
+  public static void writeTo(Product product, CodedOutputStream output) throws IOException {
+    writeTo(product, output, false);
+  }
+
+  public static void writeTo(Product product, CodedOutputStream output, boolean withVersion) throws IOException {
+    if (product.getId() != null) {
+      output.writeString(ID, product.getId());
+    }
+    if (product.getTitle() != null) {
+      output.writeString(TITLE, product.getTitle());
+    }
+    if (product.getDescription() != null) {
+      output.writeString(DESCRIPTION, product.getDescription());
+    }
+    if (product.getPrice() != null) {
+      output.writeDouble(PRICE, product.getPrice());
+    }
+    if (withVersion && product.getVersion() != null) {
+      output.writeInt64(VERSION, product.getVersion());
+    }
+  }
+
+  public static int serializedSize(ProductPage page) {
+    int size = serializedSize(PAGE_CONTENT, page.getContent());
+    if (page.getNextCursor() != null) {
+      size += CodedOutputStream.computeStringSize(PAGE_NEXT_CURSOR, page.getNextCursor());
+    }
+    return size;
+  }
+
+  public static void writeTo(ProductPage page, CodedOutputStream output) throws IOException {
+    writeTo(PAGE_CONTENT, page.getContent(), output);
+    if (page.getNextCursor() != null) {
+      output.writeString(PAGE_NEXT_CURSOR, page.getNextCursor());
+    }
+  }
+
+  public static int serializedSize(MultiGetResult result) {
+    int size = serializedSize(MULTI_GET_PRODUCTS, result.getProducts());
+    if (result.getMissing() != null) {
+      for (String id : result.getMissing()) {
+        size += CodedOutputStream.computeStringSize(MULTI_GET_MISSING, id);
+      }
+    }
+    return size;
+  }
+
+  public static void writeTo(MultiGetResult result, CodedOutputStream output) throws IOException {
+    writeTo(MULTI_GET_PRODUCTS, result.getProducts(), output);
+    if (result.getMissing() != null) {
+      for (String id : result.getMissing()) {
+        output.writeString(MULTI_GET_MISSING, id);
+      }
+    }
+  }
+
+  /**
+   * Reads one message until the end of {@code input} or of its current limit. Unknown fields are
+   * skipped.
+   */
+  public static Product readFrom(CodedInputStream input) throws IOException {
+    return readFrom(input, false);
+  }
+
+  public static Product readFrom(CodedInputStream input, boolean withVersion) throws IOException {
+    Product product = new Product();
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      switch (tag) {
+        case ID_TAG:
+          product.setId(input.readStringRequireUtf8());
+          break;
+        case TITLE_TAG:
+          product.setTitle(input.readStringRequireUtf8());
+          break;
+        case DESCRIPTION_TAG:
+          product.setDescription(input.readStringRequireUtf8());
+          break;
+        case PRICE_TAG:
+          product.setPrice(input.readDouble());
+          break;
+        case VERSION_TAG:
+          if (withVersion) {
+            product.setVersion(input.readInt64());
+          } else {
+            input.skipField(tag);
+          }
+          break;
+        default:
+          input.skipField(tag);
+      }
+    }
+    return product;
+  }
+
+  /**
+   * Reads one varint length-delimited message.
+   */
+  public static Product readDelimitedFrom(CodedInputStream input) throws IOException {
+    return readDelimitedFrom(input, false);
+  }
+
+  public static Product readDelimitedFrom(CodedInputStream input, boolean withVersion) throws IOException {
+    int limit = input.pushLimit(input.readRawVarint32());
+    Product product = readFrom(input, withVersion);
+    input.popLimit(limit);
+    return product;
+  }
+
+  private static int serializedSize(int field, List<Product> products) {
+    int size = 0;
+    if (products != null) {
+      for (Product product : products) {
+        int productSize = serializedSize(product);
+        size += CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(productSize) + productSize;
+      }
+    }
+    return size;
+  }
+
+  private static void writeTo(int field, List<Product> products, CodedOutputStream output) throws IOException {
+    if (products != null) {
+      for (Product product : products) {
+        output.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(serializedSize(product));
+        writeTo(product, output);
+      }
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package dev.iseif.reactiverestapi.codec;
+
+import com.google.protobuf.CodedInputStream;
+import dev.iseif.reactiverestapi.model.Product;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads the framing written by {@link ProductProtobufEncoder}. Bodies are aggregated up to
+ * {@code maxInMemorySize} before they are parsed.
+ */
+public class ProductProtobufDecoder implements Decoder<Product> {
+
+  private static final List<MimeType> MIME_TYPES = Collections.singletonList(ProductProtobuf.MIME_TYPE);
+
+  private final int maxInMemorySize;
+
+  public ProductProtobufDecoder(int maxInMemorySize) {
+    this.maxInMemorySize = maxInMemorySize;
+  }
+
+  @Override
+  public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+    return Product.class.isAssignableFrom(elementType.toClass()) && ProductProtobufEncoder.supports(mimeType);
+  }
+
+  @Override
+  public Flux<Product> decode(Publisher<DataBuffer> inputStream, ResolvableType elementType, MimeType mimeType,
+      Map<String, Object> hints) {
+    return DataBufferUtils.join(inputStream, maxInMemorySize)
+        .flatMapIterable(buffer -> read(buffer, true));
+  }
+
+  @Override
+  public Mono<Product> decodeToMono(Publisher<DataBuffer> inputStream, ResolvableType elementType, MimeType mimeType,
+      Map<String, Object> hints) {
+    return DataBufferUtils.join(inputStream, maxInMemorySize)
+        .map(buffer -> read(buffer, false).get(0));
+  }
+
+  @Override
+  public List<MimeType> getDecodableMimeTypes() {
+    return MIME_TYPES;
+  }
+
+  private static List<Product> read(DataBuffer buffer, boolean delimited) {
+    try {
+      CodedInputStream input = CodedInputStream.newInstance(buffer.asByteBuffer());
+      if (!delimited) {
+        return Collections.singletonList(ProductProtobuf.readFrom(input));
+      }
+      List<Product> products = new ArrayList<>();
+      while (!input.isAtEnd()) {
+        products.add(ProductProtobuf.readDelimitedFrom(input));
+      }
+      return products;
+    } catch (IOException e) {
+      throw new DecodingException("Malformed protobuf product", e);
+    } finally {
+      DataBufferUtils.release(buffer);
+    }
+  }
+}
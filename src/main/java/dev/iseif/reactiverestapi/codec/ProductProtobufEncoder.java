@@ -0,0 +1,122 @@
+package dev.iseif.reactiverestapi.codec;
+
+import com.google.protobuf.CodedOutputStream;
+import dev.iseif.reactiverestapi.model.MultiGetResult;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductPage;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes a single product, page or multi-get result as one protobuf message and multiple values as
+ * length-delimited messages, the same framing as Spring's {@code ProtobufEncoder}.
+ */
+public class ProductProtobufEncoder implements HttpMessageEncoder<Object> {
+
+  private static final List<MimeType> MIME_TYPES = Collections.singletonList(ProductProtobuf.MIME_TYPE);
+
+  @Override
+  public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+    return supports(elementType) && supports(mimeType);
+  }
+
+  @Override
+  public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+      ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+    boolean delimited = !(inputStream instanceof Mono);
+    return Flux.from(inputStream).map(value -> write(bufferFactory, value, delimited));
+  }
+
+  @Override
+  public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+      MimeType mimeType, Map<String, Object> hints) {
+    return write(bufferFactory, value, false);
+  }
+
+  @Override
+  public List<MimeType> getEncodableMimeTypes() {
+    return MIME_TYPES;
+  }
+
+  @Override
+  public List<MediaType> getStreamingMediaTypes() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Being specific to these types, the codec is registered among the typed writers, which are
+   * consulted before the object writers such as JSON's. See {@code CodecConfiguration} for how JSON
+   * stays the default.
+   */
+  public static boolean supports(ResolvableType elementType) {
+    Class<?> type = elementType.toClass();
+    return Product.class.isAssignableFrom(type) || ProductPage.class.isAssignableFrom(type)
+        || MultiGetResult.class.isAssignableFrom(type);
+  }
+
+  static boolean supports(MimeType mimeType) {
+    return mimeType == null || ProductProtobuf.MIME_TYPE.isCompatibleWith(mimeType);
+  }
+
+  /**
+   * Serializes directly into a buffer of the exact size from {@code bufferFactory}, which is a
+   * pooled direct buffer on Netty.
+   */
+  private static DataBuffer write(DataBufferFactory bufferFactory, Object value, boolean delimited) {
+    int size = serializedSize(value);
+    int length = size + (delimited ? CodedOutputStream.computeUInt32SizeNoTag(size) : 0);
+    DataBuffer buffer = bufferFactory.allocateBuffer(length);
+    boolean release = true;
+    try {
+      CodedOutputStream output = CodedOutputStream.newInstance(buffer.asByteBuffer(0, length));
+      if (delimited) {
+        output.writeUInt32NoTag(size);
+      }
+      writeTo(value, output);
+      output.checkNoSpaceLeft();
+      buffer.writePosition(length);
+      release = false;
+      return buffer;
+    } catch (IOException ex) {
+      throw new EncodingException("Could not write " + value.getClass().getSimpleName(), ex);
+    } finally {
+      if (release) {
+        DataBufferUtils.release(buffer);
+      }
+    }
+  }
+
+  private static int serializedSize(Object value) {
+    if (value instanceof Product) {
+      return ProductProtobuf.serializedSize((Product) value);
+    } else if (value instanceof ProductPage) {
+      return ProductProtobuf.serializedSize((ProductPage) value);
+    } else if (value instanceof MultiGetResult) {
+      return ProductProtobuf.serializedSize((MultiGetResult) value);
+    }
+    throw new EncodingException(value.getClass().getSimpleName() + " cannot be written as " + ProductProtobuf.MIME_TYPE);
+  }
+
+  private static void writeTo(Object value, CodedOutputStream output) throws IOException {
+    if (value instanceof Product) {
+      ProductProtobuf.writeTo((Product) value, output);
+    } else if (value instanceof ProductPage) {
+      ProductProtobuf.writeTo((ProductPage) value, output);
+    } else {
+      ProductProtobuf.writeTo((MultiGetResult) value, output);
+    }
+  }
+}
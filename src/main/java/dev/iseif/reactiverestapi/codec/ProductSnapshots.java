@@ -0,0 +1,158 @@
+package dev.iseif.reactiverestapi.codec;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import dev.iseif.reactiverestapi.model.Product;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Catalog snapshots: a gzip stream of varint length-delimited {@code Product} protobuf messages
+ * including their versions, written and read one batch or message at a time so that heap use does not grow with the catalog.
+ */
+public final class ProductSnapshots {
+
+  public static final MediaType MEDIA_TYPE = new MediaType("application", "gzip");
+  public static final String FILE_NAME = "products.pb.gz";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private ProductSnapshots() {
+  }
+
+  /**
+   * Compresses {@code products} into buffers, emitting whatever the deflater produced after every
+   * {@code batchSize} products.
+   */
+  public static Flux<DataBuffer> write(Flux<Product> products, DataBufferFactory bufferFactory, int batchSize) {
+    return Flux.using(SnapshotOutput::new,
+        output -> products
+            .buffer(batchSize)
+            .<DataBuffer>handle((batch, sink) -> {
+              DataBuffer buffer = output.write(batch, bufferFactory);
+              if (buffer != null) {
+                sink.next(buffer);
+              }
+            })
+            .concatWith(Mono.fromCallable(() -> output.finish(bufferFactory))),
+        SnapshotOutput::close);
+  }
+
+  /**
+   * Reads the products of the snapshot in {@code channel} on the bounded elastic scheduler.
+   */
+  public static Flux<Product> read(Callable<ReadableByteChannel> channel) {
+    return read(channel, Schedulers.boundedElastic());
+  }
+
+  /**
+   * Reads the products of the snapshot in {@code channel} on {@code scheduler}, which must allow
+   * blocking.
+   */
+  public static Flux<Product> read(Callable<ReadableByteChannel> channel, Scheduler scheduler) {
+    return Flux.using(
+        () -> new GZIPInputStream(Channels.newInputStream(channel.call()), BUFFER_SIZE),
+        ProductSnapshots::read,
+        ProductSnapshots::close)
+        .subscribeOn(scheduler);
+  }
+
+  private static Flux<Product> read(InputStream input) {
+    return Flux.generate(() -> CodedInputStream.newInstance(input, BUFFER_SIZE), (coded, sink) -> {
+      try {
+        if (coded.isAtEnd()) {
+          sink.complete();
+        } else {
+          sink.next(ProductProtobuf.readDelimitedFrom(coded, true));
+          // The size limit counts every byte read from the stream, not per message
+          coded.resetSizeCounter();
+        }
+      } catch (IOException e) {
+        sink.error(new UncheckedIOException("Could not read snapshot", e));
+      }
+      return coded;
+    });
+  }
+
+  private static void close(InputStream input) {
+    try {
+      input.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static final class SnapshotOutput {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+    private final GZIPOutputStream gzip;
+    private final CodedOutputStream coded;
+
+    SnapshotOutput() throws IOException {
+      this.gzip = new GZIPOutputStream(bytes, BUFFER_SIZE);
+      this.coded = CodedOutputStream.newInstance(gzip, BUFFER_SIZE);
+    }
+
+    DataBuffer write(List<Product> products, DataBufferFactory bufferFactory) {
+      try {
+        for (Product product : products) {
+          coded.writeUInt32NoTag(ProductProtobuf.serializedSize(product, true));
+          ProductProtobuf.writeTo(product, coded, true);
+        }
+        coded.flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return drain(bufferFactory);
+    }
+
+    DataBuffer finish(DataBufferFactory bufferFactory) throws IOException {
+      coded.flush();
+      gzip.finish();
+      return drain(bufferFactory);
+    }
+
+    void close() {
+      try {
+        gzip.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    /**
+     * @return the compressed bytes produced so far, or {@code null} when the deflater has not
+     * produced any
+     */
+    private DataBuffer drain(DataBufferFactory bufferFactory) {
+      if (bytes.size() == 0) {
+        return null;
+      }
+      DataBuffer buffer = bufferFactory.allocateBuffer(bytes.size());
+      try {
+        bytes.writeTo(buffer.asOutputStream());
+      } catch (IOException e) {
+        DataBufferUtils.release(buffer);
+        throw new UncheckedIOException(e);
+      }
+      bytes.reset();
+      return buffer;
+    }
+  }
+}
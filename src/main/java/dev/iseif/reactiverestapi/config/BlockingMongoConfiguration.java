@@ -0,0 +1,49 @@
+package dev.iseif.reactiverestapi.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import dev.iseif.reactiverestapi.repository.BlockingProductRepository;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientFactory;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+/**
+ * The synchronous {@code MongoClient}, {@code MongoTemplate} and {@link BlockingProductRepository}
+ * behind the blocking API. The application excludes their auto-configuration, so the other
+ * dispatch modes open no second connection pool. The client is built from the same settings and
+ * customizers as the reactive one, and the template shares its converter.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "products.api", name = "dispatch", havingValue = "blocking")
+@EnableMongoRepositories(basePackageClasses = BlockingProductRepository.class,
+    includeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, classes = BlockingProductRepository.class))
+public class BlockingMongoConfiguration {
+
+  @Bean
+  public MongoClient blockingMongoClient(ObjectProvider<MongoClientSettingsBuilderCustomizer> builderCustomizers,
+      MongoClientSettings settings) {
+    return new MongoClientFactory(builderCustomizers.orderedStream().collect(Collectors.toList())).createMongoClient(settings);
+  }
+
+  @Bean
+  public MongoDatabaseFactory blockingMongoDatabaseFactory(MongoClient blockingMongoClient, MongoProperties properties) {
+    return new SimpleMongoClientDatabaseFactory(blockingMongoClient, properties.getMongoClientDatabase());
+  }
+
+  @Bean
+  public MongoTemplate mongoTemplate(MongoDatabaseFactory blockingMongoDatabaseFactory, MappingMongoConverter converter) {
+    return new MongoTemplate(blockingMongoDatabaseFactory, converter);
+  }
+}
@@ -0,0 +1,62 @@
+package dev.iseif.reactiverestapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import dev.iseif.reactiverestapi.codec.CollectingJackson2CborEncoder;
+import dev.iseif.reactiverestapi.codec.PooledJackson2JsonEncoder;
+import dev.iseif.reactiverestapi.codec.ProductProtobufDecoder;
+import dev.iseif.reactiverestapi.codec.ProductProtobufEncoder;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+/**
+ * Binary representations selected through {@code Accept} and {@code Content-Type}, next to the
+ * default JSON: {@code application/cbor}, {@code application/x-jackson-smile} and
+ * {@code application/x-protobuf} (products, pages and multi-get results only). JSON itself is written by
+ * {@link PooledJackson2JsonEncoder}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class CodecConfiguration {
+
+  private static final int MAX_IN_MEMORY_SIZE = 256 * 1024;
+
+  private static final MimeType[] SMILE_MIME_TYPES = {
+      new MimeType("application", "x-jackson-smile"), new MimeType("application", "stream+x-jackson-smile")};
+
+  @Bean
+  public CodecCustomizer binaryCodecsCustomizer(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder objectMapperBuilder) {
+    ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+    ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+    return configurer -> {
+      PooledJackson2JsonEncoder jsonEncoder = new PooledJackson2JsonEncoder(objectMapper);
+      configurer.defaultCodecs().jackson2JsonEncoder(jsonEncoder);
+      // Custom writers are consulted before the default ones, and the first one that can write
+      // wins for Accept: */*, so JSON is registered again ahead of the binary encoders
+      configurer.customCodecs().registerWithDefaultConfig(jsonEncoder);
+      configurer.customCodecs().registerWithDefaultConfig(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+      configurer.customCodecs().registerWithDefaultConfig(new CollectingJackson2CborEncoder(cborMapper));
+      configurer.customCodecs().registerWithDefaultConfig(new Jackson2SmileDecoder(smileMapper, SMILE_MIME_TYPES));
+      configurer.customCodecs().registerWithDefaultConfig(new Jackson2SmileEncoder(smileMapper, SMILE_MIME_TYPES));
+      configurer.customCodecs().register(new ProductProtobufDecoder(MAX_IN_MEMORY_SIZE));
+      // The protobuf encoder only writes its own types, which puts it among the typed writers ahead
+      // of every object writer, so JSON is registered once more as a typed writer of those types
+      configurer.customCodecs().register(new EncoderHttpMessageWriter<Object>(jsonEncoder) {
+        @Override
+        public boolean canWrite(ResolvableType elementType, MediaType mediaType) {
+          return ProductProtobufEncoder.supports(elementType) && super.canWrite(elementType, mediaType);
+        }
+      });
+      configurer.customCodecs().register(new ProductProtobufEncoder());
+    };
+  }
+}
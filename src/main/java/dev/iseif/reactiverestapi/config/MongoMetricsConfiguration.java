@@ -0,0 +1,62 @@
+package dev.iseif.reactiverestapi.config;
+
+import com.mongodb.event.CommandEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.mongodb.DefaultMongoCommandTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoCommandTagsProvider;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bson.BsonValue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adds a {@code collection} tag to the {@code mongodb.driver.commands} timer that Spring Boot
+ * registers. Connection pool gauges ({@code mongodb.driver.pool.*}) need no customization.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "management.metrics.mongo.command.enabled", matchIfMissing = true)
+public class MongoMetricsConfiguration {
+
+  @Bean
+  public CollectionCommandTagsProvider collectionCommandTagsProvider() {
+    return new CollectionCommandTagsProvider();
+  }
+
+  @Bean
+  public MongoClientSettingsBuilderCustomizer collectionCommandTagsListener(CollectionCommandTagsProvider tagsProvider) {
+    return settings -> settings.addCommandListener(tagsProvider);
+  }
+
+  /**
+   * Only started events carry the command document, so the collection is remembered by request id
+   * until the matching succeeded or failed event is timed.
+   */
+  public static class CollectionCommandTagsProvider implements MongoCommandTagsProvider, CommandListener {
+
+    static final String NONE = "none";
+
+    private final MongoCommandTagsProvider delegate = new DefaultMongoCommandTagsProvider();
+    private final Map<Integer, String> collections = new ConcurrentHashMap<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+      String key = "getMore".equals(event.getCommandName()) ? "collection" : event.getCommandName();
+      BsonValue value = event.getCommand().get(key);
+      if (value != null && value.isString()) {
+        collections.put(event.getRequestId(), value.asString().getValue());
+      }
+    }
+
+    @Override
+    public Iterable<Tag> commandTags(CommandEvent event) {
+      String collection = collections.remove(event.getRequestId());
+      return Tags.of(delegate.commandTags(event)).and("collection", collection == null ? NONE : collection);
+    }
+  }
+}
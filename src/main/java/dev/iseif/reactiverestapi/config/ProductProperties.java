@@ -0,0 +1,315 @@
+package dev.iseif.reactiverestapi.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "products")
+public class ProductProperties {
+
+  private final Api api = new Api();
+
+  private final Page page = new Page();
+
+  private final Streaming streaming = new Streaming();
+
+  private final Search search = new Search();
+
+  private final Cache cache = new Cache();
+
+  private final MultiGet multiGet = new MultiGet();
+
+  private final ReadRouting readRouting = new ReadRouting();
+
+  private final LastKnownGood lastKnownGood = new LastKnownGood();
+
+  private final Bulk bulk = new Bulk();
+
+  private final CreateBatching createBatching = new CreateBatching();
+
+  private final Snapshot snapshot = new Snapshot();
+
+  private final Blocking blocking = new Blocking();
+
+  private final Stats stats = new Stats();
+
+  private final Changes changes = new Changes();
+
+  private final RateLimit rateLimit = new RateLimit();
+
+  @Data
+  public static class Api {
+
+    private Dispatch dispatch = Dispatch.ANNOTATED;
+
+    public enum Dispatch {
+      /**
+       * Requests go through {@code ProductController}.
+       */
+      ANNOTATED,
+      /**
+       * Requests go through the {@code ProductRouter} routes, which call {@code ProductHandler}
+       * directly instead of resolving controller method arguments reflectively.
+       */
+      FUNCTIONAL,
+      /**
+       * Requests go through {@code BlockingProductController}, which serves them with blocking
+       * repository calls on the {@code products.blocking.executor} threads.
+       */
+      BLOCKING
+    }
+  }
+
+  @Data
+  public static class Page {
+
+    private int defaultSize = 20;
+
+    private int maxSize = 500;
+  }
+
+  @Data
+  public static class Streaming {
+
+    private int batchSize = 256;
+  }
+
+  @Data
+  public static class Search {
+
+    private int limit = 100;
+
+    private boolean backfillOnStartup = true;
+
+    /**
+     * Whether identical searches made at the same time share a single query.
+     */
+    private boolean coalesce = true;
+
+    /**
+     * How long the results of a coalesced search are reused. Zero only shares searches that are
+     * still running.
+     */
+    private Duration resultTimeToLive = Duration.ofSeconds(1);
+
+    private long resultMaximumSize = 1_000;
+  }
+
+  @Data
+  public static class Cache {
+
+    private boolean enabled = true;
+
+    private long maximumSize = 10_000;
+
+    private Duration timeToLive = Duration.ofMinutes(5);
+  }
+
+  /**
+   * Sends listings and searches to replica set secondaries. Gets by id, which feed the shared
+   * product cache, and writes always go to the primary.
+   */
+  @Data
+  public static class ReadRouting {
+
+    private boolean enabled = false;
+
+    /**
+     * Read preference of listings and searches, such as {@code secondaryPreferred} or {@code nearest}.
+     */
+    private String readPreference = "secondaryPreferred";
+
+    /**
+     * How far behind the primary a secondary may be and still serve reads. MongoDB requires at
+     * least 90 seconds; zero means unbounded. A client's reads go to the primary for this long
+     * after its last write, or for as long as it sends the token when unbounded.
+     */
+    private Duration maxStaleness = Duration.ofSeconds(90);
+
+    /**
+     * How far in the future a consistency token may lie, to allow for clocks differing between
+     * instances. Tokens further ahead are ignored, so a forged one cannot pin reads for good.
+     */
+    private Duration clockSkew = Duration.ofSeconds(5);
+
+    /**
+     * Header in which write responses carry a consistency token. A client sending the token back
+     * reads its own writes.
+     */
+    private String tokenHeader = "X-Consistency-Token";
+  }
+
+  @Data
+  public static class MultiGet {
+
+    /**
+     * Most ids a single multi-get may ask for.
+     */
+    private int maxIds = 1000;
+  }
+
+  /**
+   * Read results replayed while the repository circuit breaker is open.
+   */
+  @Data
+  public static class LastKnownGood {
+
+    private long maximumSize = 10_000;
+
+    private Duration timeToLive = Duration.ofHours(1);
+  }
+
+  @Data
+  public static class Bulk {
+
+    private int chunkSize = 500;
+
+    private int concurrency = 4;
+  }
+
+  @Data
+  public static class CreateBatching {
+
+    /**
+     * Coalesce concurrent single creates into bulk inserts.
+     */
+    private boolean enabled = false;
+
+    private int maxBatchSize = 100;
+
+    private Duration maxDelay = Duration.ofMillis(5);
+
+    /**
+     * Inserts in flight at once.
+     */
+    private int concurrency = 4;
+  }
+
+  @Data
+  public static class Snapshot {
+
+    /**
+     * Snapshot loaded on startup, if any.
+     */
+    private Resource location;
+
+    /**
+     * Delete the existing products before loading; otherwise the snapshot is only loaded into an
+     * empty catalog.
+     */
+    private boolean replaceExisting = false;
+
+    /**
+     * Largest compressed snapshot accepted by {@code POST /api/products/import}.
+     */
+    private DataSize maxUploadSize = DataSize.ofMegabytes(256);
+
+    private int chunkSize = 1000;
+
+    private int concurrency = 4;
+  }
+
+  /**
+   * Where blocking calls, such as snapshot file I/O, run instead of on the event loop.
+   */
+  @Data
+  public static class Blocking {
+
+    private Executor executor = Executor.BOUNDED_ELASTIC;
+
+    public enum Executor {
+      /**
+       * Reactor's bounded elastic scheduler, a capped pool of platform threads.
+       */
+      BOUNDED_ELASTIC,
+      /**
+       * A new virtual thread per call, on Java 21 and later. Falls back to
+       * {@code BOUNDED_ELASTIC} on older runtimes.
+       */
+      VIRTUAL_THREADS
+    }
+  }
+
+  @Data
+  public static class Stats {
+
+    /**
+     * Positive upper bounds of the price histogram buckets. A last bucket takes the prices above
+     * them, so without bounds the histogram is a single bucket.
+     */
+    private List<Double> priceBuckets = new ArrayList<>(Arrays.asList(10.0, 50.0, 100.0, 500.0, 1000.0));
+
+    /**
+     * How often the statistics are recomputed from the database, which also picks up writes made
+     * by other instances.
+     */
+    private Duration reconcileInterval = Duration.ofMinutes(5);
+
+    /**
+     * Minimum time between recomputations requested by writes that cannot be applied incrementally,
+     * like bulk updates and deletes.
+     */
+    private Duration reconcileDelay = Duration.ofSeconds(1);
+  }
+
+  @Data
+  public static class Changes {
+
+    private SlowConsumerPolicy slowConsumer = SlowConsumerPolicy.BUFFER;
+
+    private int bufferSize = 256;
+
+    private Duration maxRetryBackoff = Duration.ofSeconds(30);
+
+    public enum SlowConsumerPolicy {
+      /**
+       * Drop events the client is not ready for.
+       */
+      DROP,
+      /**
+       * Buffer up to {@code buffer-size} events, then end the stream so the client resumes from its last event.
+       */
+      BUFFER
+    }
+  }
+
+  @Data
+  public static class RateLimit {
+
+    private boolean enabled = true;
+
+    /**
+     * Request header identifying the client, such as an API key. The remote address is used when
+     * unset or absent.
+     */
+    private String clientHeader;
+
+    private double requestsPerSecond = 50;
+
+    private int burst = 100;
+
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    private long maximumClients = 100_000;
+
+    /**
+     * Concurrent requests allowed per endpoint: {@code search}, {@code bulk} and {@code products}
+     * for the remaining product endpoints. The change feed is not counted.
+     */
+    private final Map<String, Integer> maxInFlight = new HashMap<>();
+
+    public RateLimit() {
+      maxInFlight.put("search", 64);
+      maxInFlight.put("bulk", 4);
+      maxInFlight.put("products", 256);
+    }
+  }
+}
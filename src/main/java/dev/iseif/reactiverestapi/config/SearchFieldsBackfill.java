@@ -0,0 +1,32 @@
+package dev.iseif.reactiverestapi.config;
+
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+@Log4j2
+@Component
+@ConditionalOnProperty(prefix = "products.search", name = "backfill-on-startup", havingValue = "true", matchIfMissing = true)
+public class SearchFieldsBackfill implements ApplicationListener<ApplicationReadyEvent> {
+
+  private final ProductRepository productRepository;
+
+  public SearchFieldsBackfill(ProductRepository productRepository) {
+    this.productRepository = productRepository;
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    productRepository.findBySearchTokensIsNull()
+        .concatMap(product -> productRepository.backfillSearchFields(product.getId(), product.getTitle()))
+        .filter(Boolean::booleanValue)
+        .count()
+        .filter(count -> count > 0)
+        .subscribe(
+            count -> log.info("Indexed search fields of " + count + " products"),
+            error -> log.warn("Search field backfill failed", error));
+  }
+}
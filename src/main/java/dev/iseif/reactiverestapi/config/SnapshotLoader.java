@@ -0,0 +1,60 @@
+package dev.iseif.reactiverestapi.config;
+
+import dev.iseif.reactiverestapi.model.SnapshotImportResult;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import dev.iseif.reactiverestapi.service.ProductSnapshotService;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Loads {@code products.snapshot.location} on startup, into an empty catalog unless
+ * {@code products.snapshot.replace-existing} is set.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(prefix = "products.snapshot", name = "location")
+public class SnapshotLoader implements ApplicationListener<ApplicationReadyEvent> {
+
+  private final ProductRepository productRepository;
+  private final ProductSnapshotService productSnapshotService;
+  private final ProductProperties productProperties;
+
+  public SnapshotLoader(ProductRepository productRepository, ProductSnapshotService productSnapshotService,
+      ProductProperties productProperties) {
+    this.productRepository = productRepository;
+    this.productSnapshotService = productSnapshotService;
+    this.productProperties = productProperties;
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    ProductProperties.Snapshot snapshot = productProperties.getSnapshot();
+    Resource location = snapshot.getLocation();
+    Mono<Boolean> load = snapshot.isReplaceExisting()
+        ? productRepository.deleteAll().thenReturn(true)
+        : productRepository.count().map(count -> count == 0);
+
+    long start = System.nanoTime();
+    load
+        .filter(Boolean::booleanValue)
+        .doOnSuccess(ready -> {
+          if (ready == null) {
+            log.info("Catalog is not empty, skipping snapshot " + location);
+          }
+        })
+        .flatMap(ready -> productSnapshotService.importSnapshot(location))
+        .subscribe(
+            result -> log.info(summary(location, result, start)),
+            error -> log.warn("Could not load snapshot " + location, error));
+  }
+
+  private static String summary(Resource location, SnapshotImportResult result, long start) {
+    return String.format("Loaded %d products from %s in %d ms (%d failed)", result.getImported(), location,
+        (System.nanoTime() - start) / 1_000_000, result.getFailed());
+  }
+}
@@ -0,0 +1,156 @@
+package dev.iseif.reactiverestapi.controller;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.BulkChunkResult;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.MultiGetRequest;
+import dev.iseif.reactiverestapi.model.MultiGetResult;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductPage;
+import dev.iseif.reactiverestapi.service.BlockingProductService;
+import dev.iseif.reactiverestapi.service.BlockingScheduler;
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The request/response endpoints of {@link ProductController} on {@link BlockingProductService},
+ * each request running its blocking repository calls on one {@link BlockingScheduler} thread.
+ * Streaming, change feed, statistics, snapshot and bulk update/delete endpoints stay reactive only.
+ */
+@RestController
+@ConditionalOnProperty(prefix = "products.api", name = "dispatch", havingValue = "blocking")
+@RequestMapping("/api/products")
+public class BlockingProductController {
+
+  private final BlockingProductService productService;
+  private final BlockingScheduler blockingScheduler;
+  private final ProductProperties productProperties;
+
+  public BlockingProductController(BlockingProductService productService, BlockingScheduler blockingScheduler,
+      ProductProperties productProperties) {
+    this.productService = productService;
+    this.blockingScheduler = blockingScheduler;
+    this.productProperties = productProperties;
+  }
+
+  @GetMapping
+  public Mono<ProductPage> getProductPage(@RequestParam(required = false) Integer size,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Double minPrice,
+      @RequestParam(required = false) Double maxPrice,
+      @RequestParam(required = false) String titlePrefix,
+      @RequestParam(defaultValue = "id") String sort,
+      @RequestParam(required = false) String fields) {
+    ProductOrder order = ProductOrder.parse(sort);
+    ProductFilter filter = ProductFilter.of(minPrice, maxPrice, titlePrefix);
+    ProductFields productFields = ProductFields.parse(fields);
+    return blockingScheduler.call(() -> productService.getPage(order, filter, cursor, size, productFields));
+  }
+
+  @GetMapping("{id}")
+  public Mono<ResponseEntity<Product>> getProductById(@PathVariable String id,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      @RequestParam(required = false) String fields) {
+    ProductFields productFields = ProductFields.parse(fields);
+    return blockingScheduler.call(() -> {
+      if (ifNoneMatch != null) {
+        Optional<Long> version = productService.getVersion(id);
+        if (version.isPresent() && !ProductETags.noneMatch(ifNoneMatch, version.get())) {
+          return ProductETags.withETag(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version.get()).<Product>build();
+        }
+      }
+      return productService.getById(id)
+          .map(product -> ProductETags.withETag(ResponseEntity.ok(), product).body(productFields.project(product)))
+          .orElseGet(() -> ResponseEntity.notFound().build());
+    });
+  }
+
+  @PostMapping("/_mget")
+  public Mono<MultiGetResult> getProductsById(@RequestBody @Valid MultiGetRequest request,
+      @RequestParam(required = false) String fields) {
+    ProductFields productFields = ProductFields.parse(fields);
+    return blockingScheduler.call(() -> productService.getAllById(request.getIds(), productFields));
+  }
+
+  @GetMapping("/search/{title}")
+  public Flux<Product> searchByTitle(@PathVariable String title, @RequestParam(required = false) String fields) {
+    ProductFields productFields = ProductFields.parse(fields);
+    return blockingScheduler.call(() -> productService.searchByTitle(title, productFields))
+        .flatMapIterable(Function.identity());
+  }
+
+  @PostMapping
+  public Mono<ResponseEntity<Product>> createProduct(@RequestBody @Valid Product product) {
+    Product productToCreate = product.toBuilder().id(null).build();
+    return blockingScheduler.call(() -> {
+      Product newProduct = productService.create(productToCreate);
+      return ProductETags.withETag(ResponseEntity.created(URI.create("/products/" + newProduct.getId())), newProduct)
+          .body(newProduct);
+    });
+  }
+
+  @PutMapping("{id}")
+  public Mono<ResponseEntity<Product>> updateProduct(@PathVariable String id, @RequestBody @Valid Product product,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    List<Long> expectedVersions = ProductETags.expectedVersions(ifMatch);
+    return blockingScheduler.call(() -> productService.update(id, product, expectedVersions)
+        .map(updatedProduct -> ProductETags.withETag(ResponseEntity.ok(), updatedProduct).body(updatedProduct))
+        .orElseGet(() -> ResponseEntity.notFound().build()));
+  }
+
+  @DeleteMapping("{id}")
+  public Mono<ResponseEntity<Void>> deleteProduct(@PathVariable String id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    List<Long> expectedVersions = ProductETags.expectedVersions(ifMatch);
+    return blockingScheduler.call(() -> productService.deleteById(id, expectedVersions)
+        .map(r -> ResponseEntity.ok().<Void>build())
+        .orElseGet(() -> ResponseEntity.notFound().build()));
+  }
+
+  @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<BulkChunkResult> bulkCreateProducts(@RequestBody Flux<Product> products) {
+    ProductProperties.Bulk bulk = productProperties.getBulk();
+    return products
+        .buffer(bulk.getChunkSize())
+        .index()
+        .flatMapSequential(chunk -> {
+          long firstIndex = chunk.getT1() * bulk.getChunkSize();
+          return blockingScheduler.call(() -> productService.createChunk(firstIndex, chunk.getT2()));
+        }, bulk.getConcurrency());
+  }
+
+  @ExceptionHandler(InvalidRequestException.class)
+  public ResponseEntity<Void> handleInvalidRequest() {
+    return ResponseEntity.badRequest().build();
+  }
+
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public ResponseEntity<Void> handleOptimisticLockingFailure() {
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+  }
+}
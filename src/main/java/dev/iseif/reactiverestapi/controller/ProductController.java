@@ -1,66 +1,212 @@
 package dev.iseif.reactiverestapi.controller;
 
+import dev.iseif.reactiverestapi.codec.ProductSnapshots;
+import dev.iseif.reactiverestapi.model.BulkChunkResult;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.MultiGetRequest;
+import dev.iseif.reactiverestapi.model.MultiGetResult;
 import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductChange;
+import dev.iseif.reactiverestapi.model.ProductPage;
+import dev.iseif.reactiverestapi.model.ProductStatistics;
+import dev.iseif.reactiverestapi.model.SnapshotImportResult;
+import dev.iseif.reactiverestapi.service.ProductBulkService;
+import dev.iseif.reactiverestapi.service.ProductChangeFeed;
 import dev.iseif.reactiverestapi.service.ProductService;
+import dev.iseif.reactiverestapi.service.ProductSnapshotService;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import java.net.URI;
+import java.util.concurrent.TimeoutException;
 import javax.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
+@ConditionalOnProperty(prefix = "products.api", name = "dispatch", havingValue = "annotated", matchIfMissing = true)
 @RequestMapping("/api/products")
 public class ProductController {
 
   private final ProductService productService;
+  private final ProductBulkService productBulkService;
+  private final ProductChangeFeed productChangeFeed;
+  private final ProductSnapshotService productSnapshotService;
 
-  public ProductController(ProductService productService) {
+  public ProductController(ProductService productService, ProductBulkService productBulkService, ProductChangeFeed productChangeFeed,
+      ProductSnapshotService productSnapshotService) {
     this.productService = productService;
+    this.productBulkService = productBulkService;
+    this.productChangeFeed = productChangeFeed;
+    this.productSnapshotService = productSnapshotService;
   }
 
+  @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+  public Flux<Product> streamAllProducts(@RequestParam(required = false) Double minPrice,
+      @RequestParam(required = false) Double maxPrice,
+      @RequestParam(required = false) String titlePrefix,
+      @RequestParam(required = false) String sort,
+      @RequestParam(required = false) String fields) {
+    return productService.streamAll(ProductFilter.of(minPrice, maxPrice, titlePrefix), order(sort), ProductFields.parse(fields));
+  }
+
+  /**
+   * Without {@code size}, returns the first page of {@code products.page.default-size}. Only the
+   * NDJSON and SSE streams list the whole catalog.
+   */
   @GetMapping
-  public Flux<Product> getAllProducts() {
-    return productService.getAll();
+  public Mono<ProductPage> getProductPage(@RequestParam(required = false) Integer size,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Double minPrice,
+      @RequestParam(required = false) Double maxPrice,
+      @RequestParam(required = false) String titlePrefix,
+      @RequestParam(defaultValue = "id") String sort,
+      @RequestParam(required = false) String fields) {
+    return productService.getPage(ProductOrder.parse(sort), ProductFilter.of(minPrice, maxPrice, titlePrefix), cursor, size,
+        ProductFields.parse(fields));
   }
 
   @GetMapping("{id}")
-  public Mono<ResponseEntity<Product>> getProductById(@PathVariable String id) {
-    return productService.getById(id)
-        .map(ResponseEntity::ok)
-        .defaultIfEmpty(ResponseEntity.notFound().build());
+  public Mono<ResponseEntity<Product>> getProductById(@PathVariable String id,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      @RequestParam(required = false) String fields) {
+    ProductFields productFields = ProductFields.parse(fields);
+    if (ifNoneMatch == null) {
+      return findProductById(id, productFields);
+    }
+    return productService.getVersion(id)
+        .filter(version -> !ProductETags.noneMatch(ifNoneMatch, version))
+        .map(version -> ProductETags.withETag(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version).<Product>build())
+        .switchIfEmpty(Mono.defer(() -> findProductById(id, productFields)));
+  }
+
+  @PostMapping("/_mget")
+  public Mono<MultiGetResult> getProductsById(@RequestBody @Valid MultiGetRequest request,
+      @RequestParam(required = false) String fields) {
+    return productService.getAllById(request.getIds(), ProductFields.parse(fields));
   }
 
   @GetMapping("/search/{title}")
-  public Flux<Product> searchByTitle(@PathVariable String title) {
-    return productService.searchByTitle(title);
+  public Flux<Product> searchByTitle(@PathVariable String title, @RequestParam(required = false) String fields) {
+    return productService.searchByTitle(title, ProductFields.parse(fields));
+  }
+
+  @GetMapping(value = "/search/{title}", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+  public Flux<Product> streamByTitle(@PathVariable String title, @RequestParam(required = false) String fields) {
+    return productService.streamByTitle(title, ProductFields.parse(fields));
+  }
+
+  @GetMapping("/stats")
+  public Mono<ResponseEntity<ProductStatistics>> getStatistics() {
+    return productService.getStatistics()
+        .map(ResponseEntity::ok)
+        .defaultIfEmpty(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build());
+  }
+
+  @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<ProductChange>> productChanges(
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    return productChangeFeed.changes(lastEventId);
   }
 
   @PostMapping
   public Mono<ResponseEntity<Product>> createProduct(@RequestBody @Valid Product product) {
     Product productToCreate = product.toBuilder().id(null).build();
     return productService.create(productToCreate)
-        .map(newProduct -> ResponseEntity.created(URI.create("/products/" + newProduct.getId())).body(newProduct));
+        .map(newProduct -> ProductETags.withETag(ResponseEntity.created(URI.create("/products/" + newProduct.getId())), newProduct)
+            .body(newProduct));
   }
 
   @PutMapping("{id}")
-  public Mono<ResponseEntity<Product>> updateProduct(@PathVariable String id, @RequestBody @Valid Product product) {
-    return productService.update(id, product)
-        .map(ResponseEntity::ok)
+  public Mono<ResponseEntity<Product>> updateProduct(@PathVariable String id, @RequestBody @Valid Product product,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return productService.update(id, product, ProductETags.expectedVersions(ifMatch))
+        .map(updatedProduct -> ProductETags.withETag(ResponseEntity.ok(), updatedProduct).body(updatedProduct))
         .defaultIfEmpty(ResponseEntity.notFound().build());
   }
 
   @DeleteMapping("{id}")
-  public Mono<ResponseEntity<Void>> deleteProduct(@PathVariable String id) {
-    return productService.deleteById(id)
+  public Mono<ResponseEntity<Void>> deleteProduct(@PathVariable String id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return productService.deleteById(id, ProductETags.expectedVersions(ifMatch))
         .map(r -> ResponseEntity.ok().<Void>build())
         .defaultIfEmpty(ResponseEntity.notFound().build());
   }
+
+  @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<BulkChunkResult> bulkCreateProducts(@RequestBody Flux<Product> products) {
+    return productBulkService.create(products);
+  }
+
+  @PutMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<BulkChunkResult> bulkUpdateProducts(@RequestBody Flux<Product> products) {
+    return productBulkService.update(products);
+  }
+
+  @DeleteMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<BulkChunkResult> bulkDeleteProducts(@RequestBody Flux<Product> products) {
+    return productBulkService.delete(products);
+  }
+
+  @GetMapping(value = "/export", produces = "application/gzip")
+  public ResponseEntity<Flux<DataBuffer>> exportProducts(ServerHttpResponse response) {
+    return ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(ProductSnapshots.FILE_NAME).build().toString())
+        .contentType(ProductSnapshots.MEDIA_TYPE)
+        .body(productSnapshotService.export(response.bufferFactory()));
+  }
+
+  @PostMapping(value = "/import", consumes = "application/gzip")
+  public Mono<SnapshotImportResult> importProducts(@RequestBody Flux<DataBuffer> snapshot) {
+    return productSnapshotService.importSnapshot(snapshot);
+  }
+
+  @ExceptionHandler(InvalidRequestException.class)
+  public ResponseEntity<Void> handleInvalidRequest() {
+    return ResponseEntity.badRequest().build();
+  }
+
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public ResponseEntity<Void> handleOptimisticLockingFailure() {
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+  }
+
+  @ExceptionHandler({CallNotPermittedException.class, BulkheadFullException.class, TimeoutException.class})
+  public ResponseEntity<Void> handleRepositoryUnavailable() {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+  }
+
+  private static ProductOrder order(String sort) {
+    return sort == null ? null : ProductOrder.parse(sort);
+  }
+
+  private Mono<ResponseEntity<Product>> findProductById(String id, ProductFields fields) {
+    // Served from the product cache, so the projection is applied in memory
+    return productService.getById(id)
+        .map(product -> ProductETags.withETag(ResponseEntity.ok(), product).body(fields.project(product)))
+        .defaultIfEmpty(ResponseEntity.notFound().build());
+  }
 }
@@ -0,0 +1,80 @@
+package dev.iseif.reactiverestapi.controller;
+
+import dev.iseif.reactiverestapi.model.Product;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Strong entity tags derived from the product version, e.g. {@code "3"}.
+ */
+final class ProductETags {
+
+  private static final String ANY = "*";
+  private static final String WEAK_PREFIX = "W/";
+
+  private ProductETags() {
+  }
+
+  static <T extends ResponseEntity.HeadersBuilder<T>> T withETag(T builder, Product product) {
+    return withETag(builder, product.getVersion());
+  }
+
+  static <T extends ResponseEntity.HeadersBuilder<T>> T withETag(T builder, Long version) {
+    return version == null ? builder : builder.eTag(String.valueOf(version));
+  }
+
+  static <T extends ServerResponse.HeadersBuilder<T>> T withETag(T builder, Product product) {
+    return withETag(builder, product.getVersion());
+  }
+
+  static <T extends ServerResponse.HeadersBuilder<T>> T withETag(T builder, Long version) {
+    return version == null ? builder : builder.eTag(String.valueOf(version));
+  }
+
+  /**
+   * Uses the weak comparison of {@code If-None-Match}.
+   */
+  static boolean noneMatch(String ifNoneMatch, Long version) {
+    if (ANY.equals(ifNoneMatch.trim())) {
+      return false;
+    }
+    for (String tag : ifNoneMatch.split(",")) {
+      String value = tag.trim();
+      if (value.startsWith(WEAK_PREFIX)) {
+        value = value.substring(WEAK_PREFIX.length());
+      }
+      if (value.equals(quoted(version))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the versions listed in an {@code If-Match} header, or null when any version matches.
+   * Weak and malformed tags can never match, so they are left out.
+   */
+  static List<Long> expectedVersions(String ifMatch) {
+    if (ifMatch == null || ANY.equals(ifMatch.trim())) {
+      return null;
+    }
+    List<Long> versions = new ArrayList<>();
+    for (String tag : ifMatch.split(",")) {
+      String value = tag.trim();
+      if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+        try {
+          versions.add(Long.valueOf(value.substring(1, value.length() - 1)));
+        } catch (NumberFormatException e) {
+          // not one of our tags
+        }
+      }
+    }
+    return versions;
+  }
+
+  private static String quoted(Long version) {
+    return "\"" + version + "\"";
+  }
+}
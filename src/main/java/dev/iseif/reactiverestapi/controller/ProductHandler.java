@@ -0,0 +1,277 @@
+package dev.iseif.reactiverestapi.controller;
+
+import dev.iseif.reactiverestapi.codec.ProductSnapshots;
+import dev.iseif.reactiverestapi.model.BulkChunkResult;
+import dev.iseif.reactiverestapi.model.MultiGetRequest;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductChange;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.service.ProductBulkService;
+import dev.iseif.reactiverestapi.service.ProductChangeFeed;
+import dev.iseif.reactiverestapi.service.ProductService;
+import dev.iseif.reactiverestapi.service.ProductSnapshotService;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.validation.Validator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.NotAcceptableStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+/**
+ * The product API behind {@link ProductRouter}. Serves the same requests as {@link ProductController}
+ * with arguments read straight off the request.
+ */
+@Component
+@ConditionalOnProperty(prefix = "products.api", name = "dispatch", havingValue = "functional")
+public class ProductHandler {
+
+  private static final ParameterizedTypeReference<ServerSentEvent<ProductChange>> CHANGE_EVENT =
+      new ParameterizedTypeReference<ServerSentEvent<ProductChange>>() {};
+
+  private final ProductService productService;
+  private final ProductBulkService productBulkService;
+  private final ProductChangeFeed productChangeFeed;
+  private final ProductSnapshotService productSnapshotService;
+  private final Validator validator;
+  private final List<MediaType> productMediaTypes;
+
+  public ProductHandler(ProductService productService, ProductBulkService productBulkService, ProductChangeFeed productChangeFeed,
+      ProductSnapshotService productSnapshotService, Validator validator, ServerCodecConfigurer codecConfigurer) {
+    this.productService = productService;
+    this.productBulkService = productBulkService;
+    this.productChangeFeed = productChangeFeed;
+    this.productSnapshotService = productSnapshotService;
+    this.validator = validator;
+    this.productMediaTypes = writableMediaTypes(codecConfigurer, Product.class);
+  }
+
+  public Mono<ServerResponse> streamAllProducts(ServerRequest request) {
+    return ServerResponse.ok().contentType(streamType(request))
+        .body(productService.streamAll(filter(request), order(request), fields(request)), Product.class);
+  }
+
+  public Mono<ServerResponse> getProductPage(ServerRequest request) {
+    Integer size = numberParam(request, "size", Integer::valueOf);
+    ProductOrder order = ProductOrder.parse(request.queryParam("sort").orElse("id"));
+    return productService.getPage(order, filter(request), request.queryParam("cursor").orElse(null), size, fields(request))
+        .flatMap(page -> ServerResponse.ok().bodyValue(page));
+  }
+
+  public Mono<ServerResponse> getProductById(ServerRequest request) {
+    String id = request.pathVariable("id");
+    ProductFields fields = fields(request);
+    String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+    if (ifNoneMatch == null) {
+      return findProductById(request, id, fields);
+    }
+    return productService.getVersion(id)
+        .filter(version -> !ProductETags.noneMatch(ifNoneMatch, version))
+        .flatMap(version -> ProductETags.withETag(ServerResponse.status(HttpStatus.NOT_MODIFIED), version).build())
+        .switchIfEmpty(Mono.defer(() -> findProductById(request, id, fields)));
+  }
+
+  public Mono<ServerResponse> getProductsById(ServerRequest request) {
+    ProductFields fields = fields(request);
+    return request.bodyToMono(MultiGetRequest.class)
+        .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Missing request body")))
+        .doOnNext(this::validate)
+        .flatMap(multiGet -> productService.getAllById(multiGet.getIds(), fields))
+        .flatMap(result -> ServerResponse.ok().bodyValue(result));
+  }
+
+  public Mono<ServerResponse> searchByTitle(ServerRequest request) {
+    return products(request).body(productService.searchByTitle(request.pathVariable("title"), fields(request)), Product.class);
+  }
+
+  public Mono<ServerResponse> streamByTitle(ServerRequest request) {
+    return ServerResponse.ok().contentType(streamType(request))
+        .body(productService.streamByTitle(request.pathVariable("title"), fields(request)), Product.class);
+  }
+
+  public Mono<ServerResponse> getStatistics(ServerRequest request) {
+    return productService.getStatistics()
+        .flatMap(statistics -> ServerResponse.ok().bodyValue(statistics))
+        .switchIfEmpty(Mono.defer(() -> ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build()));
+  }
+
+  public Mono<ServerResponse> productChanges(ServerRequest request) {
+    String lastEventId = request.headers().firstHeader("Last-Event-ID");
+    return ServerResponse.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(productChangeFeed.changes(lastEventId), CHANGE_EVENT);
+  }
+
+  public Mono<ServerResponse> createProduct(ServerRequest request) {
+    return validBody(request)
+        .flatMap(product -> productService.create(product.toBuilder().id(null).build()))
+        .flatMap(newProduct -> ProductETags.withETag(ServerResponse.created(URI.create("/products/" + newProduct.getId())), newProduct)
+            .contentType(productType(request))
+            .bodyValue(newProduct));
+  }
+
+  public Mono<ServerResponse> updateProduct(ServerRequest request) {
+    String id = request.pathVariable("id");
+    List<Long> expectedVersions = ProductETags.expectedVersions(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+    return validBody(request)
+        .flatMap(product -> productService.update(id, product, expectedVersions))
+        .flatMap(updatedProduct -> ProductETags.withETag(ServerResponse.ok(), updatedProduct)
+            .contentType(productType(request))
+            .bodyValue(updatedProduct))
+        .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+  }
+
+  public Mono<ServerResponse> deleteProduct(ServerRequest request) {
+    List<Long> expectedVersions = ProductETags.expectedVersions(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+    return productService.deleteById(request.pathVariable("id"), expectedVersions)
+        .flatMap(deleted -> ServerResponse.ok().build())
+        .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+  }
+
+  public Mono<ServerResponse> bulkCreateProducts(ServerRequest request) {
+    return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON)
+        .body(productBulkService.create(request.bodyToFlux(Product.class)), BulkChunkResult.class);
+  }
+
+  public Mono<ServerResponse> bulkUpdateProducts(ServerRequest request) {
+    return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON)
+        .body(productBulkService.update(request.bodyToFlux(Product.class)), BulkChunkResult.class);
+  }
+
+  public Mono<ServerResponse> bulkDeleteProducts(ServerRequest request) {
+    return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON)
+        .body(productBulkService.delete(request.bodyToFlux(Product.class)), BulkChunkResult.class);
+  }
+
+  public Mono<ServerResponse> exportProducts(ServerRequest request) {
+    return ServerResponse.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(ProductSnapshots.FILE_NAME).build().toString())
+        .contentType(ProductSnapshots.MEDIA_TYPE)
+        .body(BodyInserters.fromDataBuffers(productSnapshotService.export(request.exchange().getResponse().bufferFactory())));
+  }
+
+  public Mono<ServerResponse> importProducts(ServerRequest request) {
+    return productSnapshotService.importSnapshot(request.body(BodyExtractors.toDataBuffers()))
+        .flatMap(result -> ServerResponse.ok().bodyValue(result));
+  }
+
+  private Mono<ServerResponse> findProductById(ServerRequest request, String id, ProductFields fields) {
+    // Served from the product cache, so the projection is applied in memory
+    return productService.getById(id)
+        .flatMap(product -> ProductETags.withETag(ServerResponse.ok(), product)
+            .contentType(productType(request))
+            .bodyValue(fields.project(product)))
+        .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+  }
+
+  private ServerResponse.BodyBuilder products(ServerRequest request) {
+    return ServerResponse.ok().contentType(productType(request));
+  }
+
+  private Mono<Product> validBody(ServerRequest request) {
+    return request.bodyToMono(Product.class)
+        .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Missing request body")))
+        .doOnNext(this::validate);
+  }
+
+  private void validate(Object body) {
+    if (!validator.validate(body).isEmpty()) {
+      throw new ServerWebInputException("Invalid " + body.getClass().getSimpleName());
+    }
+  }
+
+  /**
+   * Picks the media type to write products in from the {@code Accept} header. The list of types is
+   * worked out once from the codecs, and JSON comes first so that it wins when anything goes.
+   */
+  private MediaType productType(ServerRequest request) {
+    List<MediaType> accepted = request.headers().accept();
+    if (accepted.isEmpty()) {
+      return productMediaTypes.get(0);
+    }
+    if (accepted.size() > 1) {
+      accepted = new ArrayList<>(accepted);
+      MediaType.sortBySpecificityAndQuality(accepted);
+    }
+    for (MediaType acceptedType : accepted) {
+      for (MediaType productMediaType : productMediaTypes) {
+        if (acceptedType.isCompatibleWith(productMediaType)) {
+          return productMediaType;
+        }
+      }
+    }
+    throw new NotAcceptableStatusException(productMediaTypes);
+  }
+
+  private static MediaType streamType(ServerRequest request) {
+    for (MediaType acceptedType : request.headers().accept()) {
+      if (MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(acceptedType)) {
+        return MediaType.TEXT_EVENT_STREAM;
+      }
+    }
+    return MediaType.APPLICATION_NDJSON;
+  }
+
+  private static List<MediaType> writableMediaTypes(ServerCodecConfigurer codecConfigurer, Class<?> type) {
+    ResolvableType resolvableType = ResolvableType.forClass(type);
+    List<MediaType> mediaTypes = new ArrayList<>();
+    codecConfigurer.getWriters().stream()
+        .filter(writer -> writer.canWrite(resolvableType, null))
+        .flatMap(writer -> writer.getWritableMediaTypes(resolvableType).stream())
+        .filter(mediaType -> mediaType.isConcrete() && !mediaType.isWildcardSubtype() && !isStreaming(mediaType))
+        .filter(mediaType -> !mediaTypes.contains(mediaType))
+        .forEach(mediaTypes::add);
+    if (mediaTypes.isEmpty()) {
+      throw new IllegalStateException("No codec writes " + type.getSimpleName());
+    }
+    return mediaTypes;
+  }
+
+  static boolean isStreaming(MediaType mediaType) {
+    return MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(mediaType) || MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(mediaType);
+  }
+
+  private static ProductFilter filter(ServerRequest request) {
+    return ProductFilter.of(numberParam(request, "minPrice", Double::valueOf), numberParam(request, "maxPrice", Double::valueOf),
+        request.queryParam("titlePrefix").orElse(null));
+  }
+
+  private static ProductOrder order(ServerRequest request) {
+    return request.queryParam("sort").map(ProductOrder::parse).orElse(null);
+  }
+
+  private static ProductFields fields(ServerRequest request) {
+    return ProductFields.parse(request.queryParam("fields").orElse(null));
+  }
+
+  /**
+   * Rejects a malformed number with the 400 that {@link ProductController} gets from binding it.
+   */
+  private static <T extends Number> T numberParam(ServerRequest request, String name, Function<String, T> parser) {
+    Optional<String> value = request.queryParam(name);
+    if (!value.isPresent() || value.get().isEmpty()) {
+      return null;
+    }
+    try {
+      return parser.apply(value.get());
+    } catch (NumberFormatException e) {
+      throw new ServerWebInputException("Query parameter '" + name + "' is not a number: " + value.get());
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package dev.iseif.reactiverestapi.controller;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import java.util.concurrent.TimeoutException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Routes the product API to {@link ProductHandler} when {@code products.api.dispatch} is
+ * {@code functional}. The routes are matched in order, so the fixed paths come before {@code /{id}}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "products.api", name = "dispatch", havingValue = "functional")
+public class ProductRouter {
+
+  private static final MediaType GZIP = MediaType.valueOf("application/gzip");
+
+  /**
+   * Matches requests that explicitly accept a stream, so that {@code Accept: *}{@code /*} keeps
+   * getting a JSON page or array as it does from {@link ProductController}.
+   */
+  private static final RequestPredicate ACCEPTS_STREAM = request -> request.headers().accept().stream()
+      .anyMatch(mediaType -> mediaType.isConcrete() && ProductHandler.isStreaming(mediaType));
+
+  @Bean
+  public RouterFunction<ServerResponse> productRoutes(ProductHandler handler) {
+    return RouterFunctions.route()
+        .path("/api/products", products -> products
+            .GET("", ACCEPTS_STREAM, handler::streamAllProducts)
+            .GET("", handler::getProductPage)
+            .POST("", handler::createProduct)
+            .POST("/_mget", handler::getProductsById)
+            .GET("/stats", handler::getStatistics)
+            .GET("/changes", handler::productChanges)
+            .GET("/export", handler::exportProducts)
+            .POST("/import", contentType(GZIP), handler::importProducts)
+            .GET("/search/{title}", ACCEPTS_STREAM, handler::streamByTitle)
+            .GET("/search/{title}", handler::searchByTitle)
+            .POST("/bulk", contentType(MediaType.APPLICATION_NDJSON), handler::bulkCreateProducts)
+            .PUT("/bulk", contentType(MediaType.APPLICATION_NDJSON), handler::bulkUpdateProducts)
+            .DELETE("/bulk", contentType(MediaType.APPLICATION_NDJSON), handler::bulkDeleteProducts)
+            .GET("/{id}", handler::getProductById)
+            .PUT("/{id}", handler::updateProduct)
+            .DELETE("/{id}", handler::deleteProduct))
+        .filter(ProductRouter::handleErrors)
+        .build();
+  }
+
+  /**
+   * Maps errors to the statuses {@link ProductController} gives them, including the ones a handler
+   * throws while reading the request rather than returns.
+   */
+  private static Mono<ServerResponse> handleErrors(ServerRequest request, HandlerFunction<ServerResponse> next) {
+    Mono<ServerResponse> response;
+    try {
+      response = next.handle(request);
+    } catch (RuntimeException e) {
+      response = Mono.error(e);
+    }
+    return response.onErrorResume(ProductRouter::errorResponse);
+  }
+
+  private static Mono<ServerResponse> errorResponse(Throwable error) {
+    if (error instanceof InvalidRequestException) {
+      return ServerResponse.badRequest().build();
+    }
+    if (error instanceof OptimisticLockingFailureException) {
+      return ServerResponse.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+    if (error instanceof CallNotPermittedException || error instanceof BulkheadFullException || error instanceof TimeoutException) {
+      return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+    return Mono.error(error);
+  }
+}
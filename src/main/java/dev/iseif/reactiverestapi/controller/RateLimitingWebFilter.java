@@ -0,0 +1,130 @@
+package dev.iseif.reactiverestapi.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sheds load on the product API instead of queueing it: a client over its token bucket gets a 429,
+ * and an endpoint at its in-flight limit answers 503. Both carry {@code Retry-After}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitingWebFilter implements WebFilter {
+
+  static final String REJECTIONS_METRIC = "products.rate-limit.rejections";
+
+  private static final String PATH_PREFIX = "/api/products";
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final ProductProperties.RateLimit properties;
+  private final MeterRegistry meterRegistry;
+  private final LongSupplier nanoTime;
+  private final Cache<String, TokenBucket> buckets;
+  private final Map<String, AtomicInteger> inFlight = new HashMap<>();
+
+  @Autowired
+  public RateLimitingWebFilter(ProductProperties productProperties, MeterRegistry meterRegistry) {
+    this(productProperties, meterRegistry, System::nanoTime);
+  }
+
+  RateLimitingWebFilter(ProductProperties productProperties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+    this.properties = productProperties.getRateLimit();
+    this.meterRegistry = meterRegistry;
+    this.nanoTime = nanoTime;
+    this.buckets = Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumClients())
+        .expireAfterAccess(properties.getIdleTimeout())
+        .build();
+    // Fixed key set, so the map itself is never written after construction
+    properties.getMaxInFlight().keySet().forEach(endpoint -> inFlight.put(endpoint, new AtomicInteger()));
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    String endpoint = endpoint(exchange.getRequest());
+    if (!properties.isEnabled() || endpoint == null) {
+      return chain.filter(exchange);
+    }
+
+    long now = nanoTime.getAsLong();
+    long wait = buckets.get(client(exchange.getRequest()), key -> newBucket(now)).tryAcquire(now);
+    if (wait > 0) {
+      return reject(exchange, HttpStatus.TOO_MANY_REQUESTS, endpoint, "rate", wait);
+    }
+
+    AtomicInteger counter = inFlight.get(endpoint);
+    if (counter == null) {
+      return chain.filter(exchange);
+    }
+    if (counter.incrementAndGet() > properties.getMaxInFlight().get(endpoint)) {
+      counter.decrementAndGet();
+      return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE, endpoint, "concurrency", NANOS_PER_SECOND);
+    }
+    return chain.filter(exchange)
+        .doFinally(signal -> counter.decrementAndGet());
+  }
+
+  /**
+   * @return the endpoint group of a product API request, or {@code null} for other paths
+   */
+  static String endpoint(ServerHttpRequest request) {
+    String path = request.getPath().pathWithinApplication().value();
+    if (!path.equals(PATH_PREFIX) && !path.startsWith(PATH_PREFIX + "/")) {
+      return null;
+    }
+    String rest = path.substring(PATH_PREFIX.length());
+    if (rest.startsWith("/search/")) {
+      return "search";
+    }
+    if (rest.equals("/bulk")) {
+      return "bulk";
+    }
+    if (rest.equals("/changes")) {
+      return "changes";
+    }
+    return "products";
+  }
+
+  private String client(ServerHttpRequest request) {
+    if (properties.getClientHeader() != null) {
+      String client = request.getHeaders().getFirst(properties.getClientHeader());
+      if (client != null && !client.isEmpty()) {
+        return client;
+      }
+    }
+    InetSocketAddress remoteAddress = request.getRemoteAddress();
+    return remoteAddress == null ? "unknown" : remoteAddress.getHostString();
+  }
+
+  private TokenBucket newBucket(long now) {
+    return new TokenBucket(properties.getRequestsPerSecond(), properties.getBurst(), now);
+  }
+
+  private Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, String endpoint, String reason, long waitNanos) {
+    meterRegistry.counter(REJECTIONS_METRIC, "endpoint", endpoint, "reason", reason).increment();
+    ServerHttpResponse response = exchange.getResponse();
+    response.setStatusCode(status);
+    response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND)));
+    return response.setComplete();
+  }
+}
@@ -0,0 +1,97 @@
+package dev.iseif.reactiverestapi.controller;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.repository.ProductReadRouting;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Lets a client read its own writes while listings and searches go to secondaries. A successful
+ * write answers with a consistency token, the time of the write; a read sending the token back
+ * within {@code products.read-routing.max-staleness} of it is pinned to the primary, since a
+ * secondary may not have the write yet.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class ReadConsistencyWebFilter implements WebFilter {
+
+  private final ProductProperties.ReadRouting properties;
+  private final LongSupplier currentTimeMillis;
+
+  @Autowired
+  public ReadConsistencyWebFilter(ProductProperties productProperties) {
+    this(productProperties, System::currentTimeMillis);
+  }
+
+  ReadConsistencyWebFilter(ProductProperties productProperties, LongSupplier currentTimeMillis) {
+    this.properties = productProperties.getReadRouting();
+    this.currentTimeMillis = currentTimeMillis;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    ServerHttpRequest request = exchange.getRequest();
+    if (!properties.isEnabled() || RateLimitingWebFilter.endpoint(request) == null) {
+      return chain.filter(exchange);
+    }
+
+    if (isWrite(request)) {
+      ServerHttpResponse response = exchange.getResponse();
+      response.beforeCommit(() -> {
+        HttpStatus status = response.getStatusCode();
+        if (status == null || status.is2xxSuccessful()) {
+          response.getHeaders().set(properties.getTokenHeader(), Long.toString(currentTimeMillis.getAsLong()));
+        }
+        return Mono.empty();
+      });
+      return chain.filter(exchange);
+    }
+
+    if (isRecent(request.getHeaders().getFirst(properties.getTokenHeader()))) {
+      return chain.filter(exchange).contextWrite(ProductReadRouting::pinToPrimary);
+    }
+    return chain.filter(exchange);
+  }
+
+  private static boolean isWrite(ServerHttpRequest request) {
+    HttpMethod method = request.getMethod();
+    if (method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS) {
+      return false;
+    }
+    // A multi-get is a POST only to carry its ids
+    return !request.getPath().pathWithinApplication().value().endsWith("/_mget");
+  }
+
+  /**
+   * Tokens that are malformed, older than the staleness bound or further in the future than the
+   * allowed clock skew are ignored rather than rejected: the read is then as consistent as any other.
+   */
+  private boolean isRecent(String token) {
+    if (token == null) {
+      return false;
+    }
+    long writtenAt;
+    try {
+      writtenAt = Long.parseLong(token.trim());
+    } catch (NumberFormatException e) {
+      return false;
+    }
+    long age = currentTimeMillis.getAsLong() - writtenAt;
+    if (age < -properties.getClockSkew().toMillis()) {
+      return false;
+    }
+    long maxStaleness = properties.getMaxStaleness().toMillis();
+    return maxStaleness == 0 || age < maxStaleness;
+  }
+}
@@ -0,0 +1,40 @@
+package dev.iseif.reactiverestapi.controller;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket kept as a single theoretical arrival time (GCRA): each request pushes it
+ * one refill interval forward, and a request is rejected while it is more than {@code burst}
+ * intervals ahead of now.
+ */
+final class TokenBucket {
+
+  private final long intervalNanos;
+  private final long capacityNanos;
+  private final AtomicLong theoreticalArrival;
+
+  TokenBucket(double tokensPerSecond, int burst, long nowNanos) {
+    this.intervalNanos = (long) (1_000_000_000L / tokensPerSecond);
+    this.capacityNanos = intervalNanos * burst;
+    this.theoreticalArrival = new AtomicLong(nowNanos);
+  }
+
+  /**
+   * Takes a token if one is available.
+   *
+   * @return {@code 0} when a token was taken, otherwise the nanoseconds until one will be
+   */
+  long tryAcquire(long nowNanos) {
+    while (true) {
+      long arrival = theoreticalArrival.get();
+      long next = Math.max(arrival, nowNanos) + intervalNanos;
+      long wait = next - nowNanos - capacityNanos;
+      if (wait > 0) {
+        return wait;
+      }
+      if (theoreticalArrival.compareAndSet(arrival, next)) {
+        return 0;
+      }
+    }
+  }
+}
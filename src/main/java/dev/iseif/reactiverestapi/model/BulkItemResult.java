@@ -0,0 +1,25 @@
+package dev.iseif.reactiverestapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+
+  private long index;
+
+  private String id;
+
+  private Status status;
+
+  private String error;
+
+  public enum Status {
+    CREATED, UPDATED, DELETED, NOT_FOUND, INVALID, FAILED
+  }
+}
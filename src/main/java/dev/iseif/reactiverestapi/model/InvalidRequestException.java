@@ -0,0 +1,16 @@
+package dev.iseif.reactiverestapi.model;
+
+/**
+ * A client asked for something malformed or unsupported, such as an unknown sort or a stale
+ * cursor. The API answers it with 400; any other {@link IllegalArgumentException} is a bug.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+  public InvalidRequestException(String message) {
+    super(message);
+  }
+
+  public InvalidRequestException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
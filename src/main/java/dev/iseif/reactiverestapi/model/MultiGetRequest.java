@@ -0,0 +1,16 @@
+package dev.iseif.reactiverestapi.model;
+
+import java.util.List;
+import javax.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiGetRequest {
+
+  @NotEmpty(message = "'ids' is required")
+  private List<String> ids;
+}
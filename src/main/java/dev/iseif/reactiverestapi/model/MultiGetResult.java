@@ -0,0 +1,22 @@
+package dev.iseif.reactiverestapi.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiGetResult {
+
+  /**
+   * The products found, in the order their ids were requested.
+   */
+  private List<Product> products;
+
+  /**
+   * The requested ids no product has, in the order they were requested.
+   */
+  private List<String> missing;
+}
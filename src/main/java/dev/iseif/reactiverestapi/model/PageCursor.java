@@ -0,0 +1,66 @@
+package dev.iseif.reactiverestapi.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.Value;
+
+/**
+ * Opaque keyset position: the sort key and id of the last product of a page.
+ */
+@Value
+public class PageCursor {
+
+  private static final String SEPARATOR = "|";
+
+  ProductOrder order;
+  String id;
+  Object value;
+
+  public static PageCursor after(ProductOrder order, Product product) {
+    return new PageCursor(order, product.getId(), order.getSort().valueOf(product));
+  }
+
+  public String encode() {
+    String raw = order + SEPARATOR + id + SEPARATOR + (order.getSort() == ProductSort.ID ? "" : value);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static PageCursor decode(String token, ProductOrder expectedOrder) {
+    String[] parts;
+    try {
+      parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 3);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidRequestException("Malformed cursor", e);
+    }
+    if (parts.length != 3 || parts[1].isEmpty()) {
+      throw new InvalidRequestException("Malformed cursor");
+    }
+
+    ProductOrder order;
+    try {
+      order = ProductOrder.parse(parts[0]);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidRequestException("Malformed cursor", e);
+    }
+    if (!order.equals(expectedOrder)) {
+      throw new InvalidRequestException("Cursor was issued for sort '" + order + "'");
+    }
+
+    return new PageCursor(order, parts[1], parseValue(order.getSort(), parts[2]));
+  }
+
+  private static Object parseValue(ProductSort sort, String value) {
+    switch (sort) {
+      case PRICE:
+        try {
+          return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+          throw new InvalidRequestException("Malformed cursor", e);
+        }
+      case TITLE:
+        return value;
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package dev.iseif.reactiverestapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceSummary {
+
+  private long count;
+
+  private double sum;
+
+  private Double min;
+
+  private Double max;
+
+  /**
+   * Products per price bucket: one per bucket bound, counting the prices below it and at or above
+   * the previous bound, then one for the prices at or above the last bound.
+   */
+  private long[] bucketCounts;
+}
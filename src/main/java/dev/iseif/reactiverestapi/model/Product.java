@@ -1,5 +1,8 @@
 package dev.iseif.reactiverestapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
@@ -9,19 +12,33 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document
+@CompoundIndexes({
+    @CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}"),
+    @CompoundIndex(name = "normalizedTitle_id", def = "{'normalizedTitle': 1, '_id': 1}")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Product {
 
   @EqualsAndHashCode.Exclude
   @Id
   private String id;
 
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  @Version
+  private Long version;
+
   @NotBlank(message = "'title' is required")
   private String title;
 
@@ -31,4 +48,13 @@ public class Product {
   @NotNull(message = "'price' is required")
   @Positive(message = "'price' must be greater than zero")
   private Double price;
+
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  private String normalizedTitle;
+
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  @Indexed
+  private List<String> searchTokens;
 }
@@ -0,0 +1,68 @@
+package dev.iseif.reactiverestapi.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Sparse fieldset requested with {@code fields=title,price}. The id is always included.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProductFields {
+
+  public static final ProductFields ALL = new ProductFields(null);
+
+  private static final String ID = "id";
+  private static final List<String> SELECTABLE = Arrays.asList(ID, "title", "description", "price");
+
+  /**
+   * Selected property names, or {@code null} when every field is selected.
+   */
+  Set<String> names;
+
+  public static ProductFields parse(String value) {
+    if (value == null || value.trim().isEmpty()) {
+      return ALL;
+    }
+    Set<String> names = new LinkedHashSet<>();
+    names.add(ID);
+    for (String name : value.split(",")) {
+      String field = name.trim();
+      if (!SELECTABLE.contains(field)) {
+        throw new InvalidRequestException("Unsupported field '" + field + "'");
+      }
+      names.add(field);
+    }
+    return new ProductFields(Collections.unmodifiableSet(names));
+  }
+
+  public boolean isAll() {
+    return names == null;
+  }
+
+  public boolean includes(String name) {
+    return names == null || names.contains(name);
+  }
+
+  /**
+   * Copies the selected fields of {@code product}; the version is kept for ETags.
+   */
+  public Product project(Product product) {
+    if (isAll()) {
+      return product;
+    }
+    return Product.builder()
+        .id(product.getId())
+        .version(product.getVersion())
+        .title(includes("title") ? product.getTitle() : null)
+        .description(includes("description") ? product.getDescription() : null)
+        .price(includes("price") ? product.getPrice() : null)
+        .build();
+  }
+}
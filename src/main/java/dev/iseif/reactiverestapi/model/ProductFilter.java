@@ -0,0 +1,31 @@
+package dev.iseif.reactiverestapi.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Server-side filters of the product listing. Price bounds are inclusive and the title prefix is
+ * matched case and accent insensitively.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProductFilter {
+
+  public static final ProductFilter NONE = new ProductFilter(null, null, null);
+
+  Double minPrice;
+  Double maxPrice;
+  String titlePrefix;
+
+  public static ProductFilter of(Double minPrice, Double maxPrice, String titlePrefix) {
+    if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+      throw new InvalidRequestException("'minPrice' must not be greater than 'maxPrice'");
+    }
+    String prefix = titlePrefix == null || titlePrefix.trim().isEmpty() ? null : titlePrefix;
+    if (minPrice == null && maxPrice == null && prefix == null) {
+      return NONE;
+    }
+    return new ProductFilter(minPrice, maxPrice, prefix);
+  }
+}
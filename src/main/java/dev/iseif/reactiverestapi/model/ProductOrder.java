@@ -0,0 +1,32 @@
+package dev.iseif.reactiverestapi.model;
+
+import lombok.Value;
+import org.springframework.data.domain.Sort.Direction;
+
+/**
+ * A {@link ProductSort} and its direction, written {@code price} or {@code -price} for descending.
+ */
+@Value
+public class ProductOrder {
+
+  private static final String DESCENDING_PREFIX = "-";
+
+  ProductSort sort;
+  Direction direction;
+
+  public static ProductOrder ascending(ProductSort sort) {
+    return new ProductOrder(sort, Direction.ASC);
+  }
+
+  public static ProductOrder parse(String value) {
+    if (value != null && value.startsWith(DESCENDING_PREFIX)) {
+      return new ProductOrder(ProductSort.parse(value.substring(DESCENDING_PREFIX.length())), Direction.DESC);
+    }
+    return ascending(ProductSort.parse(value));
+  }
+
+  @Override
+  public String toString() {
+    return (direction.isDescending() ? DESCENDING_PREFIX : "") + sort.getProperty();
+  }
+}
@@ -0,0 +1,16 @@
+package dev.iseif.reactiverestapi.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPage {
+
+  private List<Product> content;
+
+  private String nextCursor;
+}
@@ -0,0 +1,18 @@
+package dev.iseif.reactiverestapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A product as it was before an update, and as the update left it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRevision {
+
+  private Product previous;
+
+  private Product current;
+}
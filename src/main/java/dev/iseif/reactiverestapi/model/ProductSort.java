@@ -0,0 +1,45 @@
+package dev.iseif.reactiverestapi.model;
+
+import java.util.function.Function;
+
+public enum ProductSort {
+
+  ID("id", "id", Product::getId),
+  PRICE("price", "price", Product::getPrice),
+  // Sorted on the normalized title so that ordering ignores case and accents
+  TITLE("title", "normalizedTitle", Product::getNormalizedTitle);
+
+  private final String property;
+  private final String field;
+  private final Function<Product, Object> extractor;
+
+  ProductSort(String property, String field, Function<Product, Object> extractor) {
+    this.property = property;
+    this.field = field;
+    this.extractor = extractor;
+  }
+
+  public String getProperty() {
+    return property;
+  }
+
+  /**
+   * The stored property that is sorted on.
+   */
+  public String getField() {
+    return field;
+  }
+
+  public Object valueOf(Product product) {
+    return extractor.apply(product);
+  }
+
+  public static ProductSort parse(String value) {
+    for (ProductSort sort : values()) {
+      if (sort.property.equalsIgnoreCase(value)) {
+        return sort;
+      }
+    }
+    throw new InvalidRequestException("Unsupported sort '" + value + "'");
+  }
+}
@@ -0,0 +1,47 @@
+package dev.iseif.reactiverestapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductStatistics {
+
+  private long count;
+
+  private Double minPrice;
+
+  private Double maxPrice;
+
+  private Double averagePrice;
+
+  private List<PriceBucket> priceHistogram;
+
+  /**
+   * When the statistics were last recomputed from the database. Writes made through this instance
+   * are applied to them incrementally in between.
+   */
+  private Instant reconciledAt;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public static class PriceBucket {
+
+    private double from;
+
+    /**
+     * Exclusive, absent for the last bucket.
+     */
+    private Double to;
+
+    private long count;
+  }
+}
@@ -0,0 +1,18 @@
+package dev.iseif.reactiverestapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotImportResult {
+
+  private long imported;
+
+  /**
+   * Products that are invalid or could not be inserted, typically because their id already exists.
+   */
+  private long failed;
+}
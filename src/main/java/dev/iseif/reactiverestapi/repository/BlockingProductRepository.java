@@ -0,0 +1,11 @@
+package dev.iseif.reactiverestapi.repository;
+
+import dev.iseif.reactiverestapi.model.Product;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+/**
+ * The blocking counterpart of {@link ProductRepository}, on the synchronous driver. Only used when
+ * {@code products.api.dispatch} is {@code blocking}.
+ */
+public interface BlockingProductRepository extends MongoRepository<Product, String>, BlockingProductRepositoryCustom {
+}
@@ -0,0 +1,40 @@
+package dev.iseif.reactiverestapi.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import dev.iseif.reactiverestapi.model.PageCursor;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The queries of {@link ProductRepositoryCustom} that the blocking API serves, built by the same
+ * {@link ProductQueries}.
+ */
+public interface BlockingProductRepositoryCustom {
+
+  List<Product> searchByTitle(String query, int limit, ProductFields fields);
+
+  /**
+   * @param after may be {@code null} for the first page
+   */
+  List<Product> findPage(ProductOrder order, ProductFilter filter, PageCursor after, int limit, ProductFields fields);
+
+  Optional<Long> findVersionById(String id);
+
+  /**
+   * Atomically replaces the editable fields of a product and returns it as stored. When
+   * {@code expectedVersions} is not null, the product is only updated if its version is one of them.
+   */
+  Optional<Product> findAndModifyById(String id, Product product, Collection<Long> expectedVersions);
+
+  Optional<Product> findAndRemoveById(String id, Collection<Long> expectedVersions);
+
+  /**
+   * Inserts all products with one unordered bulk write, assigning their ids first.
+   */
+  List<BulkWriteError> bulkInsert(List<Product> products);
+}
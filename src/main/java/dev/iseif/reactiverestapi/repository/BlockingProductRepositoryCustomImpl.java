@@ -0,0 +1,85 @@
+package dev.iseif.reactiverestapi.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+import dev.iseif.reactiverestapi.model.PageCursor;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+
+public class BlockingProductRepositoryCustomImpl implements BlockingProductRepositoryCustom {
+
+  private final MongoTemplate mongoTemplate;
+
+  public BlockingProductRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public List<Product> searchByTitle(String query, int limit, ProductFields fields) {
+    TypedAggregation<Product> aggregation = ProductQueries.search(query, limit, fields);
+    if (aggregation == null) {
+      return Collections.emptyList();
+    }
+    return mongoTemplate.aggregate(aggregation, Product.class).getMappedResults();
+  }
+
+  @Override
+  public List<Product> findPage(ProductOrder order, ProductFilter filter, PageCursor after, int limit, ProductFields fields) {
+    return mongoTemplate.find(ProductQueries.page(order, filter, after, limit, fields), Product.class);
+  }
+
+  @Override
+  public Optional<Long> findVersionById(String id) {
+    Query query = new Query(where("id").is(id));
+    query.fields().include("version");
+    return Optional.ofNullable(mongoTemplate.findOne(query, Product.class)).map(Product::getVersion);
+  }
+
+  @Override
+  public Optional<Product> findAndModifyById(String id, Product product, Collection<Long> expectedVersions) {
+    return Optional.ofNullable(mongoTemplate.findAndModify(ProductQueries.byIdAndVersion(id, expectedVersions),
+        ProductQueries.fieldsUpdate(product), FindAndModifyOptions.options().returnNew(true), Product.class));
+  }
+
+  @Override
+  public Optional<Product> findAndRemoveById(String id, Collection<Long> expectedVersions) {
+    return Optional.ofNullable(mongoTemplate.findAndRemove(ProductQueries.byIdAndVersion(id, expectedVersions), Product.class));
+  }
+
+  @Override
+  public List<BulkWriteError> bulkInsert(List<Product> products) {
+    if (products.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<WriteModel<Document>> writes = new ArrayList<>(products.size());
+    for (Product product : products) {
+      writes.add(ProductQueries.insert(mongoTemplate.getConverter(), product, ObjectId.get()));
+    }
+    try {
+      mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class)).bulkWrite(writes, new BulkWriteOptions().ordered(false));
+      return Collections.emptyList();
+    } catch (MongoBulkWriteException e) {
+      if (e.getWriteErrors().isEmpty()) {
+        throw e;
+      }
+      return e.getWriteErrors();
+    }
+  }
+}
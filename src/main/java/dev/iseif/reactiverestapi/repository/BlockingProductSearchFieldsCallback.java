@@ -0,0 +1,17 @@
+package dev.iseif.reactiverestapi.repository;
+
+import dev.iseif.reactiverestapi.model.Product;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link ProductSearchFieldsCallback} for products saved through {@link BlockingProductRepository}.
+ */
+@Component
+public class BlockingProductSearchFieldsCallback implements BeforeConvertCallback<Product> {
+
+  @Override
+  public Product onBeforeConvert(Product product, String collection) {
+    return ProductSearchFields.apply(product);
+  }
+}
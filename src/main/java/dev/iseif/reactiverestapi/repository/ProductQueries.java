@@ -0,0 +1,228 @@
+package dev.iseif.reactiverestapi.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.mongodb.client.model.InsertOneModel;
+import dev.iseif.reactiverestapi.model.PageCursor;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductSort;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Builds the queries, aggregations and writes shared by the reactive and the blocking repository.
+ * Every supported listing is served by the {@code _id}, {@code price_id} or
+ * {@code normalizedTitle_id} index.
+ */
+public final class ProductQueries {
+
+  private static final String SCORE = "score";
+
+  private ProductQueries() {
+  }
+
+  /**
+   * @param order may be {@code null} for natural order
+   */
+  public static Query list(ProductFilter filter, ProductOrder order) {
+    Query query = query(filter, null);
+    if (order != null) {
+      query.with(sort(order));
+    }
+    return query;
+  }
+
+  public static Query page(ProductOrder order, ProductFilter filter, PageCursor after, int limit) {
+    return query(filter, after == null ? null : keysetAfter(order, after))
+        .with(sort(order))
+        .limit(limit);
+  }
+
+  /**
+   * Like {@link #page(ProductOrder, ProductFilter, PageCursor, int)}, keeping the sort property for
+   * the next cursor when {@code fields} leave it out.
+   */
+  public static Query page(ProductOrder order, ProductFilter filter, PageCursor after, int limit, ProductFields fields) {
+    Query query = page(order, filter, after, limit);
+    if (!fields.isAll()) {
+      withFields(query, fields).fields().include(order.getSort().getField());
+    }
+    return query;
+  }
+
+  public static Query withFields(Query query, ProductFields fields) {
+    if (!fields.isAll()) {
+      fields.getNames().forEach(query.fields()::include);
+    }
+    return query;
+  }
+
+  /**
+   * @return the title search for {@code query}, or {@code null} when it has no terms to match
+   */
+  public static TypedAggregation<Product> search(String query, int limit, ProductFields fields) {
+    List<String> terms = ProductSearchFields.queryTerms(query);
+    if (terms.isEmpty()) {
+      return null;
+    }
+
+    List<AggregationOperation> stages = new ArrayList<>(Arrays.asList(
+        Aggregation.match(where("searchTokens").all(terms)),
+        Aggregation.addFields().addFieldWithValue(SCORE, relevance(String.join(" ", terms))).build(),
+        Aggregation.sort(Sort.by(Direction.DESC, SCORE).and(Sort.by(Direction.ASC, "normalizedTitle", "id"))),
+        Aggregation.limit(limit)));
+    if (!fields.isAll()) {
+      stages.add(projection(fields));
+    }
+    return Aggregation.newAggregation(Product.class, stages);
+  }
+
+  public static Query byIdAndVersion(String id, Collection<Long> expectedVersions) {
+    Criteria criteria = where("id").is(id);
+    if (expectedVersions != null) {
+      criteria.and("version").in(expectedVersions);
+    }
+    return new Query(criteria);
+  }
+
+  public static Update fieldsUpdate(Product product) {
+    return new Update()
+        .set("title", product.getTitle())
+        .set("description", product.getDescription())
+        .set("price", product.getPrice())
+        .set("normalizedTitle", ProductSearchFields.normalize(product.getTitle()))
+        .set("searchTokens", ProductSearchFields.tokens(product.getTitle()))
+        .inc("version", 1);
+  }
+
+  /**
+   * The product as {@link #fieldsUpdate(Product)} leaves {@code previous}.
+   */
+  public static Product updated(Product previous, Product product) {
+    return previous.toBuilder()
+        .title(product.getTitle())
+        .description(product.getDescription())
+        .price(product.getPrice())
+        .normalizedTitle(ProductSearchFields.normalize(product.getTitle()))
+        .searchTokens(ProductSearchFields.tokens(product.getTitle()))
+        .version(previous.getVersion() == null ? 1L : previous.getVersion() + 1)
+        .build();
+  }
+
+  /**
+   * Assigns {@code id} and the first version to {@code product} and converts it for a bulk write.
+   */
+  public static InsertOneModel<Document> insert(MongoConverter converter, Product product, ObjectId id) {
+    product.setVersion(0L);
+    return restore(converter, product, id);
+  }
+
+  /**
+   * Like {@link #insert}, but keeps the version of a restored product, if it has one.
+   */
+  public static InsertOneModel<Document> restore(MongoConverter converter, Product product, ObjectId id) {
+    product.setId(id.toHexString());
+    if (product.getVersion() == null) {
+      product.setVersion(0L);
+    }
+    ProductSearchFields.apply(product);
+
+    Document document = new Document();
+    converter.write(product, document);
+    document.put("_id", id);
+    return new InsertOneModel<>(document);
+  }
+
+  private static Query query(ProductFilter filter, Criteria keyset) {
+    List<Criteria> criteria = new ArrayList<>();
+    if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+      Criteria price = where("price");
+      if (filter.getMinPrice() != null) {
+        price.gte(filter.getMinPrice());
+      }
+      if (filter.getMaxPrice() != null) {
+        price.lte(filter.getMaxPrice());
+      }
+      criteria.add(price);
+    }
+    String titlePrefix = ProductSearchFields.normalize(filter.getTitlePrefix());
+    if (!titlePrefix.isEmpty()) {
+      // Normalized text is only letters, digits and spaces, so it needs no escaping and the
+      // anchored regex stays an index range scan
+      criteria.add(where("normalizedTitle").regex("^" + titlePrefix));
+    }
+    if (keyset != null) {
+      criteria.add(keyset);
+    }
+
+    if (criteria.isEmpty()) {
+      return new Query();
+    }
+    return new Query(criteria.size() == 1 ? criteria.get(0) : new Criteria().andOperator(criteria.toArray(new Criteria[0])));
+  }
+
+  private static Sort sort(ProductOrder order) {
+    if (order.getSort() == ProductSort.ID) {
+      return Sort.by(order.getDirection(), "id");
+    }
+    return Sort.by(order.getDirection(), order.getSort().getField(), "id");
+  }
+
+  private static Criteria keysetAfter(ProductOrder order, PageCursor after) {
+    boolean descending = order.getDirection().isDescending();
+    if (order.getSort() == ProductSort.ID) {
+      return beyond(where("id"), after.getId(), descending);
+    }
+    String field = order.getSort().getField();
+    return new Criteria().orOperator(
+        beyond(where(field), after.getValue(), descending),
+        beyond(where(field).is(after.getValue()).and("id"), after.getId(), descending));
+  }
+
+  private static Criteria beyond(Criteria criteria, Object value, boolean descending) {
+    return descending ? criteria.lt(value) : criteria.gt(value);
+  }
+
+  private static AggregationOperation projection(ProductFields fields) {
+    // Built by hand: the typed aggregation context would project "id" as a new field instead of _id
+    Document projection = new Document();
+    for (String name : fields.getNames()) {
+      projection.append("id".equals(name) ? "_id" : name, 1);
+    }
+    return context -> new Document("$project", projection);
+  }
+
+  /**
+   * Ranks titles starting with the query first, then titles containing it as a word sequence,
+   * then titles that merely contain every query term.
+   */
+  private static AggregationExpression relevance(String phrase) {
+    AggregationExpression startsWithPhrase = ComparisonOperators.valueOf(
+        StringOperators.valueOf("normalizedTitle").indexOf(phrase)).equalToValue(0);
+    AggregationExpression containsPhrase = ComparisonOperators.valueOf(
+        StringOperators.valueOf("normalizedTitle").indexOf(" " + phrase)).greaterThanEqualToValue(0);
+
+    return ConditionalOperators.when(startsWithPhrase).then(2)
+        .otherwiseValueOf(ConditionalOperators.when(containsPhrase).then(1).otherwise(0));
+  }
+}
@@ -0,0 +1,66 @@
+package dev.iseif.reactiverestapi.repository;
+
+import com.mongodb.ReadPreference;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Chooses where {@link ProductRepositoryCustom} listings and searches read from. They use
+ * {@code products.read-routing.read-preference}, unless the subscriber context is
+ * {@linkplain #pinToPrimary(Context) pinned to the primary} because the client has just written.
+ */
+@Component
+public class ProductReadRouting {
+
+  private static final String PINNED_TO_PRIMARY = ProductReadRouting.class.getName() + ".pinnedToPrimary";
+
+  private final ReactiveMongoTemplate primary;
+  private final ReactiveMongoTemplate queries;
+  private final ReadPreference queryReadPreference;
+
+  public ProductReadRouting(ReactiveMongoTemplate mongoTemplate, ProductProperties productProperties) {
+    ProductProperties.ReadRouting properties = productProperties.getReadRouting();
+    this.primary = mongoTemplate;
+    if (properties.isEnabled()) {
+      this.queryReadPreference = readPreference(properties.getReadPreference(), properties.getMaxStaleness());
+      // Reads only, so it needs neither the entity callbacks nor the write concern of the primary template
+      this.queries = new ReactiveMongoTemplate(mongoTemplate.getMongoDatabaseFactory(), mongoTemplate.getConverter());
+      this.queries.setReadPreference(queryReadPreference);
+    } else {
+      this.queryReadPreference = ReadPreference.primary();
+      this.queries = mongoTemplate;
+    }
+  }
+
+  public static Context pinToPrimary(Context context) {
+    return context.put(PINNED_TO_PRIMARY, true);
+  }
+
+  public static boolean isPinnedToPrimary(ContextView context) {
+    return context.getOrDefault(PINNED_TO_PRIMARY, false);
+  }
+
+  /**
+   * @return the template to run a listing or search with for a subscriber with {@code context}
+   */
+  public ReactiveMongoTemplate queries(ContextView context) {
+    return isPinnedToPrimary(context) ? primary : queries;
+  }
+
+  ReadPreference getQueryReadPreference() {
+    return queryReadPreference;
+  }
+
+  private static ReadPreference readPreference(String name, Duration maxStaleness) {
+    if (maxStaleness == null || maxStaleness.isZero()) {
+      return ReadPreference.valueOf(name);
+    }
+    return ReadPreference.valueOf(name, Collections.emptyList(), maxStaleness.getSeconds(), TimeUnit.SECONDS);
+  }
+}
@@ -4,7 +4,7 @@ import dev.iseif.reactiverestapi.model.Product;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 
-public interface ProductRepository extends ReactiveMongoRepository<Product, String> {
+public interface ProductRepository extends ReactiveMongoRepository<Product, String>, ProductRepositoryCustom {
 
-  Flux<Product> findByTitleContainingIgnoreCase(String title);
+  Flux<Product> findBySearchTokensIsNull();
 }
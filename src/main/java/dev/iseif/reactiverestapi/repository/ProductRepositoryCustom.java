@@ -0,0 +1,67 @@
+package dev.iseif.reactiverestapi.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import dev.iseif.reactiverestapi.model.PageCursor;
+import dev.iseif.reactiverestapi.model.PriceSummary;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductRevision;
+import java.util.Collection;
+import java.util.List;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ProductRepositoryCustom {
+
+  Flux<Product> streamAll(int batchSize, ProductFilter filter, ProductOrder order, ProductFields fields);
+
+  Flux<Product> searchByTitle(String query, int limit, ProductFields fields);
+
+  /**
+   * The sort property is loaded even when {@code fields} does not select it, so that the next
+   * cursor can be built from the last product.
+   */
+  Flux<Product> findPage(ProductOrder order, ProductFilter filter, PageCursor after, int limit, ProductFields fields);
+
+  Mono<Long> findVersionById(String id);
+
+  /**
+   * Atomically replaces the editable fields of a product and returns the updated product. When
+   * {@code expectedVersions} is not null, the product is only updated if its version is one of them.
+   */
+  Mono<Product> findAndModifyById(String id, Product product, Collection<Long> expectedVersions);
+
+  /**
+   * Like {@link #findAndModifyById(String, Product, Collection)}, also returning the product as it
+   * was before the update, with one round trip.
+   */
+  Mono<ProductRevision> updateById(String id, Product product, Collection<Long> expectedVersions);
+
+  Mono<Product> findAndRemoveById(String id, Collection<Long> expectedVersions);
+
+  /**
+   * Sets the search fields derived from {@code title} on a product that has none yet, leaving its
+   * other fields and version alone.
+   *
+   * @return whether the product still lacked them
+   */
+  Mono<Boolean> backfillSearchFields(String id, String title);
+
+  /**
+   * Inserts all products with one unordered bulk write, assigning their ids first.
+   */
+  Mono<List<BulkWriteError>> bulkInsert(List<Product> products);
+
+  /**
+   * Like {@link #bulkInsert(List)}, keeping the ids of products that have a valid one and their versions.
+   */
+  Mono<List<BulkWriteError>> bulkRestore(List<Product> products);
+
+  /**
+   * Aggregates the count and price range of all products, along with a price histogram whose
+   * buckets end at the ascending {@code bucketBounds} and then at infinity.
+   */
+  Mono<PriceSummary> summarizePrices(List<Double> bucketBounds);
+}
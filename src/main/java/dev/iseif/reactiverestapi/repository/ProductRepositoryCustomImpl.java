@@ -0,0 +1,180 @@
+package dev.iseif.reactiverestapi.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+import dev.iseif.reactiverestapi.model.PageCursor;
+import dev.iseif.reactiverestapi.model.PriceSummary;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductRevision;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+  private static final String OVERFLOW_BUCKET = "overflow";
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final ProductReadRouting readRouting;
+
+  public ProductRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate, ProductReadRouting readRouting) {
+    this.mongoTemplate = mongoTemplate;
+    this.readRouting = readRouting;
+  }
+
+  @Override
+  public Flux<Product> streamAll(int batchSize, ProductFilter filter, ProductOrder order, ProductFields fields) {
+    Query query = ProductQueries.withFields(ProductQueries.list(filter, order).cursorBatchSize(batchSize), fields);
+    return Flux.deferContextual(context -> readRouting.queries(context).find(query, Product.class));
+  }
+
+  @Override
+  public Flux<Product> searchByTitle(String query, int limit, ProductFields fields) {
+    TypedAggregation<Product> aggregation = ProductQueries.search(query, limit, fields);
+    if (aggregation == null) {
+      return Flux.empty();
+    }
+    return Flux.deferContextual(context -> readRouting.queries(context).aggregate(aggregation, Product.class));
+  }
+
+  @Override
+  public Flux<Product> findPage(ProductOrder order, ProductFilter filter, PageCursor after, int limit, ProductFields fields) {
+    Query query = ProductQueries.page(order, filter, after, limit, fields);
+    return Flux.deferContextual(context -> readRouting.queries(context).find(query, Product.class));
+  }
+
+  @Override
+  public Mono<Long> findVersionById(String id) {
+    Query query = new Query(where("id").is(id));
+    query.fields().include("version");
+    return mongoTemplate.findOne(query, Product.class)
+        .flatMap(product -> Mono.justOrEmpty(product.getVersion()));
+  }
+
+  @Override
+  public Mono<Product> findAndModifyById(String id, Product product, Collection<Long> expectedVersions) {
+    return mongoTemplate.findAndModify(ProductQueries.byIdAndVersion(id, expectedVersions), ProductQueries.fieldsUpdate(product),
+        FindAndModifyOptions.options().returnNew(true), Product.class);
+  }
+
+  @Override
+  public Mono<ProductRevision> updateById(String id, Product product, Collection<Long> expectedVersions) {
+    // Returns the old document and applies the update to it in memory, saving a second read
+    return mongoTemplate.findAndModify(ProductQueries.byIdAndVersion(id, expectedVersions), ProductQueries.fieldsUpdate(product),
+        FindAndModifyOptions.options().returnNew(false), Product.class)
+        .map(previous -> new ProductRevision(previous, ProductQueries.updated(previous, product)));
+  }
+
+  @Override
+  public Mono<Product> findAndRemoveById(String id, Collection<Long> expectedVersions) {
+    return mongoTemplate.findAndRemove(ProductQueries.byIdAndVersion(id, expectedVersions), Product.class);
+  }
+
+  @Override
+  public Mono<Boolean> backfillSearchFields(String id, String title) {
+    Query query = new Query(where("id").is(id).and("searchTokens").is(null));
+    Update update = new Update()
+        .set("normalizedTitle", ProductSearchFields.normalize(title))
+        .set("searchTokens", ProductSearchFields.tokens(title));
+    return mongoTemplate.updateFirst(query, update, Product.class).map(result -> result.getModifiedCount() > 0);
+  }
+
+  @Override
+  public Mono<List<BulkWriteError>> bulkInsert(List<Product> products) {
+    List<WriteModel<Document>> writes = new ArrayList<>(products.size());
+    for (Product product : products) {
+      writes.add(ProductQueries.insert(mongoTemplate.getConverter(), product, ObjectId.get()));
+    }
+    return bulkWrite(writes);
+  }
+
+  @Override
+  public Mono<List<BulkWriteError>> bulkRestore(List<Product> products) {
+    List<WriteModel<Document>> writes = new ArrayList<>(products.size());
+    for (Product product : products) {
+      String id = product.getId();
+      ObjectId objectId = id != null && ObjectId.isValid(id) ? new ObjectId(id) : ObjectId.get();
+      writes.add(ProductQueries.restore(mongoTemplate.getConverter(), product, objectId));
+    }
+    return bulkWrite(writes);
+  }
+
+  @Override
+  public Mono<PriceSummary> summarizePrices(List<Double> bucketBounds) {
+    List<Double> boundaries = new ArrayList<>(bucketBounds.size() + 1);
+    boundaries.add(0.0);
+    boundaries.addAll(bucketBounds);
+
+    FacetOperation facets = Aggregation
+        .facet(Aggregation.group().count().as("count").sum("price").as("sum").min("price").as("min").max("price").as("max"))
+        .as("totals");
+    if (!bucketBounds.isEmpty()) {
+      // $bucket needs at least two boundaries; without bounds every price is in the single last bucket
+      facets = facets
+          .and(Aggregation.bucket("price").withBoundaries(boundaries.toArray()).withDefaultBucket(OVERFLOW_BUCKET)
+              .andOutputCount().as("count"))
+          .as("histogram");
+    }
+    Aggregation aggregation = Aggregation.newAggregation(facets);
+    return mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(Product.class), Document.class)
+        .next()
+        .map(result -> toPriceSummary(result, boundaries));
+  }
+
+  private static PriceSummary toPriceSummary(Document result, List<Double> boundaries) {
+    long[] bucketCounts = new long[boundaries.size()];
+    for (Document bucket : result.getList("histogram", Document.class, Collections.emptyList())) {
+      Object lowerBound = bucket.get("_id");
+      int index = OVERFLOW_BUCKET.equals(lowerBound)
+          ? boundaries.size() - 1
+          : boundaries.indexOf(((Number) lowerBound).doubleValue());
+      bucketCounts[index] = ((Number) bucket.get("count")).longValue();
+    }
+
+    List<Document> totals = result.getList("totals", Document.class);
+    if (totals.isEmpty()) {
+      return new PriceSummary(0, 0, null, null, bucketCounts);
+    }
+    Document total = totals.get(0);
+    long count = ((Number) total.get("count")).longValue();
+    if (boundaries.size() == 1) {
+      bucketCounts[0] = count;
+    }
+    return new PriceSummary(count, ((Number) total.get("sum")).doubleValue(),
+        doubleValue(total.get("min")), doubleValue(total.get("max")), bucketCounts);
+  }
+
+  private static Double doubleValue(Object value) {
+    return value == null ? null : ((Number) value).doubleValue();
+  }
+
+  private Mono<List<BulkWriteError>> bulkWrite(List<WriteModel<Document>> writes) {
+    if (writes.isEmpty()) {
+      return Mono.just(Collections.emptyList());
+    }
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class))
+        .flatMap(collection -> Mono.from(collection.bulkWrite(writes, new BulkWriteOptions().ordered(false))))
+        .map(result -> Collections.<BulkWriteError>emptyList())
+        .onErrorResume(e -> e instanceof MongoBulkWriteException && !((MongoBulkWriteException) e).getWriteErrors().isEmpty(),
+            e -> Mono.just(((MongoBulkWriteException) e).getWriteErrors()));
+  }
+}
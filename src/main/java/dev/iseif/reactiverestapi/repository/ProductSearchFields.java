@@ -0,0 +1,65 @@
+package dev.iseif.reactiverestapi.repository;
+
+import dev.iseif.reactiverestapi.model.Product;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Derives the indexed search fields of a {@link Product} from its title: a lowercase, accent-free
+ * {@code normalizedTitle} and the edge n-grams of every title word as {@code searchTokens}.
+ */
+public final class ProductSearchFields {
+
+  static final int MAX_TOKEN_LENGTH = 20;
+
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+  private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private ProductSearchFields() {
+  }
+
+  public static Product apply(Product product) {
+    product.setNormalizedTitle(normalize(product.getTitle()));
+    product.setSearchTokens(tokens(product.getTitle()));
+    return product;
+  }
+
+  public static String normalize(String text) {
+    return String.join(" ", words(text));
+  }
+
+  public static List<String> tokens(String title) {
+    Set<String> tokens = new LinkedHashSet<>();
+    for (String word : words(title)) {
+      for (int length = 1; length <= Math.min(word.length(), MAX_TOKEN_LENGTH); length++) {
+        tokens.add(word.substring(0, length));
+      }
+    }
+    return new ArrayList<>(tokens);
+  }
+
+  public static List<String> queryTerms(String query) {
+    return words(query).stream()
+        .map(word -> word.length() > MAX_TOKEN_LENGTH ? word.substring(0, MAX_TOKEN_LENGTH) : word)
+        .distinct()
+        .collect(Collectors.toList());
+  }
+
+  private static List<String> words(String text) {
+    if (text == null) {
+      return Collections.emptyList();
+    }
+    String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+    return Arrays.stream(WORD_SEPARATORS.split(folded.toLowerCase(Locale.ROOT)))
+        .filter(word -> !word.isEmpty())
+        .collect(Collectors.toList());
+  }
+}
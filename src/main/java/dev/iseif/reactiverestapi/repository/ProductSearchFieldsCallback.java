@@ -0,0 +1,16 @@
+package dev.iseif.reactiverestapi.repository;
+
+import dev.iseif.reactiverestapi.model.Product;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+public class ProductSearchFieldsCallback implements ReactiveBeforeConvertCallback<Product> {
+
+  @Override
+  public Publisher<Product> onBeforeConvert(Product product, String collection) {
+    return Mono.just(ProductSearchFields.apply(product));
+  }
+}
@@ -0,0 +1,161 @@
+package dev.iseif.reactiverestapi.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.BulkChunkResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult.Status;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.MultiGetResult;
+import dev.iseif.reactiverestapi.model.PageCursor;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductPage;
+import dev.iseif.reactiverestapi.repository.BlockingProductRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link ProductService} on {@link BlockingProductRepository}, one blocking call per request. It
+ * leaves out the product cache, search coalescing, resilience guard and statistics, so each request
+ * costs what the thread-per-request model costs. Callers run it off the event loop.
+ */
+@Service
+@ConditionalOnProperty(prefix = "products.api", name = "dispatch", havingValue = "blocking")
+public class BlockingProductService {
+
+  private final BlockingProductRepository productRepository;
+  private final ProductProperties productProperties;
+  private final Validator validator;
+
+  public BlockingProductService(BlockingProductRepository productRepository, ProductProperties productProperties, Validator validator) {
+    this.productRepository = productRepository;
+    this.productProperties = productProperties;
+    this.validator = validator;
+  }
+
+  public ProductPage getPage(ProductOrder order, ProductFilter filter, String cursor, Integer size, ProductFields fields) {
+    int pageSize = ProductService.pageSize(productProperties.getPage(), size);
+    PageCursor after = cursor == null ? null : PageCursor.decode(cursor, order);
+    List<Product> products = productRepository.findPage(order, filter, after, pageSize + 1, fields);
+    return ProductService.toPage(order, products, pageSize, fields);
+  }
+
+  public Optional<Product> getById(String id) {
+    return productRepository.findById(id);
+  }
+
+  public Optional<Long> getVersion(String id) {
+    return productRepository.findVersionById(id);
+  }
+
+  public MultiGetResult getAllById(List<String> ids, ProductFields fields) {
+    int maxIds = productProperties.getMultiGet().getMaxIds();
+    if (ids.size() > maxIds) {
+      throw new InvalidRequestException("At most " + maxIds + " ids can be requested at once");
+    }
+    if (ids.contains(null)) {
+      throw new InvalidRequestException("Ids must not be null");
+    }
+    Map<String, Product> products = new HashMap<>();
+    productRepository.findAllById(ids).forEach(product -> products.put(product.getId(), product));
+    return ProductService.multiGetResult(ids, products, fields);
+  }
+
+  public List<Product> searchByTitle(String title, ProductFields fields) {
+    return productRepository.searchByTitle(title, productProperties.getSearch().getLimit(), fields);
+  }
+
+  public Product create(Product product) {
+    return productRepository.save(product);
+  }
+
+  /**
+   * @return empty when the product does not exist
+   * @throws OptimisticLockingFailureException when its version is not one of {@code expectedVersions}
+   */
+  public Optional<Product> update(String id, Product updatedProduct, Collection<Long> expectedVersions) {
+    Optional<Product> updated = productRepository.findAndModifyById(id, updatedProduct, expectedVersions);
+    if (!updated.isPresent()) {
+      checkVersionConflict(id, expectedVersions);
+    }
+    return updated;
+  }
+
+  /**
+   * @return the deleted product, or empty when it does not exist
+   * @throws OptimisticLockingFailureException when its version is not one of {@code expectedVersions}
+   */
+  public Optional<Product> deleteById(String id, Collection<Long> expectedVersions) {
+    Optional<Product> deleted = productRepository.findAndRemoveById(id, expectedVersions);
+    if (!deleted.isPresent()) {
+      checkVersionConflict(id, expectedVersions);
+    }
+    return deleted;
+  }
+
+  /**
+   * Inserts the valid products of a chunk of a bulk create with one write, reporting every item
+   * like {@link ProductBulkService#create}.
+   *
+   * @param firstIndex the position of the chunk's first product in the whole request
+   */
+  public BulkChunkResult createChunk(long firstIndex, List<Product> chunk) {
+    BulkItemResult[] results = new BulkItemResult[chunk.size()];
+    List<Integer> positions = new ArrayList<>();
+    List<Product> products = new ArrayList<>();
+    for (int i = 0; i < chunk.size(); i++) {
+      String violations = validate(chunk.get(i));
+      if (violations != null) {
+        results[i] = new BulkItemResult(firstIndex + i, null, Status.INVALID, violations);
+      } else {
+        positions.add(i);
+        products.add(chunk.get(i).toBuilder().id(null).build());
+      }
+    }
+
+    String[] failures = new String[products.size()];
+    for (BulkWriteError error : productRepository.bulkInsert(products)) {
+      failures[error.getIndex()] = error.getMessage();
+    }
+    for (int i = 0; i < positions.size(); i++) {
+      int position = positions.get(i);
+      String id = products.get(i).getId();
+      results[position] = failures[i] == null
+          ? new BulkItemResult(firstIndex + position, id, Status.CREATED, null)
+          : new BulkItemResult(firstIndex + position, id, Status.FAILED, failures[i]);
+    }
+    return new BulkChunkResult(firstIndex / productProperties.getBulk().getChunkSize(), Arrays.asList(results));
+  }
+
+  private void checkVersionConflict(String id, Collection<Long> expectedVersions) {
+    if (expectedVersions != null && productRepository.existsById(id)) {
+      throw new OptimisticLockingFailureException("Product " + id + " has been modified");
+    }
+  }
+
+  private String validate(Product product) {
+    Set<ConstraintViolation<Product>> violations = validator.validate(product);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    return violations.stream()
+        .map(ConstraintViolation::getMessage)
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+}
@@ -0,0 +1,85 @@
+package dev.iseif.reactiverestapi.service;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs blocking calls off the event loop, on the executor chosen by
+ * {@code products.blocking.executor}. Virtual threads are looked up reflectively, since the code
+ * is compiled for runtimes that do not have them.
+ */
+@Log4j2
+@Component
+public class BlockingScheduler implements DisposableBean {
+
+  private final Scheduler scheduler;
+  private final boolean virtualThreads;
+
+  public BlockingScheduler(ProductProperties productProperties) {
+    ExecutorService executor = null;
+    if (productProperties.getBlocking().getExecutor() == ProductProperties.Blocking.Executor.VIRTUAL_THREADS) {
+      executor = newVirtualThreadPerTaskExecutor();
+      if (executor == null) {
+        log.warn("Virtual threads need Java 21 or later, running blocking calls on the bounded elastic scheduler instead");
+      }
+    }
+    this.virtualThreads = executor != null;
+    this.scheduler = executor != null ? Schedulers.fromExecutorService(executor, "virtual") : Schedulers.boundedElastic();
+  }
+
+  /**
+   * @return whether this runtime can create virtual threads
+   */
+  public static boolean isVirtualThreadsAvailable() {
+    return virtualThreadPerTaskExecutorFactory() != null;
+  }
+
+  public Scheduler getScheduler() {
+    return scheduler;
+  }
+
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  public <T> Mono<T> call(Callable<T> call) {
+    return Mono.fromCallable(call).subscribeOn(scheduler);
+  }
+
+  @Override
+  public void destroy() {
+    // The shared bounded elastic scheduler ignores this
+    scheduler.dispose();
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    Method factory = virtualThreadPerTaskExecutorFactory();
+    if (factory == null) {
+      return null;
+    }
+    try {
+      return (ExecutorService) factory.invoke(null);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      log.warn("Could not create a virtual thread executor", e);
+      return null;
+    }
+  }
+
+  private static Method virtualThreadPerTaskExecutorFactory() {
+    try {
+      return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package dev.iseif.reactiverestapi.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.BulkChunkResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult.Status;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import lombok.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class ProductBulkService {
+
+  private static final String ID_REQUIRED = "'id' is required";
+  private static final int ITEM_CONCURRENCY = 32;
+
+  private final ProductRepository productRepository;
+  private final ProductCache productCache;
+  private final ProductRepositoryGuard guard;
+  private final ProductStats productStats;
+  private final Validator validator;
+  private final ProductProperties productProperties;
+
+  public ProductBulkService(ProductRepository productRepository, ProductCache productCache, ProductRepositoryGuard guard,
+      ProductStats productStats, Validator validator, ProductProperties productProperties) {
+    this.productRepository = productRepository;
+    this.productCache = productCache;
+    this.guard = guard;
+    this.productStats = productStats;
+    this.validator = validator;
+    this.productProperties = productProperties;
+  }
+
+  public Flux<BulkChunkResult> create(Flux<Product> products) {
+    return inChunks(products, this::createChunk);
+  }
+
+  public Flux<BulkChunkResult> update(Flux<Product> products) {
+    return inChunks(products, this::updateChunk);
+  }
+
+  public Flux<BulkChunkResult> delete(Flux<Product> products) {
+    return inChunks(products, this::deleteChunk);
+  }
+
+  private Flux<BulkChunkResult> inChunks(Flux<Product> products, Function<List<Item>, Mono<BulkItemResult[]>> writer) {
+    ProductProperties.Bulk bulk = productProperties.getBulk();
+    return products
+        .index(Item::new)
+        .buffer(bulk.getChunkSize())
+        .flatMapSequential(chunk -> writer.apply(chunk)
+            .map(results -> new BulkChunkResult(chunk.get(0).getIndex() / bulk.getChunkSize(), Arrays.asList(results))),
+            bulk.getConcurrency());
+  }
+
+  private Mono<BulkItemResult[]> createChunk(List<Item> chunk) {
+    BulkItemResult[] results = new BulkItemResult[chunk.size()];
+    List<Integer> positions = new ArrayList<>();
+    List<Product> products = new ArrayList<>();
+    for (int i = 0; i < chunk.size(); i++) {
+      Item item = chunk.get(i);
+      String violations = validate(item.getProduct());
+      if (violations != null) {
+        results[i] = new BulkItemResult(item.getIndex(), null, Status.INVALID, violations);
+      } else {
+        positions.add(i);
+        products.add(item.getProduct().toBuilder().id(null).build());
+      }
+    }
+
+    return guard.write("bulkCreate", productRepository.bulkInsert(products))
+        .map(errors -> complete(results, chunk, positions, products, errors));
+  }
+
+  private Mono<BulkItemResult[]> updateChunk(List<Item> chunk) {
+    return writeEach("bulkUpdate", chunk, item -> {
+      Product product = item.getProduct();
+      String violations = product.getId() == null ? ID_REQUIRED : validate(product);
+      if (violations != null) {
+        return Mono.just(new BulkItemResult(item.getIndex(), product.getId(), Status.INVALID, violations));
+      }
+      return productRepository.updateById(product.getId(), product, null)
+          .doOnNext(revision -> productStats.changed(revision.getPrevious(), revision.getCurrent()))
+          .map(revision -> written(item, Status.UPDATED));
+    });
+  }
+
+  private Mono<BulkItemResult[]> deleteChunk(List<Item> chunk) {
+    return writeEach("bulkDelete", chunk, item -> {
+      String id = item.getProduct().getId();
+      if (id == null) {
+        return Mono.just(new BulkItemResult(item.getIndex(), null, Status.INVALID, ID_REQUIRED));
+      }
+      return productRepository.findAndRemoveById(id, null)
+          .doOnNext(productStats::removed)
+          .map(product -> written(item, Status.DELETED));
+    });
+  }
+
+  /**
+   * Writes the items of a chunk one document each, concurrently, so that every status comes from
+   * the item's own write: a bulk write only reports how many updates and deletes matched in total.
+   * An item whose write matches nothing is reported as not found.
+   */
+  private Mono<BulkItemResult[]> writeEach(String operation, List<Item> chunk, Function<Item, Mono<BulkItemResult>> writer) {
+    return guard.write(operation, Flux.fromIterable(chunk)
+        .flatMapSequential(item -> writer.apply(item)
+            .switchIfEmpty(Mono.fromSupplier(() ->
+                new BulkItemResult(item.getIndex(), item.getProduct().getId(), Status.NOT_FOUND, null)))
+            .onErrorResume(DataIntegrityViolationException.class, e -> Mono.just(
+                new BulkItemResult(item.getIndex(), item.getProduct().getId(), Status.FAILED, e.getMessage()))),
+            ITEM_CONCURRENCY)
+        .collectList()
+        .map(results -> results.toArray(new BulkItemResult[0])));
+  }
+
+  private BulkItemResult written(Item item, Status status) {
+    String id = item.getProduct().getId();
+    productCache.invalidate(id);
+    guard.forget(ProductService.lastKnownGoodKey(id));
+    return new BulkItemResult(item.getIndex(), id, status, null);
+  }
+
+  private BulkItemResult[] complete(BulkItemResult[] results, List<Item> chunk, List<Integer> positions,
+      List<Product> written, List<BulkWriteError> errors) {
+    String[] failures = new String[written.size()];
+    for (BulkWriteError error : errors) {
+      failures[error.getIndex()] = error.getMessage();
+    }
+
+    for (int i = 0; i < positions.size(); i++) {
+      int position = positions.get(i);
+      String id = written.get(i).getId();
+      if (failures[i] != null) {
+        results[position] = new BulkItemResult(chunk.get(position).getIndex(), id, Status.FAILED, failures[i]);
+      } else {
+        results[position] = new BulkItemResult(chunk.get(position).getIndex(), id, Status.CREATED, null);
+        productStats.added(written.get(i));
+      }
+    }
+    return results;
+  }
+
+  private String validate(Product product) {
+    Set<ConstraintViolation<Product>> violations = validator.validate(product);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    return violations.stream()
+        .map(ConstraintViolation::getMessage)
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+
+  @Value
+  private static class Item {
+
+    long index;
+    Product product;
+  }
+}
@@ -0,0 +1,72 @@
+package dev.iseif.reactiverestapi.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+public class ProductCache {
+
+  private final boolean enabled;
+  private final AsyncCache<String, Product> cache;
+
+  public ProductCache(ProductProperties productProperties, MeterRegistry meterRegistry) {
+    ProductProperties.Cache properties = productProperties.getCache();
+    this.enabled = properties.isEnabled();
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getTimeToLive())
+        .recordStats()
+        .buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "products");
+  }
+
+  /**
+   * Concurrent misses for the same id share a single {@code loader} subscription. Empty results
+   * are not cached.
+   */
+  public Mono<Product> get(String id, Function<String, Mono<Product>> loader) {
+    if (!enabled) {
+      return loader.apply(id);
+    }
+    // Subscribers get a dependent stage so that one of them cancelling does not cancel the shared load
+    return Mono.fromFuture(() -> cache.get(id, (key, executor) -> loader.apply(key).toFuture())
+        .thenApply(Function.identity()));
+  }
+
+  public Mono<Product> getIfPresent(String id) {
+    return Mono.justOrEmpty(cache.getIfPresent(id))
+        .flatMap(future -> Mono.fromFuture(future.thenApply(Function.identity())));
+  }
+
+  /**
+   * Returns the products already loaded for {@code ids}, leaving out the ones still loading.
+   */
+  public Map<String, Product> getAllPresent(Collection<String> ids) {
+    return enabled ? cache.synchronous().getAllPresent(ids) : Collections.emptyMap();
+  }
+
+  /**
+   * Caches {@code product} unless its id is already cached or loading, so a batch read never
+   * replaces a fresher entry.
+   */
+  public void putIfAbsent(Product product) {
+    if (enabled) {
+      cache.asMap().putIfAbsent(product.getId(), CompletableFuture.completedFuture(product));
+    }
+  }
+
+  public void invalidate(String id) {
+    cache.synchronous().invalidate(id);
+  }
+}
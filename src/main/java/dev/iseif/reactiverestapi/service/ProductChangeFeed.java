@@ -0,0 +1,264 @@
+package dev.iseif.reactiverestapi.service;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.log4j.Log4j2;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.util.retry.Retry;
+
+/**
+ * Publishes product changes from one Mongo change stream that is shared by all live subscribers.
+ * The event id is the change stream resume token, so a reconnecting client can pass it back as
+ * {@code Last-Event-ID}: it gets the events it missed from a stream of its own, and then rejoins
+ * the shared one.
+ */
+@Log4j2
+@Component
+public class ProductChangeFeed {
+
+  /**
+   * CappedPositionLost, ChangeStreamFatalError and ChangeStreamHistoryLost.
+   */
+  private static final Set<Integer> HISTORY_LOST_CODES = new HashSet<>(Arrays.asList(136, 280, 286));
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final ProductProperties.Changes properties;
+  private final Counter droppedEvents;
+  private final AtomicReference<BsonValue> lastResumeToken = new AtomicReference<>();
+  private final Flux<ServerSentEvent<ProductChange>> sharedEvents;
+
+  public ProductChangeFeed(ReactiveMongoTemplate mongoTemplate, ProductProperties productProperties, MeterRegistry meterRegistry) {
+    this.mongoTemplate = mongoTemplate;
+    this.properties = productProperties.getChanges();
+    this.droppedEvents = meterRegistry.counter("products.changes.dropped");
+    this.sharedEvents = Flux.defer(() -> changeStream(lastResumeToken.get()))
+        .doOnNext(event -> lastResumeToken.set(event.getResumeToken()))
+        .doOnError(error -> {
+          if (isHistoryLost(error)) {
+            log.warn("Product change stream can no longer be resumed from its last event, restarting with live events", error);
+            lastResumeToken.set(null);
+          }
+        })
+        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+            .maxBackoff(properties.getMaxRetryBackoff())
+            .doBeforeRetry(signal -> log.warn("Product change stream failed, reconnecting", signal.failure())))
+        // Restarted by the next subscriber with live events, not with the ones nobody was listening to
+        .doOnCancel(() -> lastResumeToken.set(null))
+        .map(this::toServerSentEvent)
+        .share();
+  }
+
+  public Flux<ServerSentEvent<ProductChange>> changes(String lastEventId) {
+    if (lastEventId == null) {
+      return withSlowConsumerPolicy(sharedEvents);
+    }
+
+    BsonValue resumeToken = decodeResumeToken(lastEventId);
+    return withSlowConsumerPolicy(Flux.create(sink -> new Handoff(sink).start(lastEventId, resumeToken)));
+  }
+
+  private Flux<ChangeStreamEvent<Product>> changeStream(BsonValue resumeToken) {
+    ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder()
+        .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+    if (resumeToken != null) {
+      options.resumeAfter(resumeToken);
+    }
+    return mongoTemplate.changeStream(mongoTemplate.getCollectionName(Product.class), options.build(), Product.class);
+  }
+
+  private Flux<ServerSentEvent<ProductChange>> withSlowConsumerPolicy(Flux<ServerSentEvent<ProductChange>> events) {
+    if (properties.getSlowConsumer() == ProductProperties.Changes.SlowConsumerPolicy.DROP) {
+      return events.onBackpressureDrop(event -> droppedEvents.increment());
+    }
+    return events.onBackpressureBuffer(properties.getBufferSize());
+  }
+
+  private ServerSentEvent<ProductChange> toServerSentEvent(ChangeStreamEvent<Product> event) {
+    ChangeStreamDocument<Document> raw = event.getRaw();
+    String type = event.getOperationType() == null ? "unknown" : event.getOperationType().getValue().toLowerCase(Locale.ROOT);
+    String productId = raw == null || raw.getDocumentKey() == null ? null : idOf(raw.getDocumentKey().get("_id"));
+
+    return ServerSentEvent.<ProductChange>builder()
+        .id(encodeResumeToken(event.getResumeToken()))
+        .event(type)
+        .data(new ProductChange(type, productId, event.getBody()))
+        .build();
+  }
+
+  private static String idOf(BsonValue id) {
+    if (id == null) {
+      return null;
+    }
+    if (id.isObjectId()) {
+      return id.asObjectId().getValue().toHexString();
+    }
+    return id.isString() ? id.asString().getValue() : id.toString();
+  }
+
+  private static String encodeResumeToken(BsonValue resumeToken) {
+    if (resumeToken == null || !resumeToken.isDocument()) {
+      return null;
+    }
+    byte[] json = resumeToken.asDocument().toJson().getBytes(StandardCharsets.UTF_8);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+  }
+
+  private static BsonValue decodeResumeToken(String lastEventId) {
+    try {
+      return BsonDocument.parse(new String(Base64.getUrlDecoder().decode(lastEventId), StandardCharsets.UTF_8));
+    } catch (IllegalArgumentException | JsonParseException e) {
+      throw new InvalidRequestException("Malformed event id", e);
+    }
+  }
+
+  /**
+   * Whether the change stream cannot resume because its resume point has left the oplog.
+   */
+  static boolean isHistoryLost(Throwable error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof MongoException && HISTORY_LOST_CODES.contains(((MongoException) cause).getCode())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Replays the events a reconnecting client missed from a change stream of its own, until that
+   * stream meets the shared one: at the event the shared stream had reached when the client
+   * reconnected, or at the first event both streams deliver. The client then gets the shared
+   * events, without duplicates, and its own stream is closed. Shared events are buffered meanwhile,
+   * up to {@code buffer-size}; past that the client is disconnected and resumes again.
+   */
+  private class Handoff {
+
+    private final FluxSink<ServerSentEvent<ProductChange>> sink;
+    private final Deque<ServerSentEvent<ProductChange>> shared = new ArrayDeque<>();
+    private final Set<String> replayed = new LinkedHashSet<>();
+    private final Disposable.Swap replay = Disposables.swap();
+    private String sharedPosition;
+    private boolean handedOff;
+
+    Handoff(FluxSink<ServerSentEvent<ProductChange>> sink) {
+      this.sink = sink;
+    }
+
+    void start(String clientPosition, BsonValue resumeToken) {
+      // Subscribed before reading the shared position, so that no shared event falls in between
+      Disposable sharedSubscription = sharedEvents.subscribe(this::onShared, sink::error);
+      sink.onDispose(Disposables.composite(sharedSubscription, replay));
+      synchronized (this) {
+        sharedPosition = encodeResumeToken(lastResumeToken.get());
+        if (clientPosition.equals(sharedPosition)) {
+          handOff(null);
+          return;
+        }
+      }
+      replay.update(changeStream(resumeToken)
+          .map(ProductChangeFeed.this::toServerSentEvent)
+          .subscribe(this::onReplayed, this::onReplayFailed, () -> onReplayFailed(null)));
+    }
+
+    private synchronized void onReplayed(ServerSentEvent<ProductChange> event) {
+      if (handedOff) {
+        return;
+      }
+      if (event.id() == null) {
+        sink.next(event);
+        return;
+      }
+      if (isShared(event.id())) {
+        handOff(event.id());
+        return;
+      }
+      sink.next(event);
+      replayed.add(event.id());
+      if (replayed.size() > properties.getBufferSize()) {
+        replayed.remove(replayed.iterator().next());
+      }
+      if (event.id().equals(sharedPosition)) {
+        handOff(null);
+      }
+    }
+
+    private synchronized void onReplayFailed(Throwable error) {
+      if (handedOff) {
+        return;
+      }
+      log.warn("Could not resume product changes, continuing with live events", error);
+      sink.next(ServerSentEvent.<ProductChange>builder().event("reset").build());
+      replayed.clear();
+      handOff(null);
+    }
+
+    private synchronized void onShared(ServerSentEvent<ProductChange> event) {
+      if (handedOff) {
+        emitShared(event);
+        return;
+      }
+      shared.add(event);
+      if (event.id() != null && replayed.contains(event.id())) {
+        handOff(event.id());
+      } else if (shared.size() > properties.getBufferSize()) {
+        sink.error(Exceptions.failWithOverflow("Product changes could not be replayed in time"));
+      }
+    }
+
+    private boolean isShared(String id) {
+      return shared.stream().anyMatch(event -> id.equals(event.id()));
+    }
+
+    /**
+     * Sends the buffered shared events from {@code position} on, or all of them when it is
+     * {@code null}, and the following ones as they come.
+     */
+    private void handOff(String position) {
+      handedOff = true;
+      replay.dispose();
+      if (position != null) {
+        while (!position.equals(shared.peekFirst().id())) {
+          shared.removeFirst();
+        }
+      }
+      shared.forEach(this::emitShared);
+      shared.clear();
+    }
+
+    private void emitShared(ServerSentEvent<ProductChange> event) {
+      if (event.id() == null || !replayed.remove(event.id())) {
+        sink.next(event);
+      }
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package dev.iseif.reactiverestapi.service;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Coalesces concurrent creates into unordered {@code insertMany} writes of up to
+ * {@code products.create-batching.max-batch-size} products, flushed at the latest
+ * {@code max-delay} after the first one arrived. Each caller gets its own product or error.
+ * Every insert, not every caller, goes through the write side of {@link ProductRepositoryGuard}.
+ * Once closed, creates fail with {@link IllegalStateException}.
+ *
+ * <p>{@code products.create.batch.size} records how many products every insert carried, which is
+ * the number of round trips saved per insert; {@code products.create.batch} times the inserts.
+ */
+@Component
+public class ProductCreateBatcher {
+
+  static final String BATCH_SIZE_METRIC = "products.create.batch.size";
+  static final String BATCH_TIMER = "products.create.batch";
+
+  private final ProductRepository productRepository;
+  private final ProductRepositoryGuard guard;
+  private final boolean enabled;
+  // Emissions are serialized by synchronizing on the sink, so it needs no concurrency checks of its own
+  private final Sinks.Many<PendingCreate> pending = Sinks.unsafe().many().unicast().onBackpressureBuffer();
+  private final DistributionSummary batchSizes;
+  private final Timer batchTimer;
+
+  public ProductCreateBatcher(ProductRepository productRepository, ProductRepositoryGuard guard, ProductProperties productProperties,
+      MeterRegistry meterRegistry) {
+    ProductProperties.CreateBatching properties = productProperties.getCreateBatching();
+    this.productRepository = productRepository;
+    this.guard = guard;
+    this.enabled = properties.isEnabled();
+    this.batchSizes = DistributionSummary.builder(BATCH_SIZE_METRIC)
+        .description("Products written per coalesced insert")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.batchTimer = Timer.builder(BATCH_TIMER)
+        .description("Latency of coalesced product inserts")
+        .register(meterRegistry);
+    if (enabled) {
+      pending.asFlux()
+          .bufferTimeout(properties.getMaxBatchSize(), properties.getMaxDelay())
+          // bufferTimeout does not wait for demand, so batches queue up while all flushes are in flight
+          .onBackpressureBuffer()
+          .flatMap(this::flush, properties.getConcurrency())
+          .subscribe();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public Mono<Product> create(Product product) {
+    return Mono.defer(() -> {
+      PendingCreate create = new PendingCreate(product, Sinks.one());
+      boolean emitted;
+      synchronized (pending) {
+        emitted = pending.tryEmitNext(create).isSuccess();
+      }
+      if (!emitted) {
+        return Mono.error(new IllegalStateException("Create batching is closed"));
+      }
+      return create.getResult().asMono();
+    });
+  }
+
+  @PreDestroy
+  public void close() {
+    synchronized (pending) {
+      pending.tryEmitComplete();
+    }
+  }
+
+  private Mono<Void> flush(List<PendingCreate> batch) {
+    List<Product> products = batch.stream().map(PendingCreate::getProduct).collect(Collectors.toList());
+    batchSizes.record(products.size());
+    Timer.Sample sample = Timer.start();
+    return guard.write("create", Mono.defer(() -> productRepository.bulkInsert(products)))
+        .doOnNext(errors -> {
+          sample.stop(batchTimer);
+          String[] failures = new String[products.size()];
+          boolean[] duplicates = new boolean[products.size()];
+          for (BulkWriteError error : errors) {
+            failures[error.getIndex()] = error.getMessage();
+            duplicates[error.getIndex()] = ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY;
+          }
+          for (int i = 0; i < products.size(); i++) {
+            Sinks.One<Product> result = batch.get(i).getResult();
+            if (failures[i] == null) {
+              result.tryEmitValue(products.get(i));
+            } else if (duplicates[i]) {
+              result.tryEmitError(new DuplicateKeyException(failures[i]));
+            } else {
+              result.tryEmitError(new DataIntegrityViolationException(failures[i]));
+            }
+          }
+        })
+        .doOnError(e -> batch.forEach(create -> create.getResult().tryEmitError(e)))
+        .onErrorResume(e -> Mono.empty())
+        .then();
+  }
+
+  @Value
+  private static class PendingCreate {
+
+    Product product;
+    Sinks.One<Product> result;
+  }
+}
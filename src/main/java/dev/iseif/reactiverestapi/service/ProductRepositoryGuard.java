@@ -0,0 +1,126 @@
+package dev.iseif.reactiverestapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Puts repository calls behind a per-operation time limit, a read or write bulkhead and the
+ * {@code products} circuit breaker, all configured under {@code resilience4j.*}.
+ *
+ * <p>While the circuit is open, reads wrapped with {@link #lastKnownGood} answer with their last
+ * successful result instead of failing.
+ */
+@Component
+public class ProductRepositoryGuard {
+
+  static final String CIRCUIT_BREAKER = "products";
+  static final String READ_BULKHEAD = "products-read";
+  static final String WRITE_BULKHEAD = "products-write";
+
+  private final CircuitBreaker circuitBreaker;
+  private final Bulkhead readBulkhead;
+  private final Bulkhead writeBulkhead;
+  private final TimeLimiterRegistry timeLimiterRegistry;
+  private final Cache<String, Object> lastKnownGood;
+
+  public ProductRepositoryGuard(CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry,
+      TimeLimiterRegistry timeLimiterRegistry, ProductProperties productProperties) {
+    ProductProperties.LastKnownGood properties = productProperties.getLastKnownGood();
+    this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER);
+    this.readBulkhead = bulkheadRegistry.bulkhead(READ_BULKHEAD);
+    this.writeBulkhead = bulkheadRegistry.bulkhead(WRITE_BULKHEAD);
+    this.timeLimiterRegistry = timeLimiterRegistry;
+    this.lastKnownGood = Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getTimeToLive())
+        .build();
+  }
+
+  public <T> Mono<T> read(String operation, Mono<T> call) {
+    return guard(operation, readBulkhead, call);
+  }
+
+  /**
+   * Only the first element is time limited, so a slow consumer of a long stream does not count as
+   * a slow database.
+   */
+  public <T> Flux<T> read(String operation, Flux<T> call) {
+    return guard(operation, readBulkhead, call);
+  }
+
+  public <T> Mono<T> write(String operation, Mono<T> call) {
+    return guard(operation, writeBulkhead, call);
+  }
+
+  /**
+   * Remembers the value of {@code read} under {@code key} and replays it while the circuit is open.
+   */
+  public <T> Mono<T> lastKnownGood(String key, Mono<T> read) {
+    return read
+        .doOnNext(value -> lastKnownGood.put(key, value))
+        .onErrorResume(CallNotPermittedException.class, e -> {
+          @SuppressWarnings("unchecked")
+          T value = (T) lastKnownGood.getIfPresent(key);
+          return value == null ? Mono.error(e) : Mono.just(value);
+        });
+  }
+
+  /**
+   * Like {@link #lastKnownGood(String, Mono)}, remembering the elements of a completed read.
+   */
+  public <T> Flux<T> lastKnownGood(String key, Flux<T> read) {
+    return Flux.defer(() -> {
+      List<T> elements = new ArrayList<>();
+      return read
+          .doOnNext(elements::add)
+          .doOnComplete(() -> lastKnownGood.put(key, elements))
+          .onErrorResume(CallNotPermittedException.class, e -> {
+            @SuppressWarnings("unchecked")
+            List<T> values = (List<T>) lastKnownGood.getIfPresent(key);
+            return values == null ? Flux.error(e) : Flux.fromIterable(values);
+          });
+    });
+  }
+
+  /**
+   * Drops the result remembered under {@code key}, so an open circuit cannot answer with data a
+   * write has replaced.
+   */
+  public void forget(String key) {
+    lastKnownGood.invalidate(key);
+  }
+
+  private <T> Mono<T> guard(String operation, Bulkhead bulkhead, Mono<T> call) {
+    return call
+        .transformDeferred(BulkheadOperator.of(bulkhead))
+        .transformDeferred(TimeLimiterOperator.of(timeLimiterRegistry.timeLimiter(operation)))
+        .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+  }
+
+  private <T> Flux<T> guard(String operation, Bulkhead bulkhead, Flux<T> call) {
+    TimeLimiter timeLimiter = timeLimiterRegistry.timeLimiter(operation);
+    return call
+        .transformDeferred(BulkheadOperator.of(bulkhead))
+        .timeout(Mono.delay(timeLimiter.getTimeLimiterConfig().getTimeoutDuration()), element -> Mono.never())
+        .doOnError(TimeoutException.class, timeLimiter::onError)
+        .doOnComplete(timeLimiter::onSuccess)
+        .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+  }
+}
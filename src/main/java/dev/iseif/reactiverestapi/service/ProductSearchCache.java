@@ -0,0 +1,90 @@
+package dev.iseif.reactiverestapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.repository.ProductReadRouting;
+import dev.iseif.reactiverestapi.repository.ProductSearchFields;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs a search once for all the identical searches made while it is running, and keeps its
+ * results for {@code products.search.result-time-to-live} afterwards. Searches are identical when
+ * their query terms and fields are, so {@code "Apple  Phone"} and {@code "apple phone"} share a run.
+ */
+@Component
+public class ProductSearchCache {
+
+  private final boolean enabled;
+  private final ConcurrentMap<String, CompletableFuture<List<Product>>> running = new ConcurrentHashMap<>();
+  private final Cache<String, List<Product>> results;
+
+  public ProductSearchCache(ProductProperties productProperties, MeterRegistry meterRegistry) {
+    ProductProperties.Search properties = productProperties.getSearch();
+    this.enabled = properties.isCoalesce();
+    if (properties.getResultTimeToLive().compareTo(Duration.ZERO) > 0) {
+      this.results = Caffeine.newBuilder()
+          .maximumSize(properties.getResultMaximumSize())
+          .expireAfterWrite(properties.getResultTimeToLive())
+          .recordStats()
+          .build();
+      CaffeineCacheMetrics.monitor(meterRegistry, results, "products.search");
+    } else {
+      this.results = null;
+    }
+  }
+
+  /**
+   * Failed searches are not kept, so the next identical search runs again. Searches
+   * {@linkplain ProductReadRouting#pinToPrimary pinned to the primary} always run on their own,
+   * since shared results may come from a secondary.
+   */
+  public Flux<Product> get(String query, ProductFields fields, Supplier<Flux<Product>> search) {
+    if (!enabled) {
+      return search.get();
+    }
+    String key = String.join(" ", ProductSearchFields.queryTerms(query)) + ":" + fields;
+    return Flux.deferContextual(context -> {
+      if (ProductReadRouting.isPinnedToPrimary(context)) {
+        return search.get();
+      }
+      List<Product> products = results == null ? null : results.getIfPresent(key);
+      if (products != null) {
+        return Flux.fromIterable(products);
+      }
+      // Subscribers get a dependent stage so that one of them cancelling does not cancel the shared search
+      return Mono.fromFuture(run(key, search).thenApply(Function.identity()))
+          .flatMapIterable(Function.identity());
+    });
+  }
+
+  private CompletableFuture<List<Product>> run(String key, Supplier<Flux<Product>> search) {
+    CompletableFuture<List<Product>> started = new CompletableFuture<>();
+    CompletableFuture<List<Product>> existing = running.putIfAbsent(key, started);
+    if (existing != null) {
+      return existing;
+    }
+    started.whenComplete((products, error) -> {
+      // Kept before the search stops being shared, so that no identical search runs in between
+      if (products != null && results != null) {
+        results.put(key, products);
+      }
+      running.remove(key, started);
+    });
+    Flux.defer(search).collectList().subscribe(started::complete, started::completeExceptionally);
+    return started;
+  }
+}
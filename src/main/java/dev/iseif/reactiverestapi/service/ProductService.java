@@ -1,7 +1,28 @@
 package dev.iseif.reactiverestapi.service;
 
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.MultiGetResult;
+import dev.iseif.reactiverestapi.model.PageCursor;
 import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductPage;
+import dev.iseif.reactiverestapi.model.ProductRevision;
+import dev.iseif.reactiverestapi.model.ProductStatistics;
 import dev.iseif.reactiverestapi.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -9,40 +30,206 @@ import reactor.core.publisher.Mono;
 @Service
 public class ProductService {
 
+  static final String TIMER_NAME = "products.service";
+
   private final ProductRepository productRepository;
+  private final ProductProperties productProperties;
+  private final ProductCache productCache;
+  private final ProductSearchCache searchCache;
+  private final ProductRepositoryGuard guard;
+  private final ProductCreateBatcher createBatcher;
+  private final ProductStats productStats;
+  private final MeterRegistry meterRegistry;
 
-  public ProductService(ProductRepository productRepository) {
+  public ProductService(ProductRepository productRepository, ProductProperties productProperties, ProductCache productCache,
+      ProductSearchCache searchCache, ProductRepositoryGuard guard, ProductCreateBatcher createBatcher, ProductStats productStats,
+      MeterRegistry meterRegistry) {
     this.productRepository = productRepository;
+    this.productProperties = productProperties;
+    this.productCache = productCache;
+    this.searchCache = searchCache;
+    this.guard = guard;
+    this.createBatcher = createBatcher;
+    this.productStats = productStats;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public Flux<Product> streamAll(ProductFilter filter, ProductOrder order, ProductFields fields) {
+    int batchSize = productProperties.getStreaming().getBatchSize();
+    return timed("streamAll", guard.read("streamAll", productRepository.streamAll(batchSize, filter, order, fields))).limitRate(batchSize);
   }
 
-  public Flux<Product> getAll() {
-    return productRepository.findAll();
+  public Mono<ProductPage> getPage(ProductOrder order, ProductFilter filter, String cursor, Integer size, ProductFields fields) {
+    int pageSize = pageSize(productProperties.getPage(), size);
+    Mono<ProductPage> page = Mono.defer(() -> {
+          PageCursor after = cursor == null ? null : PageCursor.decode(cursor, order);
+          return productRepository.findPage(order, filter, after, pageSize + 1, fields).collectList();
+        })
+        .map(products -> toPage(order, products, pageSize, fields));
+    String key = "getPage:" + order + ":" + filter + ":" + cursor + ":" + pageSize + ":" + fields;
+    return timed("getPage", guard.lastKnownGood(key, guard.read("getPage", page)));
   }
 
   public Mono<Product> getById(String id) {
-    return productRepository.findById(id);
+    Mono<Product> product = productCache.get(id, key -> guard.read("getById", productRepository.findById(key)));
+    return timed("getById", guard.lastKnownGood(lastKnownGoodKey(id), product));
+  }
+
+  /**
+   * Resolves the current version of a product without loading it when it is not cached.
+   */
+  public Mono<Long> getVersion(String id) {
+    return productCache.getIfPresent(id)
+        .flatMap(product -> Mono.justOrEmpty(product.getVersion()))
+        .switchIfEmpty(Mono.defer(() -> guard.read("getVersion", productRepository.findVersionById(id))));
+  }
+
+  /**
+   * Answers from the cache where it can and loads the remaining ids with a single query.
+   */
+  public Mono<MultiGetResult> getAllById(List<String> ids, ProductFields fields) {
+    int maxIds = productProperties.getMultiGet().getMaxIds();
+    if (ids.size() > maxIds) {
+      return Mono.error(new InvalidRequestException("At most " + maxIds + " ids can be requested at once"));
+    }
+    if (ids.contains(null)) {
+      return Mono.error(new InvalidRequestException("Ids must not be null"));
+    }
+    Mono<MultiGetResult> result = Mono.defer(() -> {
+      Map<String, Product> products = new HashMap<>(productCache.getAllPresent(ids));
+      Set<String> misses = new LinkedHashSet<>(ids);
+      misses.removeAll(products.keySet());
+      if (misses.isEmpty()) {
+        return Mono.just(multiGetResult(ids, products, fields));
+      }
+      return guard.read("getAllById", productRepository.findAllById(misses))
+          .doOnNext(product -> {
+            productCache.putIfAbsent(product);
+            products.put(product.getId(), product);
+          })
+          .then(Mono.fromSupplier(() -> multiGetResult(ids, products, fields)));
+    });
+    return timed("getAllById", result);
   }
 
-  public Flux<Product> searchByTitle(String title) {
-    return productRepository.findByTitleContainingIgnoreCase(title);
+  public Flux<Product> searchByTitle(String title, ProductFields fields) {
+    Flux<Product> products = searchCache.get(title, fields,
+        () -> guard.read("search", productRepository.searchByTitle(title, productProperties.getSearch().getLimit(), fields)));
+    return timed("search", guard.lastKnownGood("search:" + title + ":" + fields, products));
+  }
+
+  public Flux<Product> streamByTitle(String title, ProductFields fields) {
+    return searchByTitle(title, fields).limitRate(productProperties.getStreaming().getBatchSize());
   }
 
   public Mono<Product> create(Product product) {
-    return productRepository.save(product);
+    Mono<Product> insert = createBatcher.isEnabled() ? createBatcher.create(product) : guard.write("create", productRepository.save(product));
+    return timed("create", insert
+        .doOnNext(productStats::added));
+  }
+
+  /**
+   * Completes empty when the product does not exist and fails with
+   * {@link OptimisticLockingFailureException} when its version is not one of {@code expectedVersions}.
+   */
+  public Mono<Product> update(String id, Product updatedProduct, Collection<Long> expectedVersions) {
+    return timed("update", guard.write("update", productRepository.updateById(id, updatedProduct, expectedVersions)
+        .doOnNext(revision -> productStats.changed(revision.getPrevious(), revision.getCurrent()))
+        .map(ProductRevision::getCurrent)
+        .switchIfEmpty(versionConflict(id, expectedVersions)))
+        .doOnNext(product -> invalidate(id)));
+  }
+
+  public Mono<Product> deleteById(String id, Collection<Long> expectedVersions) {
+    return timed("delete", guard.write("delete", productRepository.findAndRemoveById(id, expectedVersions)
+        .switchIfEmpty(versionConflict(id, expectedVersions)))
+        .doOnNext(product -> {
+          invalidate(id);
+          productStats.removed(product);
+        }));
+  }
+
+  /**
+   * Completes empty until the statistics have been computed once.
+   */
+  public Mono<ProductStatistics> getStatistics() {
+    return Mono.fromSupplier(productStats::current);
+  }
+
+  static String lastKnownGoodKey(String id) {
+    return "getById:" + id;
+  }
+
+  private void invalidate(String id) {
+    productCache.invalidate(id);
+    guard.forget(lastKnownGoodKey(id));
+  }
+
+  private Mono<Product> versionConflict(String id, Collection<Long> expectedVersions) {
+    if (expectedVersions == null) {
+      return Mono.empty();
+    }
+    return productRepository.existsById(id)
+        .filter(Boolean::booleanValue)
+        .flatMap(exists -> Mono.error(new OptimisticLockingFailureException("Product " + id + " has been modified")));
+  }
+
+  private <T> Mono<T> timed(String operation, Mono<T> mono) {
+    return Mono.defer(() -> {
+      Timer.Sample sample = Timer.start(meterRegistry);
+      return mono
+          .doOnSuccess(value -> stop(sample, operation, value == null ? "empty" : "success", null))
+          .doOnError(e -> stop(sample, operation, "error", e))
+          .doOnCancel(() -> stop(sample, operation, "cancelled", null));
+    });
+  }
+
+  private <T> Flux<T> timed(String operation, Flux<T> flux) {
+    return Flux.defer(() -> {
+      Timer.Sample sample = Timer.start(meterRegistry);
+      return flux
+          .doOnComplete(() -> stop(sample, operation, "success", null))
+          .doOnError(e -> stop(sample, operation, "error", e))
+          .doOnCancel(() -> stop(sample, operation, "cancelled", null));
+    });
+  }
+
+  private void stop(Timer.Sample sample, String operation, String outcome, Throwable error) {
+    sample.stop(Timer.builder(TIMER_NAME)
+        .description("Latency of product service operations")
+        .tag("operation", operation)
+        .tag("outcome", outcome)
+        .tag("exception", error == null ? "none" : error.getClass().getSimpleName())
+        .register(meterRegistry));
+  }
+
+  static int pageSize(ProductProperties.Page page, Integer size) {
+    if (size == null) {
+      return page.getDefaultSize();
+    }
+    return Math.max(1, Math.min(size, page.getMaxSize()));
   }
 
-  public Mono<Product> update(String id, Product updatedProduct) {
-    return productRepository.findById(id)
-        .map(existingProduct -> existingProduct.toBuilder()
-              .title(updatedProduct.getTitle())
-              .description(updatedProduct.getDescription())
-              .price(updatedProduct.getPrice())
-              .build())
-        .flatMap(productRepository::save);
+  static MultiGetResult multiGetResult(List<String> ids, Map<String, Product> products, ProductFields fields) {
+    List<Product> found = new ArrayList<>(products.size());
+    List<String> missing = new ArrayList<>();
+    for (String id : ids) {
+      Product product = products.get(id);
+      if (product == null) {
+        missing.add(id);
+      } else {
+        found.add(fields.project(product));
+      }
+    }
+    return new MultiGetResult(found, missing);
   }
 
-  public Mono<Product> deleteById(String id) {
-    return productRepository.findById(id)
-        .flatMap(product -> productRepository.delete(product).then(Mono.just(product)));
+  static ProductPage toPage(ProductOrder order, List<Product> products, int pageSize, ProductFields fields) {
+    List<Product> content = products.size() <= pageSize ? products : products.subList(0, pageSize);
+    String nextCursor = products.size() <= pageSize ? null : PageCursor.after(order, content.get(pageSize - 1)).encode();
+    if (!fields.isAll()) {
+      content = content.stream().map(fields::project).collect(Collectors.toList());
+    }
+    return new ProductPage(content, nextCursor);
   }
 }
@@ -0,0 +1,131 @@
+package dev.iseif.reactiverestapi.service;
+
+import dev.iseif.reactiverestapi.codec.ProductSnapshots;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.SnapshotImportResult;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.validation.Validator;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Exports and restores the catalog as {@link ProductSnapshots}, streaming from and to Mongo in
+ * bounded batches.
+ */
+@Log4j2
+@Service
+public class ProductSnapshotService {
+
+  private final ProductRepository productRepository;
+  private final ProductProperties productProperties;
+  private final ProductStats productStats;
+  private final BlockingScheduler blockingScheduler;
+  private final Validator validator;
+
+  public ProductSnapshotService(ProductRepository productRepository, ProductProperties productProperties, ProductStats productStats,
+      BlockingScheduler blockingScheduler, Validator validator) {
+    this.productRepository = productRepository;
+    this.productProperties = productProperties;
+    this.productStats = productStats;
+    this.blockingScheduler = blockingScheduler;
+    this.validator = validator;
+  }
+
+  public Flux<DataBuffer> export(DataBufferFactory bufferFactory) {
+    int batchSize = productProperties.getStreaming().getBatchSize();
+    Flux<Product> products = productRepository.streamAll(batchSize, ProductFilter.NONE, null, ProductFields.ALL);
+    return ProductSnapshots.write(products, bufferFactory, batchSize);
+  }
+
+  /**
+   * Spools an uploaded snapshot to a temporary file, then restores it from there. A snapshot that
+   * cannot be read or is larger than {@code products.snapshot.max-upload-size} fails with
+   * {@link InvalidRequestException}.
+   */
+  public Mono<SnapshotImportResult> importSnapshot(Flux<DataBuffer> snapshot) {
+    long maxUploadSize = productProperties.getSnapshot().getMaxUploadSize().toBytes();
+    return Mono.usingWhen(
+        blockingScheduler.call(() -> Files.createTempFile("products-", ".pb.gz")),
+        file -> DataBufferUtils.write(limit(snapshot, maxUploadSize), file)
+            .then(restore(ProductSnapshots.read(() -> FileChannel.open(file), blockingScheduler.getScheduler())
+                .onErrorMap(e -> e instanceof IOException || e instanceof UncheckedIOException,
+                    e -> new InvalidRequestException("Invalid snapshot", e)))),
+        file -> Mono.fromRunnable(() -> delete(file)).subscribeOn(blockingScheduler.getScheduler()));
+  }
+
+  public Mono<SnapshotImportResult> importSnapshot(Resource snapshot) {
+    return restore(ProductSnapshots.read(snapshot::readableChannel, blockingScheduler.getScheduler()));
+  }
+
+  /**
+   * Inserts the products in chunks, keeping their ids and versions. Products that fail validation
+   * or whose id already exists are counted as failed.
+   */
+  public Mono<SnapshotImportResult> restore(Flux<Product> products) {
+    ProductProperties.Snapshot snapshot = productProperties.getSnapshot();
+    return products
+        .buffer(snapshot.getChunkSize())
+        .flatMap(this::restoreChunk, snapshot.getConcurrency())
+        .reduce(new SnapshotImportResult(0, 0), (total, chunk) ->
+            new SnapshotImportResult(total.getImported() + chunk.getImported(), total.getFailed() + chunk.getFailed()))
+        .doFinally(signal -> productStats.requestReconcile());
+  }
+
+  private Mono<SnapshotImportResult> restoreChunk(List<Product> chunk) {
+    List<Product> valid = new ArrayList<>(chunk.size());
+    for (Product product : chunk) {
+      if (validator.validate(product).isEmpty()) {
+        valid.add(product);
+      }
+    }
+    long invalid = chunk.size() - valid.size();
+    if (valid.isEmpty()) {
+      return Mono.just(new SnapshotImportResult(0, invalid));
+    }
+    return productRepository.bulkRestore(valid)
+        .map(errors -> new SnapshotImportResult(valid.size() - errors.size(), invalid + errors.size()));
+  }
+
+  /**
+   * Passes {@code upload} through until it exceeds {@code maxBytes}, then fails it.
+   */
+  private static Flux<DataBuffer> limit(Flux<DataBuffer> upload, long maxBytes) {
+    return Flux.defer(() -> {
+      AtomicLong total = new AtomicLong();
+      return upload.handle((buffer, sink) -> {
+        if (total.addAndGet(buffer.readableByteCount()) > maxBytes) {
+          DataBufferUtils.release(buffer);
+          sink.error(new InvalidRequestException("Snapshot is larger than " + maxBytes + " bytes"));
+        } else {
+          sink.next(buffer);
+        }
+      });
+    });
+  }
+
+  private static void delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("Could not delete " + file, e);
+    }
+  }
+}
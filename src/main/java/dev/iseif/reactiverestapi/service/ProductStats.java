@@ -0,0 +1,192 @@
+package dev.iseif.reactiverestapi.service;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.PriceSummary;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductStatistics;
+import dev.iseif.reactiverestapi.model.ProductStatistics.PriceBucket;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Catalog statistics kept in memory, so that reading them does not scan the catalog. Writes made
+ * through this instance update them as they happen; a {@code $group} aggregation recomputes them
+ * every {@code products.stats.reconcile-interval}, and soon after a write whose effect on them is
+ * not known.
+ *
+ * <p>Writes that land while an aggregation runs may be missed until the next one.
+ */
+@Log4j2
+@Component
+public class ProductStats {
+
+  private final ProductRepository productRepository;
+  private final ProductProperties.Stats properties;
+  private final List<Double> bucketBounds;
+  private final double[] bounds;
+  private final long[] bucketCounts;
+  private final Sinks.Many<Boolean> reconcileRequests = Sinks.many().multicast().directBestEffort();
+
+  private long count;
+  private double sum;
+  private double min = Double.NaN;
+  private double max = Double.NaN;
+  private Instant reconciledAt;
+
+  private Disposable reconciliations;
+
+  public ProductStats(ProductRepository productRepository, ProductProperties productProperties) {
+    this.productRepository = productRepository;
+    this.properties = productProperties.getStats();
+    this.bucketBounds = properties.getPriceBuckets().stream().sorted().distinct().collect(Collectors.toList());
+    if (!bucketBounds.isEmpty() && bucketBounds.get(0) <= 0) {
+      throw new IllegalArgumentException("products.stats.price-buckets must be positive, got " + properties.getPriceBuckets());
+    }
+    this.bounds = bucketBounds.stream().mapToDouble(Double::doubleValue).toArray();
+    this.bucketCounts = new long[bounds.length + 1];
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    reconciliations = Flux.merge(
+        Flux.interval(properties.getReconcileInterval()).startWith(0L).map(tick -> true),
+        reconcileRequests.asFlux().sample(properties.getReconcileDelay()))
+        .onBackpressureDrop()
+        .concatMap(request -> reconcile()
+            .onErrorResume(e -> {
+              log.warn("Could not reconcile product statistics", e);
+              return Mono.empty();
+            }), 1)
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (reconciliations != null) {
+      reconciliations.dispose();
+    }
+  }
+
+  /**
+   * @return the current statistics, or {@code null} until they have been computed once
+   */
+  public synchronized ProductStatistics current() {
+    if (reconciledAt == null) {
+      return null;
+    }
+    List<PriceBucket> histogram = new ArrayList<>(bucketCounts.length);
+    for (int i = 0; i < bucketCounts.length; i++) {
+      histogram.add(new PriceBucket(i == 0 ? 0 : bounds[i - 1], i < bounds.length ? bounds[i] : null, bucketCounts[i]));
+    }
+    boolean empty = count == 0;
+    return new ProductStatistics(count, empty ? null : min, empty ? null : max, empty ? null : sum / count, histogram,
+        reconciledAt);
+  }
+
+  /**
+   * Replaces the statistics with a fresh aggregation.
+   */
+  public Mono<Void> reconcile() {
+    return productRepository.summarizePrices(bucketBounds)
+        .doOnNext(this::reset)
+        .then();
+  }
+
+  /**
+   * Asks for the statistics to be recomputed after a write that could not be applied to them.
+   */
+  public void requestReconcile() {
+    reconcileRequests.tryEmitNext(true);
+  }
+
+  public void added(Product product) {
+    if (product.getPrice() != null) {
+      synchronized (this) {
+        add(product.getPrice());
+      }
+    }
+  }
+
+  public void removed(Product product) {
+    if (product.getPrice() != null) {
+      boolean boundRemoved;
+      synchronized (this) {
+        boundRemoved = remove(product.getPrice());
+      }
+      if (boundRemoved) {
+        requestReconcile();
+      }
+    }
+  }
+
+  public void changed(Product previous, Product current) {
+    if (previous.getPrice() == null || current.getPrice() == null) {
+      requestReconcile();
+      return;
+    }
+    if (previous.getPrice().equals(current.getPrice())) {
+      return;
+    }
+    boolean boundRemoved;
+    synchronized (this) {
+      boundRemoved = remove(previous.getPrice());
+      add(current.getPrice());
+    }
+    if (boundRemoved) {
+      requestReconcile();
+    }
+  }
+
+  private synchronized void reset(PriceSummary summary) {
+    count = summary.getCount();
+    sum = summary.getSum();
+    min = summary.getMin() == null ? Double.NaN : summary.getMin();
+    max = summary.getMax() == null ? Double.NaN : summary.getMax();
+    System.arraycopy(summary.getBucketCounts(), 0, bucketCounts, 0, bucketCounts.length);
+    reconciledAt = Instant.now();
+  }
+
+  private void add(double price) {
+    count++;
+    sum += price;
+    bucketCounts[bucket(price)]++;
+    min = Double.isNaN(min) ? price : Math.min(min, price);
+    max = Double.isNaN(max) ? price : Math.max(max, price);
+  }
+
+  /**
+   * @return whether the price was the minimum or maximum, which only an aggregation can replace
+   */
+  private boolean remove(double price) {
+    count--;
+    sum -= price;
+    bucketCounts[bucket(price)]--;
+    if (count <= 0) {
+      count = 0;
+      sum = 0;
+      min = Double.NaN;
+      max = Double.NaN;
+      return false;
+    }
+    return price <= min || price >= max;
+  }
+
+  private int bucket(double price) {
+    int index = Arrays.binarySearch(bounds, price);
+    // A price equal to a bound belongs to the bucket starting there
+    return index >= 0 ? index + 1 : -index - 1;
+  }
+}
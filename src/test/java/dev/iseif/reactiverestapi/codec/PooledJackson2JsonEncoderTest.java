@@ -0,0 +1,89 @@
+package dev.iseif.reactiverestapi.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.iseif.reactiverestapi.model.Product;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class PooledJackson2JsonEncoderTest {
+
+  private static final ResolvableType PRODUCT_TYPE = ResolvableType.forClass(Product.class);
+
+  private final PooledJackson2JsonEncoder encoder = new PooledJackson2JsonEncoder(Jackson2ObjectMapperBuilder.json().build());
+  private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+  private final Product first = Product.builder().id("1").title("iPhone 8").description("Apple iPhone 8").price(700.0).build();
+  private final Product second = Product.builder().id("2").title("Galaxy S9").description("Samsung Galaxy S9").price(650.0).build();
+
+  @Test
+  void encode_whenJsonArray_writeWholeArrayIntoOnePooledBuffer() {
+    List<DataBuffer> buffers = encode(Flux.just(first, second), MediaType.APPLICATION_JSON);
+
+    assertThat(buffers).hasSize(1).allMatch(NettyDataBuffer.class::isInstance);
+    assertThat(join(buffers)).isEqualTo("[" + json(first) + "," + json(second) + "]");
+  }
+
+  @Test
+  void encode_whenJsonArrayIsEmpty_writeEmptyArray() {
+    assertThat(join(encode(Flux.empty(), MediaType.APPLICATION_JSON))).isEqualTo("[]");
+  }
+
+  @Test
+  void encode_whenJsonArrayFailsAfterFirstElement_writeNothing() {
+    Flux<Product> products = Flux.concat(Flux.just(first), Flux.error(new IllegalStateException("timed out")));
+
+    StepVerifier
+        .create(encoder.encode(products, bufferFactory, PRODUCT_TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap()))
+        .verifyError(IllegalStateException.class);
+  }
+
+  @Test
+  void encode_whenNdjson_writeOneLinePerElement() {
+    List<DataBuffer> buffers = encode(Flux.just(first, second), MediaType.APPLICATION_NDJSON);
+
+    assertThat(buffers).hasSize(2);
+    assertThat(join(buffers)).isEqualTo(json(first) + "\n" + json(second) + "\n");
+  }
+
+  @Test
+  void encode_whenMono_writeSingleValue() {
+    assertThat(join(encode(Mono.just(first), MediaType.APPLICATION_JSON))).isEqualTo(json(first));
+  }
+
+  private List<DataBuffer> encode(Publisher<Product> products, MediaType mediaType) {
+    List<DataBuffer> buffers = encoder.encode(products, bufferFactory, PRODUCT_TYPE, mediaType, Collections.emptyMap())
+        .collectList()
+        .block();
+    return buffers == null ? new ArrayList<>() : buffers;
+  }
+
+  private String json(Product product) {
+    DataBuffer buffer = encoder.encodeValue(product, bufferFactory, PRODUCT_TYPE, MediaType.APPLICATION_JSON, null);
+    return join(Collections.singletonList(buffer));
+  }
+
+  private static String join(List<DataBuffer> buffers) {
+    StringBuilder json = new StringBuilder();
+    for (DataBuffer buffer : buffers) {
+      json.append(buffer.toString(StandardCharsets.UTF_8));
+      assertThat(DataBufferUtils.release(buffer)).isTrue();
+    }
+    return json.toString();
+  }
+}
@@ -0,0 +1,58 @@
+package dev.iseif.reactiverestapi.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.iseif.reactiverestapi.model.Product;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class ProductSnapshotsTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void write_whenReadBack_returnSameProductsAndVersions() {
+    List<Product> products = IntStream.range(0, 10_000)
+        .mapToObj(i -> Product.builder().id(String.format("%024x", i)).title("Product " + i).description("Description " + i).price(i * 1.5)
+            .version((long) i % 3).build())
+        .collect(Collectors.toList());
+    Path file = directory.resolve(ProductSnapshots.FILE_NAME);
+
+    DataBufferUtils.write(ProductSnapshots.write(Flux.fromIterable(products), DefaultDataBufferFactory.sharedInstance, 256), file).block();
+
+    StepVerifier
+        .create(ProductSnapshots.read(() -> FileChannel.open(file)))
+        .expectNextSequence(products)
+        .verifyComplete();
+  }
+
+  @Test
+  void write_whenNoProducts_writeEmptySnapshot() {
+    Path file = directory.resolve(ProductSnapshots.FILE_NAME);
+
+    DataBufferUtils.write(ProductSnapshots.write(Flux.empty(), DefaultDataBufferFactory.sharedInstance, 256), file).block();
+
+    StepVerifier
+        .create(ProductSnapshots.read(() -> FileChannel.open(file)))
+        .verifyComplete();
+  }
+
+  @Test
+  void read_whenDemoSnapshot_returnDemoProducts() {
+    StepVerifier
+        .create(ProductSnapshots.read(new ClassPathResource("snapshots/demo-products.pb.gz")::readableChannel).map(Product::getTitle))
+        .expectNext("Apple iPhone XS Max", "Apple MacBook Pro", "Samsung Galaxy S10+")
+        .verifyComplete();
+  }
+}
@@ -0,0 +1,54 @@
+package dev.iseif.reactiverestapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import dev.iseif.reactiverestapi.config.MongoMetricsConfiguration.CollectionCommandTagsProvider;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+
+class MongoMetricsConfigurationTest {
+
+  private final ConnectionDescription connection = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+  private final CollectionCommandTagsProvider tagsProvider = new CollectionCommandTagsProvider();
+
+  @Test
+  void commandTags_whenCommandTargetsCollection_tagCollection() {
+    tagsProvider.commandStarted(started(1, "find", new BsonDocument("find", new BsonString("product"))));
+
+    assertThat(tagsFor(1, "find")).contains(Tag.of("collection", "product"), Tag.of("command", "find"));
+  }
+
+  @Test
+  void commandTags_whenGetMore_tagCollection() {
+    tagsProvider.commandStarted(started(2, "getMore",
+        new BsonDocument("getMore", new BsonInt64(42)).append("collection", new BsonString("product"))));
+
+    assertThat(tagsFor(2, "getMore")).contains(Tag.of("collection", "product"));
+  }
+
+  @Test
+  void commandTags_whenCommandHasNoCollection_tagNone() {
+    tagsProvider.commandStarted(started(3, "isMaster", new BsonDocument("isMaster", new BsonInt32(1))));
+
+    assertThat(tagsFor(3, "isMaster")).contains(Tag.of("collection", CollectionCommandTagsProvider.NONE));
+  }
+
+  private CommandStartedEvent started(int requestId, String commandName, BsonDocument command) {
+    return new CommandStartedEvent(requestId, connection, "test", commandName, command);
+  }
+
+  private Tags tagsFor(int requestId, String commandName) {
+    return Tags.of(tagsProvider.commandTags(new CommandSucceededEvent(requestId, connection, commandName, new BsonDocument(), 1)));
+  }
+}
@@ -0,0 +1,36 @@
+package dev.iseif.reactiverestapi.config;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(SpringExtension.class)
+class SearchFieldsBackfillTest {
+
+  @Mock
+  private ProductRepository productRepository;
+
+  @Test
+  void onApplicationEvent_setOnlySearchFieldsOfProductsLackingThem() {
+    Product product = Product.builder().id("1").version(3L).title("Apple iPhone").description("Old copy").price(10.0).build();
+    when(productRepository.findBySearchTokensIsNull()).thenReturn(Flux.just(product));
+    when(productRepository.backfillSearchFields("1", "Apple iPhone")).thenReturn(Mono.just(true));
+
+    new SearchFieldsBackfill(productRepository).onApplicationEvent(null);
+
+    verify(productRepository, timeout(1000)).backfillSearchFields("1", "Apple iPhone");
+    verify(productRepository, never()).findAndModifyById(anyString(), any(), any());
+  }
+}
@@ -0,0 +1,186 @@
+package dev.iseif.reactiverestapi.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import dev.iseif.reactiverestapi.config.CodecConfiguration;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.BulkChunkResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult.Status;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductPage;
+import dev.iseif.reactiverestapi.model.ProductSort;
+import dev.iseif.reactiverestapi.service.BlockingProductService;
+import dev.iseif.reactiverestapi.service.BlockingScheduler;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+class BlockingProductControllerTest {
+
+  @Mock
+  private BlockingProductService productService;
+  private BlockingScheduler blockingScheduler;
+  private WebTestClient client;
+  private List<Product> expectedProducts;
+
+  @BeforeEach
+  void setUp() {
+    ProductProperties productProperties = new ProductProperties();
+    productProperties.getBulk().setChunkSize(2);
+    blockingScheduler = new BlockingScheduler(productProperties);
+    CodecCustomizer codecs = new CodecConfiguration()
+        .binaryCodecsCustomizer(Jackson2ObjectMapperBuilder.json().build(), Jackson2ObjectMapperBuilder.json());
+    client = WebTestClient
+        .bindToController(new BlockingProductController(productService, blockingScheduler, productProperties))
+        .httpMessageCodecs(codecs::customize)
+        .configureClient()
+        .codecs(codecs::customize)
+        .baseUrl("/api/products")
+        .build();
+
+    expectedProducts = Arrays.asList(
+        Product.builder().id("1").title("Apple iPhone XS Max").description("New iPhone XS Max").price(1099.99).build(),
+        Product.builder().id("2").title("Apple MacBook Pro").description("New MacBook").price(2599.99).build(),
+        Product.builder().id("3").title("Samsung Galaxy S10+").description("New Galaxy!!").price(799.99).build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    blockingScheduler.destroy();
+  }
+
+  @Test
+  void getProductPage_whenSizeIsAbsent_returnFirstPage() {
+    ProductPage expectedPage = new ProductPage(expectedProducts, "next");
+    when(productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, null, ProductFields.ALL))
+        .thenReturn(expectedPage);
+
+    client.get().uri("/").exchange()
+        .expectStatus().isOk()
+        .expectBody(ProductPage.class).isEqualTo(expectedPage);
+  }
+
+  @Test
+  void getProductPage_whenCursorIsMalformed_returnBadRequest() {
+    when(productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, "bad", 2, ProductFields.ALL))
+        .thenThrow(new InvalidRequestException("Malformed cursor"));
+
+    client.get().uri("/?size={size}&cursor={cursor}", 2, "bad").exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void getProductPage() {
+    ProductPage expectedPage = new ProductPage(expectedProducts.subList(0, 2), "next");
+    when(productService.getPage(ProductOrder.ascending(ProductSort.PRICE), ProductFilter.NONE, "cursor", 2, ProductFields.ALL))
+        .thenReturn(expectedPage);
+
+    client.get().uri("/?size={size}&cursor={cursor}&sort={sort}", 2, "cursor", "price").exchange()
+        .expectStatus().isOk()
+        .expectBody(ProductPage.class).isEqualTo(expectedPage);
+  }
+
+  @Test
+  void getProductById_whenFieldsGiven_returnETagAndProjectProduct() {
+    Product expectedProduct = expectedProducts.get(0).toBuilder().version(1L).build();
+    when(productService.getById(expectedProduct.getId())).thenReturn(Optional.of(expectedProduct));
+
+    client.get().uri("/{id}?fields={fields}", expectedProduct.getId(), "title").exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+        .expectBody()
+        .jsonPath("$.title").isEqualTo(expectedProduct.getTitle())
+        .jsonPath("$.price").doesNotExist();
+  }
+
+  @Test
+  void getProductById_whenIfNoneMatchIsCurrent_returnNotModified() {
+    when(productService.getVersion("1")).thenReturn(Optional.of(3L));
+
+    client.get().uri("/{id}", "1").header(HttpHeaders.IF_NONE_MATCH, "W/\"3\"").exchange()
+        .expectStatus().isNotModified()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+        .expectBody().isEmpty();
+  }
+
+  @Test
+  void getProductById_whenProductNotExist_returnNotFound() {
+    when(productService.getById("NOT_EXIST_ID")).thenReturn(Optional.empty());
+
+    client.get().uri("/{id}", "NOT_EXIST_ID").exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  void addProduct_returnCreatedProductWithETag() {
+    Product product = expectedProducts.get(0).toBuilder().version(0L).build();
+    when(productService.create(any())).thenReturn(product);
+
+    client.post().uri("/").bodyValue(product).exchange()
+        .expectStatus().isCreated()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+        .expectBody(Product.class).isEqualTo(product);
+  }
+
+  @Test
+  void updateProduct_whenIfMatchIsStale_returnPreconditionFailed() {
+    Product product = expectedProducts.get(0);
+    when(productService.update(eq("1"), any(), eq(Collections.singletonList(2L))))
+        .thenThrow(new OptimisticLockingFailureException("Product 1 has been modified"));
+
+    client.put().uri("/{id}", "1").header(HttpHeaders.IF_MATCH, "\"2\"").bodyValue(product).exchange()
+        .expectStatus().isEqualTo(412);
+  }
+
+  @Test
+  void deleteProduct_whenProductNotExist_returnNotFound() {
+    when(productService.deleteById("1", null)).thenReturn(Optional.empty());
+
+    client.delete().uri("/{id}", "1").exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  void bulkCreateProducts_writeChunksInOrder() {
+    BulkChunkResult first = new BulkChunkResult(0, Arrays.asList(
+        new BulkItemResult(0, "a", Status.CREATED, null), new BulkItemResult(1, "b", Status.CREATED, null)));
+    BulkChunkResult second = new BulkChunkResult(1, Collections.singletonList(new BulkItemResult(2, "c", Status.CREATED, null)));
+    when(productService.createChunk(eq(0L), anyList())).thenReturn(first);
+    when(productService.createChunk(eq(2L), anyList())).thenReturn(second);
+
+    Flux<BulkChunkResult> actual = client.post().uri("/bulk").contentType(MediaType.APPLICATION_NDJSON)
+        .accept(MediaType.APPLICATION_NDJSON)
+        .body(Flux.fromIterable(expectedProducts), Product.class).exchange()
+        .expectStatus().isOk()
+        .returnResult(BulkChunkResult.class).getResponseBody();
+
+    StepVerifier
+        .create(actual)
+        .expectNext(first, second)
+        .verifyComplete();
+  }
+}
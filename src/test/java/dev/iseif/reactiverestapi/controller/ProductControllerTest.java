@@ -1,33 +1,84 @@
 package dev.iseif.reactiverestapi.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import dev.iseif.reactiverestapi.codec.ProductProtobuf;
+import dev.iseif.reactiverestapi.codec.ProductSnapshots;
+import dev.iseif.reactiverestapi.config.CodecConfiguration;
+import dev.iseif.reactiverestapi.model.BulkChunkResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult.Status;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.MultiGetRequest;
+import dev.iseif.reactiverestapi.model.MultiGetResult;
 import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductChange;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductPage;
+import dev.iseif.reactiverestapi.model.ProductSort;
+import dev.iseif.reactiverestapi.model.ProductStatistics;
+import dev.iseif.reactiverestapi.model.ProductStatistics.PriceBucket;
+import dev.iseif.reactiverestapi.model.SnapshotImportResult;
+import dev.iseif.reactiverestapi.service.ProductBulkService;
+import dev.iseif.reactiverestapi.service.ProductChangeFeed;
 import dev.iseif.reactiverestapi.service.ProductService;
+import dev.iseif.reactiverestapi.service.ProductSnapshotService;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 @ExtendWith(SpringExtension.class)
 class ProductControllerTest {
 
   @Mock
   private ProductService productService;
+  @Mock
+  private ProductBulkService productBulkService;
+  @Mock
+  private ProductChangeFeed productChangeFeed;
+  @Mock
+  private ProductSnapshotService productSnapshotService;
   private WebTestClient client;
   private List<Product> expectedProducts;
 
   @BeforeEach
   void setUp() {
+    CodecCustomizer codecs = new CodecConfiguration()
+        .binaryCodecsCustomizer(Jackson2ObjectMapperBuilder.json().build(), Jackson2ObjectMapperBuilder.json());
     client = WebTestClient
-        .bindToController(new ProductController(productService))
+        .bindToController(new ProductController(productService, productBulkService, productChangeFeed, productSnapshotService))
+        .httpMessageCodecs(codecs::customize)
         .configureClient()
+        .codecs(codecs::customize)
         .baseUrl("/api/products")
         .build();
 
@@ -38,12 +89,263 @@ class ProductControllerTest {
   }
 
   @Test
-  void getAllProducts() {
-    when(productService.getAll()).thenReturn(Flux.fromIterable(expectedProducts));
+  void getProductPage_whenSizeIsAbsent_returnFirstPageOfDefaultSize() {
+    ProductPage expectedPage = new ProductPage(expectedProducts, "next");
+    when(productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, null, ProductFields.ALL))
+        .thenReturn(Mono.just(expectedPage));
 
     client.get().uri("/").exchange()
         .expectStatus().isOk()
-        .expectBodyList(Product.class).isEqualTo(expectedProducts);
+        .expectBody(ProductPage.class).isEqualTo(expectedPage);
+  }
+
+  @Test
+  void getProductPage_whenFieldsGiven_serializeOnlyThoseFields() {
+    ProductFields fields = ProductFields.parse("title,price");
+    Product expectedProduct = fields.project(expectedProducts.get(0));
+    when(productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, null, fields))
+        .thenReturn(Mono.just(new ProductPage(Collections.singletonList(expectedProduct), null)));
+
+    client.get().uri("/?fields={fields}", "title,price").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.content[0].id").isEqualTo(expectedProduct.getId())
+        .jsonPath("$.content[0].title").isEqualTo(expectedProduct.getTitle())
+        .jsonPath("$.content[0].price").isEqualTo(expectedProduct.getPrice())
+        .jsonPath("$.content[0].description").doesNotExist();
+  }
+
+  @Test
+  void getProductPage_whenFieldIsUnsupported_returnBadRequest() {
+    client.get().uri("/?fields={fields}", "title,normalizedTitle").exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void getProductPage_whenAcceptIsBinary_encodeInRequestedFormat() {
+    ProductPage expectedPage = new ProductPage(expectedProducts, "next");
+    when(productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, null, ProductFields.ALL))
+        .thenReturn(Mono.just(expectedPage));
+
+    for (String mediaType : Arrays.asList("application/cbor", "application/x-jackson-smile")) {
+      client.get().uri("/").accept(MediaType.parseMediaType(mediaType)).exchange()
+          .expectStatus().isOk()
+          .expectHeader().contentTypeCompatibleWith(mediaType)
+          .expectBody(ProductPage.class).isEqualTo(expectedPage);
+    }
+  }
+
+  @Test
+  void getProductPage_whenAcceptIsProtobuf_writePageMessage() throws IOException {
+    ProductPage expectedPage = new ProductPage(expectedProducts, "next");
+    when(productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, null, ProductFields.ALL))
+        .thenReturn(Mono.just(expectedPage));
+
+    byte[] body = client.get().uri("/").accept(MediaType.asMediaType(ProductProtobuf.MIME_TYPE)).exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.asMediaType(ProductProtobuf.MIME_TYPE))
+        .expectBody(byte[].class).returnResult().getResponseBody();
+
+    CodedInputStream input = CodedInputStream.newInstance(body);
+    List<Product> content = new ArrayList<>();
+    String nextCursor = null;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (WireFormat.getTagFieldNumber(tag) == 1) {
+        content.add(ProductProtobuf.readDelimitedFrom(input));
+      } else {
+        nextCursor = input.readString();
+      }
+    }
+    assertThat(new ProductPage(content, nextCursor)).isEqualTo(expectedPage);
+  }
+
+  @Test
+  void searchByTitle_whenAcceptIsBinary_encodeInRequestedFormat() {
+    when(productService.searchByTitle("apple", ProductFields.ALL)).thenReturn(Flux.fromIterable(expectedProducts));
+
+    for (String mediaType : Arrays.asList("application/cbor", "application/x-jackson-smile")) {
+      client.get().uri("/search/{title}", "apple").accept(MediaType.parseMediaType(mediaType)).exchange()
+          .expectStatus().isOk()
+          .expectHeader().contentTypeCompatibleWith(mediaType)
+          .expectBody(new ParameterizedTypeReference<List<Product>>() {}).isEqualTo(expectedProducts);
+    }
+
+    Flux<Product> protobufProducts = client.get().uri("/search/{title}", "apple").accept(MediaType.asMediaType(ProductProtobuf.MIME_TYPE)).exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.asMediaType(ProductProtobuf.MIME_TYPE))
+        .returnResult(Product.class).getResponseBody();
+    StepVerifier
+        .create(protobufProducts)
+        .expectNextSequence(expectedProducts)
+        .verifyComplete();
+  }
+
+  @Test
+  void getProductPage_whenAcceptIsAny_returnJson() {
+    when(productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, null, ProductFields.ALL))
+        .thenReturn(Mono.just(new ProductPage(expectedProducts, null)));
+
+    client.get().uri("/").accept(MediaType.ALL).exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+  }
+
+  @Test
+  void getProductById_whenAcceptIsProtobuf_writeSingleMessage() {
+    Product expectedProduct = expectedProducts.get(0);
+    when(productService.getById(expectedProduct.getId())).thenReturn(Mono.just(expectedProduct));
+
+    client.get().uri("/{id}", expectedProduct.getId()).accept(MediaType.asMediaType(ProductProtobuf.MIME_TYPE)).exchange()
+        .expectStatus().isOk()
+        .expectBody(byte[].class).isEqualTo(ProductProtobuf.toByteArray(expectedProduct, false));
+  }
+
+  @Test
+  void addProduct_whenContentTypeIsCbor_decodeBody() {
+    Product product = expectedProducts.get(0);
+    when(productService.create(any())).thenReturn(Mono.just(product));
+
+    client.post().uri("/").contentType(MediaType.parseMediaType("application/cbor")).accept(MediaType.APPLICATION_JSON)
+        .bodyValue(product).exchange()
+        .expectStatus().isCreated()
+        .expectBody(Product.class).isEqualTo(product);
+  }
+
+  @Test
+  void streamAllProducts_whenAcceptNdjson_streamEachProduct() {
+    when(productService.streamAll(ProductFilter.NONE, null, ProductFields.ALL)).thenReturn(Flux.fromIterable(expectedProducts));
+
+    Flux<Product> actual = client.get().uri("/").accept(MediaType.APPLICATION_NDJSON).exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+        .returnResult(Product.class).getResponseBody();
+
+    StepVerifier
+        .create(actual)
+        .expectNextSequence(expectedProducts)
+        .verifyComplete();
+  }
+
+  @Test
+  void streamAllProducts_whenAcceptEventStream_streamEachProduct() {
+    when(productService.streamAll(ProductFilter.NONE, null, ProductFields.ALL)).thenReturn(Flux.fromIterable(expectedProducts));
+
+    Flux<Product> actual = client.get().uri("/").accept(MediaType.TEXT_EVENT_STREAM).exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+        .returnResult(Product.class).getResponseBody();
+
+    StepVerifier
+        .create(actual)
+        .expectNextSequence(expectedProducts)
+        .verifyComplete();
+  }
+
+  @Test
+  void getProductPage() {
+    ProductPage expectedPage = new ProductPage(expectedProducts.subList(0, 2), "next");
+    when(productService.getPage(ProductOrder.ascending(ProductSort.PRICE), ProductFilter.NONE, "cursor", 2, ProductFields.ALL)).thenReturn(Mono.just(expectedPage));
+
+    client.get().uri("/?size={size}&cursor={cursor}&sort={sort}", 2, "cursor", "price").exchange()
+        .expectStatus().isOk()
+        .expectBody(ProductPage.class).isEqualTo(expectedPage);
+  }
+
+  @Test
+  void getProductPage_whenFilteredAndSorted_passFilterAndOrder() {
+    ProductPage cheapProducts = new ProductPage(Arrays.asList(expectedProducts.get(0), expectedProducts.get(2)), null);
+    when(productService.getPage(ProductOrder.parse("-price"), ProductFilter.of(100.0, 1500.0, "sam"), null, null, ProductFields.ALL))
+        .thenReturn(Mono.just(cheapProducts));
+
+    client.get().uri("/?minPrice={min}&maxPrice={max}&titlePrefix={prefix}&sort={sort}", 100, 1500, "sam", "-price").exchange()
+        .expectStatus().isOk()
+        .expectBody(ProductPage.class).isEqualTo(cheapProducts);
+  }
+
+  @Test
+  void getProductPage_whenPriceRangeIsInverted_returnBadRequest() {
+    client.get().uri("/?minPrice={min}&maxPrice={max}", 500, 100).exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void getProductPage_whenSortIsDescending_passDescendingOrder() {
+    ProductPage expectedPage = new ProductPage(expectedProducts.subList(0, 1), null);
+    when(productService.getPage(ProductOrder.parse("-title"), ProductFilter.of(null, 2000.0, null), null, 1, ProductFields.ALL))
+        .thenReturn(Mono.just(expectedPage));
+
+    client.get().uri("/?size={size}&sort={sort}&maxPrice={max}", 1, "-title", 2000).exchange()
+        .expectStatus().isOk()
+        .expectBody(ProductPage.class).isEqualTo(expectedPage);
+  }
+
+  @Test
+  void getProductPage_whenSortIsUnsupported_returnBadRequest() {
+    client.get().uri("/?size={size}&sort={sort}", 2, "description").exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void getProductPage_whenCursorIsMalformed_returnBadRequest() {
+    when(productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, "bad", 2, ProductFields.ALL)).thenReturn(Mono.error(new InvalidRequestException("Malformed cursor")));
+
+    client.get().uri("/?size={size}&cursor={cursor}", 2, "bad").exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void getProductPage_whenServiceFailsWithOtherIllegalArgument_returnServerError() {
+    when(productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, "bad", 2, ProductFields.ALL))
+        .thenReturn(Mono.error(new IllegalArgumentException("Bug")));
+
+    client.get().uri("/?size={size}&cursor={cursor}", 2, "bad").exchange()
+        .expectStatus().is5xxServerError();
+  }
+
+  @Test
+  void getProductById_whenFieldsGiven_projectCachedProduct() {
+    Product expectedProduct = expectedProducts.get(0).toBuilder().version(1L).build();
+    when(productService.getById(expectedProduct.getId())).thenReturn(Mono.just(expectedProduct));
+
+    client.get().uri("/{id}?fields={fields}", expectedProduct.getId(), "title").exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+        .expectBody()
+        .jsonPath("$.id").isEqualTo(expectedProduct.getId())
+        .jsonPath("$.title").isEqualTo(expectedProduct.getTitle())
+        .jsonPath("$.description").doesNotExist()
+        .jsonPath("$.price").doesNotExist();
+  }
+
+  @Test
+  void exportProducts_returnSnapshotAttachment() {
+    byte[] snapshot = {31, -117, 8, 0};
+    when(productSnapshotService.export(any())).thenReturn(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(snapshot)));
+
+    client.get().uri("/export").exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentType(ProductSnapshots.MEDIA_TYPE)
+        .expectHeader().valueEquals(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + ProductSnapshots.FILE_NAME + "\"")
+        .expectBody(byte[].class).isEqualTo(snapshot);
+  }
+
+  @Test
+  void importProducts_returnImportResult() {
+    when(productSnapshotService.importSnapshot(any(Flux.class))).thenReturn(Mono.just(new SnapshotImportResult(2, 1)));
+
+    client.post().uri("/import").contentType(ProductSnapshots.MEDIA_TYPE).bodyValue(new byte[] {31, -117, 8, 0}).exchange()
+        .expectStatus().isOk()
+        .expectBody(SnapshotImportResult.class).isEqualTo(new SnapshotImportResult(2, 1));
+  }
+
+  @Test
+  void getProductById_whenCircuitIsOpen_returnServiceUnavailable() {
+    CallNotPermittedException open = CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("products"));
+    when(productService.getById("1")).thenReturn(Mono.error(open));
+
+    client.get().uri("/{id}", "1").exchange()
+        .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
   }
 
   @Test
@@ -56,6 +358,39 @@ class ProductControllerTest {
         .expectBody(Product.class).isEqualTo(expectedProduct);
   }
 
+  @Test
+  void getProductById_whenProductHasVersion_returnETag() {
+    Product expectedProduct = expectedProducts.get(0).toBuilder().version(3L).build();
+    when(productService.getById(expectedProduct.getId())).thenReturn(Mono.just(expectedProduct));
+
+    client.get().uri("/{id}", expectedProduct.getId()).exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"");
+  }
+
+  @Test
+  void getProductById_whenIfNoneMatchIsCurrent_returnNotModified() {
+    Product expectedProduct = expectedProducts.get(0);
+    when(productService.getVersion(expectedProduct.getId())).thenReturn(Mono.just(3L));
+
+    client.get().uri("/{id}", expectedProduct.getId()).header(HttpHeaders.IF_NONE_MATCH, "W/\"3\"").exchange()
+        .expectStatus().isNotModified()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+        .expectBody().isEmpty();
+  }
+
+  @Test
+  void getProductById_whenIfNoneMatchIsStale_returnProduct() {
+    Product expectedProduct = expectedProducts.get(0).toBuilder().version(4L).build();
+    when(productService.getVersion(expectedProduct.getId())).thenReturn(Mono.just(4L));
+    when(productService.getById(expectedProduct.getId())).thenReturn(Mono.just(expectedProduct));
+
+    client.get().uri("/{id}", expectedProduct.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"3\"").exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"")
+        .expectBody(Product.class).isEqualTo(expectedProduct);
+  }
+
   @Test
   void getProductById_whenProductNotExist_returnNotFound() {
     String id = "NOT_EXIST_ID";
@@ -65,17 +400,117 @@ class ProductControllerTest {
         .expectStatus().isNotFound();
   }
 
+  @Test
+  void getProductsById_returnProductsAndMissingIds() {
+    MultiGetResult expectedResult = new MultiGetResult(Arrays.asList(expectedProducts.get(1), expectedProducts.get(0)),
+        Collections.singletonList("4"));
+    when(productService.getAllById(Arrays.asList("2", "4", "1"), ProductFields.ALL)).thenReturn(Mono.just(expectedResult));
+
+    client.post().uri("/_mget").bodyValue(new MultiGetRequest(Arrays.asList("2", "4", "1"))).exchange()
+        .expectStatus().isOk()
+        .expectBody(MultiGetResult.class).isEqualTo(expectedResult);
+  }
+
+  @Test
+  void getProductsById_whenIdsAreEmpty_returnBadRequest() {
+    client.post().uri("/_mget").bodyValue(new MultiGetRequest(Collections.emptyList())).exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void getStatistics() {
+    ProductStatistics statistics = new ProductStatistics(3, 799.99, 2599.99, 1499.99,
+        Arrays.asList(new PriceBucket(0, 1000.0, 1), new PriceBucket(1000, null, 2)), Instant.parse("2021-09-01T10:15:30Z"));
+    when(productService.getStatistics()).thenReturn(Mono.just(statistics));
+
+    client.get().uri("/stats").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.count").isEqualTo(3)
+        .jsonPath("$.minPrice").isEqualTo(799.99)
+        .jsonPath("$.priceHistogram[1].from").isEqualTo(1000.0)
+        .jsonPath("$.priceHistogram[1].to").doesNotExist()
+        .jsonPath("$.reconciledAt").exists();
+  }
+
+  @Test
+  void getStatistics_whenAcceptIsProtobuf_returnNotAcceptable() {
+    when(productService.getStatistics()).thenReturn(Mono.just(new ProductStatistics(0, null, null, null,
+        Collections.emptyList(), Instant.parse("2021-09-01T10:15:30Z"))));
+
+    client.get().uri("/stats").accept(MediaType.asMediaType(ProductProtobuf.MIME_TYPE)).exchange()
+        .expectStatus().isEqualTo(HttpStatus.NOT_ACCEPTABLE);
+  }
+
+  @Test
+  void getStatistics_whenNotComputedYet_returnServiceUnavailable() {
+    when(productService.getStatistics()).thenReturn(Mono.empty());
+
+    client.get().uri("/stats").exchange()
+        .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+        .expectHeader().exists(HttpHeaders.RETRY_AFTER);
+  }
+
   @Test
   void searchByTitle() {
     String title = "apple";
     List<Product> expectedFilteredProducts = Arrays.asList(expectedProducts.get(0), expectedProducts.get(1));
-    when(productService.searchByTitle(title)).thenReturn(Flux.fromIterable(expectedFilteredProducts));
+    when(productService.searchByTitle(title, ProductFields.ALL)).thenReturn(Flux.fromIterable(expectedFilteredProducts));
 
     client.get().uri("/search/{title}", title).exchange()
         .expectStatus().isOk()
         .expectBodyList(Product.class).isEqualTo(expectedFilteredProducts);
   }
 
+  @Test
+  void streamByTitle_whenAcceptNdjson_streamEachProduct() {
+    String title = "apple";
+    List<Product> expectedFilteredProducts = Arrays.asList(expectedProducts.get(0), expectedProducts.get(1));
+    when(productService.streamByTitle(title, ProductFields.ALL)).thenReturn(Flux.fromIterable(expectedFilteredProducts));
+
+    Flux<Product> actual = client.get().uri("/search/{title}", title).accept(MediaType.APPLICATION_NDJSON).exchange()
+        .expectStatus().isOk()
+        .returnResult(Product.class).getResponseBody();
+
+    StepVerifier
+        .create(actual)
+        .expectNextSequence(expectedFilteredProducts)
+        .verifyComplete();
+  }
+
+  @Test
+  void productChanges_whenLastEventIdIsGiven_resumeFeed() {
+    Product product = expectedProducts.get(0);
+    ServerSentEvent<ProductChange> event = ServerSentEvent.<ProductChange>builder()
+        .id("token-2")
+        .event("insert")
+        .data(new ProductChange("insert", product.getId(), product))
+        .build();
+    when(productChangeFeed.changes("token-1")).thenReturn(Flux.just(event));
+
+    Flux<ServerSentEvent<ProductChange>> actual = client.get().uri("/changes")
+        .accept(MediaType.TEXT_EVENT_STREAM)
+        .header("Last-Event-ID", "token-1")
+        .exchange()
+        .expectStatus().isOk()
+        .returnResult(new ParameterizedTypeReference<ServerSentEvent<ProductChange>>() {})
+        .getResponseBody();
+
+    StepVerifier
+        .create(actual)
+        .expectNextMatches(actualEvent -> "token-2".equals(actualEvent.id()) && "insert".equals(actualEvent.event())
+            && product.equals(actualEvent.data().getProduct()))
+        .verifyComplete();
+  }
+
+  @Test
+  void productChanges_whenLastEventIdIsMalformed_returnBadRequest() {
+    when(productChangeFeed.changes("bad")).thenThrow(new InvalidRequestException("Malformed event id"));
+
+    client.get().uri("/changes").accept(MediaType.TEXT_EVENT_STREAM).header("Last-Event-ID", "bad").exchange()
+        .expectStatus().isBadRequest();
+  }
+
   @Test
   void addProduct() {
     Product expectedProduct = expectedProducts.get(0);
@@ -86,21 +521,57 @@ class ProductControllerTest {
         .expectBody(Product.class).isEqualTo(expectedProduct);
   }
 
+  @Test
+  void bulkCreateProducts_streamChunkResults() {
+    BulkChunkResult expectedResult = new BulkChunkResult(0, Arrays.asList(
+        new BulkItemResult(0, "1", Status.CREATED, null),
+        new BulkItemResult(1, null, Status.INVALID, "'price' is required")));
+    when(productBulkService.create(any())).thenAnswer(invocation -> invocation.<Flux<Product>>getArgument(0)
+        .collectList()
+        .filter(products -> products.size() == 2)
+        .map(products -> expectedResult)
+        .flux());
+
+    Flux<BulkChunkResult> actual = client.post().uri("/bulk")
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .accept(MediaType.APPLICATION_NDJSON)
+        .body(Flux.fromIterable(expectedProducts.subList(0, 2)), Product.class)
+        .exchange()
+        .expectStatus().isOk()
+        .returnResult(BulkChunkResult.class).getResponseBody();
+
+    StepVerifier
+        .create(actual)
+        .expectNext(expectedResult)
+        .verifyComplete();
+  }
+
   @Test
   void updateProduct_whenProductExists_performUpdate() {
     Product expectedProduct = expectedProducts.get(0);
-    when(productService.update(expectedProduct.getId(), expectedProduct)).thenReturn(Mono.just(expectedProduct));
+    when(productService.update(expectedProduct.getId(), expectedProduct, null)).thenReturn(Mono.just(expectedProduct));
 
     client.put().uri("/{id}", expectedProduct.getId()).body(Mono.just(expectedProduct), Product.class).exchange()
         .expectStatus().isOk()
         .expectBody(Product.class).isEqualTo(expectedProduct);
   }
 
+  @Test
+  void updateProduct_whenIfMatchIsStale_returnPreconditionFailed() {
+    Product expectedProduct = expectedProducts.get(0);
+    when(productService.update(expectedProduct.getId(), expectedProduct, Collections.singletonList(3L)))
+        .thenReturn(Mono.error(new OptimisticLockingFailureException("modified")));
+
+    client.put().uri("/{id}", expectedProduct.getId()).header(HttpHeaders.IF_MATCH, "\"3\"")
+        .body(Mono.just(expectedProduct), Product.class).exchange()
+        .expectStatus().isEqualTo(412);
+  }
+
   @Test
   void updateProduct_whenProductNotExist_returnNotFound() {
     String id = "NOT_EXIST_ID";
     Product expectedProduct = expectedProducts.get(0);
-    when(productService.update(id, expectedProduct)).thenReturn(Mono.empty());
+    when(productService.update(id, expectedProduct, null)).thenReturn(Mono.empty());
 
     client.put().uri("/{id}", id).body(Mono.just(expectedProduct), Product.class).exchange()
         .expectStatus().isNotFound();
@@ -109,16 +580,26 @@ class ProductControllerTest {
   @Test
   void deleteProduct_whenProductExists_performDeletion() {
     Product productToDelete = expectedProducts.get(0);
-    when(productService.deleteById(productToDelete.getId())).thenReturn(Mono.just(productToDelete));
+    when(productService.deleteById(productToDelete.getId(), null)).thenReturn(Mono.just(productToDelete));
 
     client.delete().uri("/{id}", productToDelete.getId()).exchange()
         .expectStatus().isOk();
   }
 
+  @Test
+  void deleteProduct_whenIfMatchIsStale_returnPreconditionFailed() {
+    Product productToDelete = expectedProducts.get(0);
+    when(productService.deleteById(productToDelete.getId(), Collections.singletonList(3L)))
+        .thenReturn(Mono.error(new OptimisticLockingFailureException("modified")));
+
+    client.delete().uri("/{id}", productToDelete.getId()).header(HttpHeaders.IF_MATCH, "\"3\"").exchange()
+        .expectStatus().isEqualTo(412);
+  }
+
   @Test
   void deleteProduct_whenIdNotExist_returnNotFound() {
     Product productToDelete = expectedProducts.get(0);
-    when(productService.deleteById(productToDelete.getId())).thenReturn(Mono.empty());
+    when(productService.deleteById(productToDelete.getId(), null)).thenReturn(Mono.empty());
 
     client.delete().uri("/{id}", productToDelete.getId()).exchange()
         .expectStatus().isNotFound();
@@ -0,0 +1,293 @@
+package dev.iseif.reactiverestapi.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.iseif.reactiverestapi.codec.ProductProtobuf;
+import dev.iseif.reactiverestapi.config.CodecConfiguration;
+import dev.iseif.reactiverestapi.model.BulkChunkResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult.Status;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.MultiGetRequest;
+import dev.iseif.reactiverestapi.model.MultiGetResult;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductPage;
+import dev.iseif.reactiverestapi.model.ProductSort;
+import dev.iseif.reactiverestapi.service.ProductBulkService;
+import dev.iseif.reactiverestapi.service.ProductChangeFeed;
+import dev.iseif.reactiverestapi.service.ProductService;
+import dev.iseif.reactiverestapi.service.ProductSnapshotService;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+class ProductRouterTest {
+
+  @Mock
+  private ProductService productService;
+  @Mock
+  private ProductBulkService productBulkService;
+  @Mock
+  private ProductChangeFeed productChangeFeed;
+  @Mock
+  private ProductSnapshotService productSnapshotService;
+  private WebTestClient client;
+  private List<Product> expectedProducts;
+
+  @BeforeEach
+  void setUp() {
+    CodecCustomizer codecs = new CodecConfiguration()
+        .binaryCodecsCustomizer(Jackson2ObjectMapperBuilder.json().build(), Jackson2ObjectMapperBuilder.json());
+    ServerCodecConfigurer codecConfigurer = ServerCodecConfigurer.create();
+    codecs.customize(codecConfigurer);
+    ProductHandler handler = new ProductHandler(productService, productBulkService, productChangeFeed, productSnapshotService,
+        Validation.buildDefaultValidatorFactory().getValidator(), codecConfigurer);
+    client = WebTestClient
+        .bindToRouterFunction(new ProductRouter().productRoutes(handler))
+        .handlerStrategies(HandlerStrategies.builder().codecs(codecs::customize).build())
+        .configureClient()
+        .codecs(codecs::customize)
+        .baseUrl("/api/products")
+        .build();
+
+    expectedProducts = Arrays.asList(
+        Product.builder().id("1").title("Apple iPhone XS Max").description("New iPhone XS Max").price(1099.99).build(),
+        Product.builder().id("2").title("Apple MacBook Pro").description("New MacBook").price(2599.99).build(),
+        Product.builder().id("3").title("Samsung Galaxy S10+").description("New Galaxy!!").price(799.99).build());
+  }
+
+  @Test
+  void getProductPage_whenAcceptIsAnyAndSizeIsAbsent_returnFirstPage() {
+    ProductPage expectedPage = new ProductPage(expectedProducts, "next");
+    when(productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, null, ProductFields.ALL))
+        .thenReturn(Mono.just(expectedPage));
+
+    client.get().uri("/").accept(MediaType.ALL).exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+        .expectBody(ProductPage.class).isEqualTo(expectedPage);
+  }
+
+  @Test
+  void getProductPage_whenPriceRangeIsInverted_returnBadRequest() {
+    client.get().uri("/?minPrice={min}&maxPrice={max}", 500, 100).exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void getProductPage_whenNumberIsMalformed_returnBadRequest() {
+    client.get().uri("/?size={size}", "ten").exchange()
+        .expectStatus().isBadRequest();
+
+    client.get().uri("/?minPrice={min}", "cheap").exchange()
+        .expectStatus().isBadRequest();
+
+    verify(productService, never()).getPage(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void streamAllProducts_whenAcceptNdjson_streamEachProduct() {
+    when(productService.streamAll(ProductFilter.NONE, null, ProductFields.ALL)).thenReturn(Flux.fromIterable(expectedProducts));
+
+    Flux<Product> actual = client.get().uri("/").accept(MediaType.APPLICATION_NDJSON).exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+        .returnResult(Product.class).getResponseBody();
+
+    StepVerifier
+        .create(actual)
+        .expectNextSequence(expectedProducts)
+        .verifyComplete();
+  }
+
+  @Test
+  void getProductPage() {
+    ProductPage expectedPage = new ProductPage(expectedProducts.subList(0, 2), "next");
+    when(productService.getPage(ProductOrder.ascending(ProductSort.PRICE), ProductFilter.NONE, "cursor", 2, ProductFields.ALL))
+        .thenReturn(Mono.just(expectedPage));
+
+    client.get().uri("/?size={size}&cursor={cursor}&sort={sort}", 2, "cursor", "price").exchange()
+        .expectStatus().isOk()
+        .expectBody(ProductPage.class).isEqualTo(expectedPage);
+  }
+
+  @Test
+  void getProductById_whenProductHasVersion_returnProductWithETag() {
+    Product expectedProduct = expectedProducts.get(0).toBuilder().version(3L).build();
+    when(productService.getById(expectedProduct.getId())).thenReturn(Mono.just(expectedProduct));
+
+    client.get().uri("/{id}", expectedProduct.getId()).exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+        .expectBody(Product.class).isEqualTo(expectedProduct);
+  }
+
+  @Test
+  void getProductById_whenAcceptIsProtobuf_writeSingleMessage() {
+    Product expectedProduct = expectedProducts.get(0);
+    when(productService.getById(expectedProduct.getId())).thenReturn(Mono.just(expectedProduct));
+
+    client.get().uri("/{id}", expectedProduct.getId()).accept(MediaType.asMediaType(ProductProtobuf.MIME_TYPE)).exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.asMediaType(ProductProtobuf.MIME_TYPE))
+        .expectBody(Product.class).isEqualTo(expectedProduct);
+  }
+
+  @Test
+  void getProductById_whenIfNoneMatchIsCurrent_returnNotModified() {
+    when(productService.getVersion("1")).thenReturn(Mono.just(3L));
+
+    client.get().uri("/{id}", "1").header(HttpHeaders.IF_NONE_MATCH, "W/\"3\"").exchange()
+        .expectStatus().isNotModified()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+        .expectBody().isEmpty();
+  }
+
+  @Test
+  void getProductById_whenProductNotExist_returnNotFound() {
+    when(productService.getById("NOT_EXIST_ID")).thenReturn(Mono.empty());
+
+    client.get().uri("/{id}", "NOT_EXIST_ID").exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  void getProductById_whenCircuitIsOpen_returnServiceUnavailable() {
+    CallNotPermittedException open = CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("products"));
+    when(productService.getById("1")).thenReturn(Mono.error(open));
+
+    client.get().uri("/{id}", "1").exchange()
+        .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  @Test
+  void getProductsById_returnProductsAndMissingIds() {
+    MultiGetResult expectedResult = new MultiGetResult(Arrays.asList(expectedProducts.get(1), expectedProducts.get(0)),
+        Collections.singletonList("4"));
+    when(productService.getAllById(Arrays.asList("2", "4", "1"), ProductFields.ALL)).thenReturn(Mono.just(expectedResult));
+
+    client.post().uri("/_mget").bodyValue(new MultiGetRequest(Arrays.asList("2", "4", "1"))).exchange()
+        .expectStatus().isOk()
+        .expectBody(MultiGetResult.class).isEqualTo(expectedResult);
+  }
+
+  @Test
+  void getProductsById_whenIdsAreEmpty_returnBadRequest() {
+    client.post().uri("/_mget").bodyValue(new MultiGetRequest(Collections.emptyList())).exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void getStatistics_whenNotComputedYet_returnServiceUnavailable() {
+    when(productService.getStatistics()).thenReturn(Mono.empty());
+
+    client.get().uri("/stats").exchange()
+        .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+        .expectHeader().exists(HttpHeaders.RETRY_AFTER);
+  }
+
+  @Test
+  void productChanges_whenLastEventIdIsMalformed_returnBadRequest() {
+    when(productChangeFeed.changes("bad")).thenThrow(new InvalidRequestException("Malformed event id"));
+
+    client.get().uri("/changes").accept(MediaType.TEXT_EVENT_STREAM).header("Last-Event-ID", "bad").exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void addProduct_returnCreatedProductWithLocation() {
+    Product expectedProduct = expectedProducts.get(0).toBuilder().version(0L).build();
+    when(productService.create(expectedProducts.get(0).toBuilder().id(null).build())).thenReturn(Mono.just(expectedProduct));
+
+    client.post().uri("/").body(Mono.just(expectedProducts.get(0)), Product.class).exchange()
+        .expectStatus().isCreated()
+        .expectHeader().valueEquals(HttpHeaders.LOCATION, "/products/" + expectedProduct.getId())
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+        .expectBody(Product.class).isEqualTo(expectedProduct);
+  }
+
+  @Test
+  void addProduct_whenProductIsInvalid_returnBadRequest() {
+    Product invalidProduct = Product.builder().title("No price").build();
+
+    client.post().uri("/").body(Mono.just(invalidProduct), Product.class).exchange()
+        .expectStatus().isBadRequest();
+
+    verify(productService, never()).create(any());
+  }
+
+  @Test
+  void bulkCreateProducts_streamChunkResults() {
+    BulkChunkResult expectedResult = new BulkChunkResult(0, Collections.singletonList(new BulkItemResult(0, "1", Status.CREATED, null)));
+    when(productBulkService.create(any())).thenReturn(Flux.just(expectedResult));
+
+    Flux<BulkChunkResult> actual = client.post().uri("/bulk")
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .accept(MediaType.APPLICATION_NDJSON)
+        .body(Flux.just(expectedProducts.get(0)), Product.class)
+        .exchange()
+        .expectStatus().isOk()
+        .returnResult(BulkChunkResult.class).getResponseBody();
+
+    StepVerifier
+        .create(actual)
+        .expectNext(expectedResult)
+        .verifyComplete();
+  }
+
+  @Test
+  void updateProduct_whenIfMatchIsStale_returnPreconditionFailed() {
+    Product expectedProduct = expectedProducts.get(0);
+    when(productService.update(expectedProduct.getId(), expectedProduct, Collections.singletonList(3L)))
+        .thenReturn(Mono.error(new OptimisticLockingFailureException("modified")));
+
+    client.put().uri("/{id}", expectedProduct.getId()).header(HttpHeaders.IF_MATCH, "\"3\"")
+        .body(Mono.just(expectedProduct), Product.class).exchange()
+        .expectStatus().isEqualTo(412);
+  }
+
+  @Test
+  void updateProduct_whenProductNotExist_returnNotFound() {
+    Product expectedProduct = expectedProducts.get(0);
+    when(productService.update("NOT_EXIST_ID", expectedProduct, null)).thenReturn(Mono.empty());
+
+    client.put().uri("/{id}", "NOT_EXIST_ID").body(Mono.just(expectedProduct), Product.class).exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  void deleteProduct_whenProductExists_performDeletion() {
+    Product productToDelete = expectedProducts.get(0);
+    when(productService.deleteById(productToDelete.getId(), null)).thenReturn(Mono.just(productToDelete));
+
+    client.delete().uri("/{id}", productToDelete.getId()).exchange()
+        .expectStatus().isOk();
+  }
+}
@@ -0,0 +1,128 @@
+package dev.iseif.reactiverestapi.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class RateLimitingWebFilterTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final WebFilterChain completingChain = exchange -> Mono.empty();
+  private ProductProperties productProperties;
+
+  @BeforeEach
+  void setUp() {
+    productProperties = new ProductProperties();
+    productProperties.getRateLimit().setRequestsPerSecond(10);
+    productProperties.getRateLimit().setBurst(2);
+  }
+
+  @Test
+  void filter_whenBurstIsExhausted_returnTooManyRequestsUntilRefill() {
+    RateLimitingWebFilter filter = filter();
+
+    assertThat(status(filter, exchange("/api/products", "10.0.0.1"))).isNull();
+    assertThat(status(filter, exchange("/api/products", "10.0.0.1"))).isNull();
+    MockServerWebExchange rejected = exchange("/api/products", "10.0.0.1");
+    assertThat(status(filter, rejected)).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(status(filter, exchange("/api/products", "10.0.0.1"))).isNull();
+    assertThat(meterRegistry.get(RateLimitingWebFilter.REJECTIONS_METRIC).tag("reason", "rate").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void filter_whenClientsDiffer_keepSeparateBuckets() {
+    RateLimitingWebFilter filter = filter();
+
+    status(filter, exchange("/api/products", "10.0.0.1"));
+    status(filter, exchange("/api/products", "10.0.0.1"));
+
+    assertThat(status(filter, exchange("/api/products", "10.0.0.2"))).isNull();
+  }
+
+  @Test
+  void filter_whenClientHeaderIsSet_identifyClientByHeader() {
+    productProperties.getRateLimit().setClientHeader("X-Api-Key");
+    RateLimitingWebFilter filter = filter();
+
+    status(filter, exchange("/api/products", "10.0.0.1", "key-1"));
+    status(filter, exchange("/api/products", "10.0.0.2", "key-1"));
+
+    assertThat(status(filter, exchange("/api/products", "10.0.0.3", "key-1"))).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    assertThat(status(filter, exchange("/api/products", "10.0.0.1", "key-2"))).isNull();
+  }
+
+  @Test
+  void filter_whenEndpointIsAtInFlightLimit_returnServiceUnavailable() {
+    productProperties.getRateLimit().setBurst(10);
+    productProperties.getRateLimit().getMaxInFlight().put("search", 1);
+    RateLimitingWebFilter filter = filter();
+    Sinks.Empty<Void> pending = Sinks.empty();
+
+    filter.filter(exchange("/api/products/search/phone", "10.0.0.1"), exchange -> pending.asMono()).subscribe();
+    MockServerWebExchange rejected = exchange("/api/products/search/phone", "10.0.0.2");
+    assertThat(status(filter, rejected)).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    assertThat(status(filter, exchange("/api/products/1", "10.0.0.2"))).isNull();
+
+    pending.tryEmitEmpty();
+    assertThat(status(filter, exchange("/api/products/search/phone", "10.0.0.2"))).isNull();
+  }
+
+  @Test
+  void filter_whenPathIsOutsideProductApi_skipLimits() {
+    RateLimitingWebFilter filter = filter();
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(status(filter, exchange("/actuator/health", "10.0.0.1"))).isNull();
+    }
+  }
+
+  @Test
+  void filter_whenDisabled_passThrough() {
+    productProperties.getRateLimit().setEnabled(false);
+    RateLimitingWebFilter filter = filter();
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(status(filter, exchange("/api/products", "10.0.0.1"))).isNull();
+    }
+  }
+
+  private RateLimitingWebFilter filter() {
+    return new RateLimitingWebFilter(productProperties, meterRegistry, now::get);
+  }
+
+  private HttpStatus status(RateLimitingWebFilter filter, MockServerWebExchange exchange) {
+    filter.filter(exchange, completingChain).block();
+    return exchange.getResponse().getStatusCode();
+  }
+
+  private static MockServerWebExchange exchange(String path, String address) {
+    return exchange(path, address, null);
+  }
+
+  private static MockServerWebExchange exchange(String path, String address, String apiKey) {
+    MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path)
+        .remoteAddress(new InetSocketAddress(address, 8080));
+    if (apiKey != null) {
+      request.header("X-Api-Key", apiKey);
+    }
+    return MockServerWebExchange.from(request);
+  }
+}
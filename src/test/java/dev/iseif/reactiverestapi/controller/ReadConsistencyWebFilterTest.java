@@ -0,0 +1,135 @@
+package dev.iseif.reactiverestapi.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.repository.ProductReadRouting;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+class ReadConsistencyWebFilterTest {
+
+  private static final String TOKEN_HEADER = "X-Consistency-Token";
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  private final AtomicBoolean pinned = new AtomicBoolean();
+  private final WebFilterChain recordingChain = exchange -> Mono.deferContextual(context -> {
+    pinned.set(ProductReadRouting.isPinnedToPrimary(context));
+    return exchange.getResponse().setComplete();
+  });
+  private ProductProperties productProperties;
+
+  @BeforeEach
+  void setUp() {
+    productProperties = new ProductProperties();
+    productProperties.getReadRouting().setEnabled(true);
+  }
+
+  @Test
+  void filter_whenWriteSucceeds_returnToken() {
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/products"));
+
+    filter().filter(exchange, recordingChain).block();
+
+    assertThat(exchange.getResponse().getHeaders().getFirst(TOKEN_HEADER)).isEqualTo("1000000");
+    assertThat(pinned).isFalse();
+  }
+
+  @Test
+  void filter_whenWriteFails_returnNoToken() {
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.put("/api/products/1"));
+
+    filter().filter(exchange, failed -> {
+      failed.getResponse().setStatusCode(HttpStatus.PRECONDITION_FAILED);
+      return failed.getResponse().setComplete();
+    }).block();
+
+    assertThat(exchange.getResponse().getHeaders().containsKey(TOKEN_HEADER)).isFalse();
+  }
+
+  @Test
+  void filter_whenMultiGet_treatAsRead() {
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/products/_mget"));
+
+    filter().filter(exchange, recordingChain).block();
+
+    assertThat(exchange.getResponse().getHeaders().containsKey(TOKEN_HEADER)).isFalse();
+  }
+
+  @Test
+  void filter_whenTokenIsWithinMaxStaleness_pinReadToPrimary() {
+    now.addAndGet(89_000);
+
+    read("1000000");
+
+    assertThat(pinned).isTrue();
+  }
+
+  @Test
+  void filter_whenTokenIsOlderThanMaxStaleness_readFromSecondaries() {
+    now.addAndGet(90_000);
+
+    read("1000000");
+
+    assertThat(pinned).isFalse();
+  }
+
+  @Test
+  void filter_whenTokenIsAheadWithinClockSkew_pinReadToPrimary() {
+    read("1005000");
+
+    assertThat(pinned).isTrue();
+  }
+
+  @Test
+  void filter_whenTokenIsFurtherInTheFuture_readFromSecondaries() {
+    productProperties.getReadRouting().setMaxStaleness(Duration.ZERO);
+
+    read("1005001");
+    assertThat(pinned).isFalse();
+
+    read(Long.toString(Long.MAX_VALUE));
+    assertThat(pinned).isFalse();
+  }
+
+  @Test
+  void filter_whenTokenIsMissingOrMalformed_readFromSecondaries() {
+    read(null);
+    assertThat(pinned).isFalse();
+
+    read("yesterday");
+    assertThat(pinned).isFalse();
+  }
+
+  @Test
+  void filter_whenDisabled_passThrough() {
+    productProperties.getReadRouting().setEnabled(false);
+    MockServerWebExchange write = MockServerWebExchange.from(MockServerHttpRequest.post("/api/products"));
+
+    filter().filter(write, recordingChain).block();
+    read("1000000");
+
+    assertThat(write.getResponse().getHeaders().containsKey(TOKEN_HEADER)).isFalse();
+    assertThat(pinned).isFalse();
+  }
+
+  private void read(String token) {
+    MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/products/search/phone");
+    if (token != null) {
+      request.header(TOKEN_HEADER, token);
+    }
+    filter().filter(MockServerWebExchange.from(request), recordingChain).block();
+  }
+
+  private ReadConsistencyWebFilter filter() {
+    return new ReadConsistencyWebFilter(productProperties, now::get);
+  }
+}
@@ -1,19 +1,33 @@
 package dev.iseif.reactiverestapi.integration.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.iseif.reactiverestapi.model.BulkChunkResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult.Status;
+import dev.iseif.reactiverestapi.model.MultiGetRequest;
+import dev.iseif.reactiverestapi.model.MultiGetResult;
 import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductPage;
 import dev.iseif.reactiverestapi.repository.ProductRepository;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -46,10 +60,71 @@ class ProductControllerTest {
   }
 
   @Test
-  void getAllProducts() {
-    client.get().uri("/").exchange()
+  void getProductPage_whenSizeIsAbsent_returnFirstPage() {
+    ProductPage page = client.get().uri("/").exchange()
+        .expectStatus().isOk()
+        .expectBody(ProductPage.class).returnResult().getResponseBody();
+
+    assertThat(page.getContent()).containsExactlyInAnyOrderElementsOf(expectedProducts);
+    assertThat(page.getNextCursor()).isNull();
+  }
+
+  @Test
+  void getProductPage_whenFilteredAndSorted_returnMatchingProductsInOrder() {
+    client.get().uri("/?maxPrice={max}&sort={sort}", 1500, "-price").exchange()
+        .expectStatus().isOk()
+        .expectBody(ProductPage.class).isEqualTo(new ProductPage(Arrays.asList(expectedProducts.get(0), expectedProducts.get(2)), null));
+
+    client.get().uri("/?titlePrefix={prefix}&sort={sort}", "apple mac", "title").exchange()
+        .expectStatus().isOk()
+        .expectBody(ProductPage.class).isEqualTo(new ProductPage(Arrays.asList(expectedProducts.get(1)), null));
+  }
+
+  @Test
+  void getProductPage_whenFieldsGiven_returnOnlyThoseFields() {
+    ProductFields fields = ProductFields.parse("title,price");
+
+    ProductPage page = client.get().uri("/?fields={fields}", "title,price").exchange()
+        .expectStatus().isOk()
+        .expectBody(ProductPage.class).returnResult().getResponseBody();
+
+    assertThat(page.getContent())
+        .containsExactlyInAnyOrderElementsOf(expectedProducts.stream().map(fields::project).collect(Collectors.toList()));
+  }
+
+  @Test
+  void searchByTitle_whenFieldsGiven_returnOnlyThoseFields() {
+    client.get().uri("/search/{title}?fields={fields}", "galaxy", "price").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$[0].id").isEqualTo(expectedProducts.get(2).getId())
+        .jsonPath("$[0].price").isEqualTo(expectedProducts.get(2).getPrice())
+        .jsonPath("$[0].title").doesNotExist();
+  }
+
+  @Test
+  void streamAllProducts() {
+    Flux<Product> actual = client.get().uri("/").accept(MediaType.APPLICATION_NDJSON).exchange()
+        .expectStatus().isOk()
+        .returnResult(Product.class).getResponseBody();
+
+    StepVerifier
+        .create(actual)
+        .expectNextSequence(expectedProducts)
+        .verifyComplete();
+  }
+
+  @Test
+  void getProductPage_followsCursorToLastPage() {
+    ProductPage firstPage = client.get().uri("/?size={size}", 2).exchange()
+        .expectStatus().isOk()
+        .expectBody(ProductPage.class).returnResult().getResponseBody();
+
+    client.get().uri("/?size={size}&cursor={cursor}", 2, firstPage.getNextCursor()).exchange()
         .expectStatus().isOk()
-        .expectBodyList(Product.class).isEqualTo(expectedProducts);
+        .expectBody()
+        .jsonPath("$.content.length()").isEqualTo(1)
+        .jsonPath("$.nextCursor").doesNotExist();
   }
 
   @Test
@@ -61,6 +136,31 @@ class ProductControllerTest {
         .expectBody(Product.class).isEqualTo(expectedProduct);
   }
 
+  @Test
+  void getProductById_whenIfNoneMatchIsCurrent_returnNotModified() {
+    Product expectedProduct = expectedProducts.get(0);
+    String eTag = client.get().uri("/{id}", expectedProduct.getId()).exchange()
+        .expectStatus().isOk()
+        .returnResult(Product.class).getResponseHeaders().getETag();
+
+    client.get().uri("/{id}", expectedProduct.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag).exchange()
+        .expectStatus().isNotModified();
+  }
+
+  @Test
+  void updateProduct_whenIfMatchIsStale_returnPreconditionFailed() {
+    Product expectedProduct = expectedProducts.get(0);
+    String eTag = client.get().uri("/{id}", expectedProduct.getId()).exchange()
+        .returnResult(Product.class).getResponseHeaders().getETag();
+
+    client.put().uri("/{id}", expectedProduct.getId()).header(HttpHeaders.IF_MATCH, eTag)
+        .body(Mono.just(expectedProduct), Product.class).exchange()
+        .expectStatus().isOk();
+    client.put().uri("/{id}", expectedProduct.getId()).header(HttpHeaders.IF_MATCH, eTag)
+        .body(Mono.just(expectedProduct), Product.class).exchange()
+        .expectStatus().isEqualTo(412);
+  }
+
   @Test
   void getProductById_whenProductNotExist_returnNotFound() {
     String id = "NOT_EXIST_ID";
@@ -69,6 +169,18 @@ class ProductControllerTest {
         .expectStatus().isNotFound();
   }
 
+  @Test
+  void getProductsById_whenSomeAreCached_returnRequestedOrderAndMissingIds() {
+    Product cachedProduct = expectedProducts.get(1);
+    client.get().uri("/{id}", cachedProduct.getId()).exchange().expectStatus().isOk();
+    List<String> ids = Arrays.asList(expectedProducts.get(2).getId(), "NOT_EXIST_ID", cachedProduct.getId(), expectedProducts.get(0).getId());
+
+    client.post().uri("/_mget").bodyValue(new MultiGetRequest(ids)).exchange()
+        .expectStatus().isOk()
+        .expectBody(MultiGetResult.class).isEqualTo(new MultiGetResult(
+            Arrays.asList(expectedProducts.get(2), cachedProduct, expectedProducts.get(0)), Collections.singletonList("NOT_EXIST_ID")));
+  }
+
   @Test
   void searchByTitle() {
     String title = "apple";
@@ -96,6 +208,46 @@ class ProductControllerTest {
         .expectStatus().isBadRequest();
   }
 
+  @Test
+  void bulkCreateProducts_insertValidProducts() {
+    Flux<BulkChunkResult> actual = client.post().uri("/bulk")
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .accept(MediaType.APPLICATION_NDJSON)
+        .body(Flux.just(
+            Product.builder().title("Google Pixel 6").description("New Pixel").price(599.0).build(),
+            Product.builder().title("Google Pixel 6 Pro").description("").price(899.0).build()), Product.class)
+        .exchange()
+        .expectStatus().isOk()
+        .returnResult(BulkChunkResult.class).getResponseBody();
+
+    StepVerifier
+        .create(actual)
+        .expectNextMatches(result -> result.getItems().get(0).getStatus() == Status.CREATED
+            && result.getItems().get(1).getStatus() == Status.INVALID)
+        .verifyComplete();
+    StepVerifier
+        .create(productRepository.count())
+        .expectNext(4L)
+        .verifyComplete();
+  }
+
+  @Test
+  void bulkDeleteProducts_reportMissingProducts() {
+    Flux<BulkChunkResult> actual = client.method(HttpMethod.DELETE).uri("/bulk")
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .accept(MediaType.APPLICATION_NDJSON)
+        .body(Flux.just(expectedProducts.get(0), Product.builder().id("NOT_EXIST_ID").build()), Product.class)
+        .exchange()
+        .expectStatus().isOk()
+        .returnResult(BulkChunkResult.class).getResponseBody();
+
+    StepVerifier
+        .create(actual)
+        .expectNextMatches(result -> result.getItems().get(0).getStatus() == Status.DELETED
+            && result.getItems().get(1).getStatus() == Status.NOT_FOUND)
+        .verifyComplete();
+  }
+
   @Test
   void updateProduct_whenProductExists_performUpdate() {
     Product expectedProduct = expectedProducts.get(0);
@@ -0,0 +1,113 @@
+package dev.iseif.reactiverestapi.integration.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.PageCursor;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductSort;
+import dev.iseif.reactiverestapi.repository.ProductQueries;
+import dev.iseif.reactiverestapi.repository.ProductReadRouting;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+
+/**
+ * Fails when a supported listing query would scan the whole collection.
+ */
+@ExtendWith(SpringExtension.class)
+@DataMongoTest
+@Import(ProductReadRouting.class)
+@EnableConfigurationProperties(ProductProperties.class)
+class ProductQueriesExplainTest {
+
+  private static final String[] ORDERS = {"id", "-id", "price", "-price", "title", "-title"};
+
+  @Autowired
+  private ReactiveMongoTemplate mongoTemplate;
+
+  @BeforeEach
+  void setUp() {
+    // Index creation on startup is asynchronous; create them here so the planner can rely on them
+    IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+        .resolveIndexFor(Product.class)
+        .forEach(index -> mongoTemplate.indexOps(Product.class).ensureIndex(index).block());
+
+    List<Product> products = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      products.add(Product.builder().title("Product " + i).description("Product " + i).price(i + 0.99).build());
+    }
+    mongoTemplate.remove(new Query(), Product.class)
+        .thenMany(Flux.fromIterable(products).flatMap(mongoTemplate::insert))
+        .blockLast();
+  }
+
+  @Test
+  void list_whenFilteredOrSorted_useIndex() {
+    for (ProductFilter filter : filters()) {
+      if (filter != ProductFilter.NONE) {
+        assertNoCollectionScan(ProductQueries.list(filter, null));
+      }
+      for (String order : ORDERS) {
+        assertNoCollectionScan(ProductQueries.list(filter, ProductOrder.parse(order)));
+      }
+    }
+  }
+
+  @Test
+  void page_useIndex() {
+    for (ProductFilter filter : filters()) {
+      for (String sort : ORDERS) {
+        ProductOrder order = ProductOrder.parse(sort);
+        Object value = order.getSort() == ProductSort.PRICE ? (Object) 10.99 : "product 10";
+        PageCursor after = new PageCursor(order, ObjectId.get().toHexString(), value);
+
+        assertNoCollectionScan(ProductQueries.page(order, filter, null, 21));
+        assertNoCollectionScan(ProductQueries.page(order, filter, after, 21));
+      }
+    }
+  }
+
+  private static List<ProductFilter> filters() {
+    List<ProductFilter> filters = new ArrayList<>();
+    filters.add(ProductFilter.NONE);
+    filters.add(ProductFilter.of(null, 500.0, null));
+    filters.add(ProductFilter.of(10.0, 50.0, null));
+    filters.add(ProductFilter.of(null, null, "product 1"));
+    filters.add(ProductFilter.of(10.0, null, "product"));
+    return filters;
+  }
+
+  private void assertNoCollectionScan(Query query) {
+    MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Product.class);
+    QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+    Document find = new Document("find", mongoTemplate.getCollectionName(Product.class))
+        .append("filter", queryMapper.getMappedObject(query.getQueryObject(), entity))
+        .append("sort", queryMapper.getMappedSort(query.getSortObject(), entity));
+    if (query.getLimit() > 0) {
+      find.append("limit", query.getLimit());
+    }
+
+    Document explain = mongoTemplate.executeCommand(new Document("explain", find).append("verbosity", "queryPlanner")).block();
+
+    String winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+    assertThat(winningPlan).as("plan of %s", find.toJson()).doesNotContain("COLLSCAN");
+  }
+}
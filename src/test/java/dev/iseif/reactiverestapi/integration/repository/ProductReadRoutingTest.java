@@ -0,0 +1,112 @@
+package dev.iseif.reactiverestapi.integration.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductSort;
+import dev.iseif.reactiverestapi.repository.ProductReadRouting;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import dev.iseif.reactiverestapi.repository.ProductSearchFieldsCallback;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+/**
+ * Runs against a one-member replica set: there is no secondary, so a read that reaches the server
+ * under the {@code secondary} read preference was pinned to the primary.
+ */
+@ExtendWith(SpringExtension.class)
+@DataMongoTest(properties = {
+    "spring.mongodb.embedded.storage.repl-set-name=rs0",
+    "spring.data.mongodb.replica-set-name=rs0",
+    "products.read-routing.enabled=true",
+    "products.read-routing.read-preference=secondary"})
+@Import({ProductReadRouting.class, ProductSearchFieldsCallback.class, ProductReadRoutingTest.ServerSelectionConfiguration.class})
+@EnableConfigurationProperties(ProductProperties.class)
+class ProductReadRoutingTest {
+
+  private final Product product = Product.builder().title("Apple iPhone XS Max").description("New iPhone XS Max").price(1099.99).build();
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private ReactiveMongoTemplate mongoTemplate;
+
+  @BeforeEach
+  void setUp() {
+    productRepository.deleteAll().block();
+  }
+
+  @Test
+  void findPage_whenNotPinned_readFromSecondaries() {
+    productRepository.save(product).block();
+
+    StepVerifier
+        .create(productRepository.findPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, 10, ProductFields.ALL))
+        .expectErrorSatisfies(error -> assertThat(error).hasMessageContaining("Timed out"))
+        .verify(Duration.ofSeconds(10));
+  }
+
+  @Test
+  void findPage_whenPinnedToPrimary_readOwnWrite() {
+    Product saved = productRepository.save(product).block();
+
+    StepVerifier
+        .create(productRepository.findPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, 10, ProductFields.ALL)
+            .contextWrite(ProductReadRouting::pinToPrimary))
+        .expectNext(saved)
+        .verifyComplete();
+  }
+
+  @Test
+  void searchByTitle_whenPinnedToPrimary_readOwnWrite() {
+    Product saved = productRepository.save(product).block();
+
+    StepVerifier
+        .create(productRepository.searchByTitle("iphone", 10, ProductFields.ALL)
+            .contextWrite(ProductReadRouting::pinToPrimary))
+        .expectNextMatches(found -> found.getId().equals(saved.getId()))
+        .verifyComplete();
+  }
+
+  @Test
+  void queries_whenSecondaryPreferredWithStalenessBound_fallBackToPrimary() {
+    ProductProperties productProperties = new ProductProperties();
+    productProperties.getReadRouting().setEnabled(true);
+    ProductReadRouting readRouting = new ProductReadRouting(mongoTemplate, productProperties);
+    productRepository.save(product).block();
+
+    StepVerifier
+        .create(readRouting.queries(Context.empty()).count(new Query(), Product.class))
+        .expectNext(1L)
+        .verifyComplete();
+  }
+
+  @TestConfiguration
+  static class ServerSelectionConfiguration {
+
+    @Bean
+    MongoClientSettingsBuilderCustomizer serverSelectionTimeout() {
+      return settings -> settings.applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS));
+    }
+  }
+}
@@ -1,17 +1,45 @@
 package dev.iseif.reactiverestapi.integration.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
 import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.ProductPage;
+import dev.iseif.reactiverestapi.model.ProductSort;
+import dev.iseif.reactiverestapi.model.ProductStatistics;
+import dev.iseif.reactiverestapi.model.ProductStatistics.PriceBucket;
+import dev.iseif.reactiverestapi.repository.ProductReadRouting;
 import dev.iseif.reactiverestapi.repository.ProductRepository;
+import dev.iseif.reactiverestapi.repository.ProductSearchFieldsCallback;
+import dev.iseif.reactiverestapi.service.ProductCache;
+import dev.iseif.reactiverestapi.service.ProductCreateBatcher;
+import dev.iseif.reactiverestapi.service.ProductRepositoryGuard;
+import dev.iseif.reactiverestapi.service.ProductSearchCache;
 import dev.iseif.reactiverestapi.service.ProductService;
+import dev.iseif.reactiverestapi.service.ProductStats;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -19,7 +47,9 @@ import reactor.test.StepVerifier;
 
 @ExtendWith(SpringExtension.class)
 @DataMongoTest
-@Import(ProductService.class)
+@Import({ProductService.class, ProductCache.class, ProductSearchCache.class, ProductRepositoryGuard.class, ProductCreateBatcher.class,
+    ProductStats.class, ProductReadRouting.class, ProductSearchFieldsCallback.class, SimpleMeterRegistry.class, ProductServiceTest.ResilienceConfiguration.class})
+@EnableConfigurationProperties(ProductProperties.class)
 class ProductServiceTest {
 
   private final Product product1 = Product.builder().title("Apple iPhone XS Max").description("New iPhone XS Max").price(1099.99).build();
@@ -32,6 +62,9 @@ class ProductServiceTest {
   @Autowired
   private ProductService productService;
 
+  @Autowired
+  private ProductStats productStats;
+
   private List<Product> allProducts;
 
   @BeforeEach
@@ -44,15 +77,21 @@ class ProductServiceTest {
   }
 
   @Test
-  void getAll() {
-    Flux<Product> actual = productService.getAll();
+  void getPage_whenSizeIsAbsent_returnFirstPageOfDefaultSize() {
+    ProductPage page = productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, null, ProductFields.ALL).block();
 
-    StepVerifier
-        .create(actual)
-        .expectNextMatches(allProducts::contains)
-        .expectNextMatches(allProducts::contains)
-        .expectNextMatches(allProducts::contains)
-        .verifyComplete();
+    assertThat(page.getContent()).containsExactlyInAnyOrderElementsOf(allProducts);
+    assertThat(page.getNextCursor()).isNull();
+  }
+
+  @Test
+  void getPage_walksAllProductsInPriceOrder() {
+    ProductPage firstPage = productService.getPage(ProductOrder.ascending(ProductSort.PRICE), ProductFilter.NONE, null, 2, ProductFields.ALL).block();
+    ProductPage secondPage = productService.getPage(ProductOrder.ascending(ProductSort.PRICE), ProductFilter.NONE, firstPage.getNextCursor(), 2, ProductFields.ALL).block();
+
+    assertThat(firstPage.getContent()).containsExactly(product3, product1);
+    assertThat(secondPage.getContent()).containsExactly(product2);
+    assertThat(secondPage.getNextCursor()).isNull();
   }
 
   @Test
@@ -72,7 +111,7 @@ class ProductServiceTest {
     final String title = "apple";
     List<Product> expectedProducts = Arrays.asList(product1, product2);
 
-    Flux<Product> actual = productService.searchByTitle(title);
+    Flux<Product> actual = productService.searchByTitle(title, ProductFields.ALL);
 
     StepVerifier
         .create(actual)
@@ -81,6 +120,26 @@ class ProductServiceTest {
         .verifyComplete();
   }
 
+  @Test
+  void searchByTitle_ranksTitlesStartingWithQueryFirst() {
+    Flux<Product> actual = productService.searchByTitle("macbook", ProductFields.ALL);
+
+    StepVerifier
+        .create(actual)
+        .expectNext(product2)
+        .verifyComplete();
+  }
+
+  @Test
+  void searchByTitle_matchesEveryTermAsWordPrefix() {
+    Flux<Product> actual = productService.searchByTitle("gal sams", ProductFields.ALL);
+
+    StepVerifier
+        .create(actual)
+        .expectNext(product3)
+        .verifyComplete();
+  }
+
   @Test
   void create() {
     Product product = Product.builder().title("New Test Product").description("Test Product").price(299.99).build();
@@ -98,7 +157,7 @@ class ProductServiceTest {
     Product productToUpdate = allProducts.get(0);
     Product updatedProduct = Product.builder().title("New Updated Title").description("Updated").price(299.99).build();
 
-    Mono<Product> actual = productService.update(productToUpdate.getId(), updatedProduct)
+    Mono<Product> actual = productService.update(productToUpdate.getId(), updatedProduct, null)
         .flatMap(product -> productRepository.findById(productToUpdate.getId()));
 
     StepVerifier
@@ -107,15 +166,97 @@ class ProductServiceTest {
         .verifyComplete();
   }
 
+  @Test
+  void update_returnStoredProduct() {
+    Product productToUpdate = allProducts.get(0);
+    Product updatedProduct = Product.builder().title("New Updated Title").description("Updated").price(299.99).build();
+
+    Product actual = productService.update(productToUpdate.getId(), updatedProduct, null).block();
+
+    assertThat(actual).usingRecursiveComparison().isEqualTo(productRepository.findById(productToUpdate.getId()).block());
+    assertThat(actual.getVersion()).isEqualTo(productToUpdate.getVersion() + 1);
+  }
+
+  @Test
+  void update_whenIdNotExist_returnEmptyMono() {
+    Product updatedProduct = Product.builder().title("New Updated Title").description("Updated").price(299.99).build();
+
+    StepVerifier
+        .create(productService.update("NOT_EXIST_ID", updatedProduct, null))
+        .verifyComplete();
+  }
+
+  @Test
+  void update_refreshesSearchFields() {
+    Product productToUpdate = allProducts.get(0);
+    Product updatedProduct = Product.builder().title("Nokia 3310").description("Updated").price(49.99).build();
+
+    Flux<Product> actual = productService.update(productToUpdate.getId(), updatedProduct, null)
+        .thenMany(productService.searchByTitle("nokia", ProductFields.ALL));
+
+    StepVerifier
+        .create(actual)
+        .expectNext(updatedProduct)
+        .verifyComplete();
+  }
+
+  @Test
+  void update_whenVersionIsStale_returnOptimisticLockingFailure() {
+    Product productToUpdate = allProducts.get(0);
+    Product updatedProduct = Product.builder().title("New Updated Title").description("Updated").price(299.99).build();
+
+    Mono<Product> actual = productService.update(productToUpdate.getId(), updatedProduct, Collections.singletonList(productToUpdate.getVersion()))
+        .then(productService.update(productToUpdate.getId(), updatedProduct, Collections.singletonList(productToUpdate.getVersion())));
+
+    StepVerifier
+        .create(actual)
+        .verifyError(OptimisticLockingFailureException.class);
+  }
+
   @Test
   void deleteById() {
     Product productToDelete = allProducts.get(0);
 
-    Mono<Product> actual = productService.deleteById(productToDelete.getId())
+    Mono<Product> actual = productService.deleteById(productToDelete.getId(), null)
         .flatMap(product -> productRepository.findById(productToDelete.getId()));
 
     StepVerifier
         .create(actual)
         .verifyComplete();
   }
+
+  @Test
+  void getStatistics_afterReconcileAndWrites() {
+    productStats.reconcile().block();
+    productService.create(Product.builder().title("USB Cable").description("1m").price(5.0).build()).block();
+    productService.deleteById(allProducts.get(0).getId(), null).block();
+
+    ProductStatistics statistics = productService.getStatistics().block();
+    productStats.reconcile().block();
+    ProductStatistics reconciled = productService.getStatistics().block();
+
+    assertThat(statistics.getCount()).isEqualTo(3);
+    assertThat(statistics.getPriceHistogram()).extracting(PriceBucket::getCount)
+        .containsExactlyElementsOf(reconciled.getPriceHistogram().stream().map(PriceBucket::getCount).collect(Collectors.toList()));
+    assertThat(statistics.getAveragePrice()).isCloseTo(reconciled.getAveragePrice(), within(1e-6));
+  }
+
+  @TestConfiguration
+  static class ResilienceConfiguration {
+
+    @Bean
+    CircuitBreakerRegistry circuitBreakerRegistry() {
+      return CircuitBreakerRegistry.ofDefaults();
+    }
+
+    @Bean
+    BulkheadRegistry bulkheadRegistry() {
+      return BulkheadRegistry.ofDefaults();
+    }
+
+    @Bean
+    TimeLimiterRegistry timeLimiterRegistry() {
+      return TimeLimiterRegistry.ofDefaults();
+    }
+  }
 }
@@ -0,0 +1,75 @@
+package dev.iseif.reactiverestapi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.iseif.reactiverestapi.model.PageCursor;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import java.util.Arrays;
+import org.bson.BsonRegularExpression;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+class ProductQueriesTest {
+
+  @Test
+  void list_whenFilterIsEmpty_matchEverything() {
+    Query query = ProductQueries.list(ProductFilter.NONE, null);
+
+    assertThat(query.getQueryObject()).isEmpty();
+    assertThat(query.getSortObject()).isEmpty();
+  }
+
+  @Test
+  void list_whenFiltered_matchPriceRangeAndAnchoredNormalizedPrefix() {
+    Query query = ProductQueries.list(ProductFilter.of(10.0, 500.0, "Crème B"), ProductOrder.parse("price"));
+
+    Document and = new Document("$and", Arrays.asList(
+        new Document("price", new Document("$gte", 10.0).append("$lte", 500.0)),
+        new Document("normalizedTitle", new BsonRegularExpression("^creme b"))));
+    assertThat(query.getQueryObject().toJson()).isEqualTo(and.toJson());
+    assertThat(query.getSortObject()).isEqualTo(new Document("price", 1).append("id", 1));
+  }
+
+  @Test
+  void page_whenDescending_continueBelowCursor() {
+    ProductOrder order = ProductOrder.parse("-title");
+    PageCursor after = new PageCursor(order, "42", "galaxy");
+
+    Query query = ProductQueries.page(order, ProductFilter.of(null, 100.0, null), after, 21);
+
+    Document keyset = new Document("$or", Arrays.asList(
+        new Document("normalizedTitle", new Document("$lt", "galaxy")),
+        new Document("normalizedTitle", "galaxy").append("id", new Document("$lt", "42"))));
+    Document and = new Document("$and", Arrays.asList(new Document("price", new Document("$lte", 100.0)), keyset));
+    assertThat(query.getQueryObject().toJson()).isEqualTo(and.toJson());
+    assertThat(query.getSortObject()).isEqualTo(new Document("normalizedTitle", -1).append("id", -1));
+    assertThat(query.getLimit()).isEqualTo(21);
+  }
+
+  @Test
+  void updated_matchWhatFieldsUpdateStores() {
+    Product previous = Product.builder().id("1").version(4L).title("Old").description("Old one").price(5.0).build();
+    Product product = Product.builder().id("ignored").version(9L).title("Crème Brûlée").description("New one").price(7.5).build();
+
+    Product updated = ProductQueries.updated(previous, product);
+
+    Document set = (Document) ProductQueries.fieldsUpdate(product).getUpdateObject().get("$set");
+    assertThat(updated.getId()).isEqualTo("1");
+    assertThat(updated.getVersion()).isEqualTo(5L);
+    assertThat(updated.getTitle()).isEqualTo(set.get("title"));
+    assertThat(updated.getDescription()).isEqualTo(set.get("description"));
+    assertThat(updated.getPrice()).isEqualTo(set.get("price"));
+    assertThat(updated.getNormalizedTitle()).isEqualTo(set.get("normalizedTitle"));
+    assertThat(updated.getSearchTokens()).isEqualTo(set.get("searchTokens"));
+  }
+
+  @Test
+  void updated_whenPreviousHasNoVersion_startAtOne() {
+    Product previous = Product.builder().id("1").title("Old").description("Old one").price(5.0).build();
+
+    assertThat(ProductQueries.updated(previous, previous).getVersion()).isEqualTo(1L);
+  }
+}
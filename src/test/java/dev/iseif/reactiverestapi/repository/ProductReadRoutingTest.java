@@ -0,0 +1,61 @@
+package dev.iseif.reactiverestapi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.reactivestreams.client.MongoClient;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.util.context.Context;
+
+class ProductReadRoutingTest {
+
+  private final ReactiveMongoTemplate mongoTemplate = new ReactiveMongoTemplate(mock(MongoClient.class), "products");
+  private ProductProperties productProperties;
+
+  @BeforeEach
+  void setUp() {
+    productProperties = new ProductProperties();
+    productProperties.getReadRouting().setEnabled(true);
+  }
+
+  @Test
+  void queries_whenEnabled_useReadPreferenceWithStalenessBound() {
+    ProductReadRouting readRouting = new ProductReadRouting(mongoTemplate, productProperties);
+
+    assertThat(readRouting.queries(Context.empty())).isNotSameAs(mongoTemplate);
+    assertThat(readRouting.getQueryReadPreference()).isEqualTo(ReadPreference.secondaryPreferred(90, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void queries_whenMaxStalenessIsZero_useUnboundedReadPreference() {
+    productProperties.getReadRouting().setReadPreference("nearest");
+    productProperties.getReadRouting().setMaxStaleness(Duration.ZERO);
+
+    ProductReadRouting readRouting = new ProductReadRouting(mongoTemplate, productProperties);
+
+    assertThat(readRouting.getQueryReadPreference()).isEqualTo(ReadPreference.nearest());
+  }
+
+  @Test
+  void queries_whenPinnedToPrimary_usePrimaryTemplate() {
+    ProductReadRouting readRouting = new ProductReadRouting(mongoTemplate, productProperties);
+
+    assertThat(readRouting.queries(ProductReadRouting.pinToPrimary(Context.empty()))).isSameAs(mongoTemplate);
+  }
+
+  @Test
+  void queries_whenDisabled_usePrimaryTemplate() {
+    productProperties.getReadRouting().setEnabled(false);
+
+    ProductReadRouting readRouting = new ProductReadRouting(mongoTemplate, productProperties);
+
+    assertThat(readRouting.queries(Context.empty())).isSameAs(mongoTemplate);
+    assertThat(readRouting.getQueryReadPreference()).isEqualTo(ReadPreference.primary());
+  }
+}
@@ -0,0 +1,42 @@
+package dev.iseif.reactiverestapi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.iseif.reactiverestapi.model.Product;
+import org.junit.jupiter.api.Test;
+
+class ProductSearchFieldsTest {
+
+  @Test
+  void normalize_lowercasesAndStripsAccentsAndPunctuation() {
+    assertThat(ProductSearchFields.normalize("  Crème Brûlée -- Set!! ")).isEqualTo("creme brulee set");
+  }
+
+  @Test
+  void tokens_containsEdgeNgramsOfEveryWord() {
+    assertThat(ProductSearchFields.tokens("Galaxy S10+")).containsExactly("g", "ga", "gal", "gala", "galax", "galaxy", "s", "s1", "s10");
+  }
+
+  @Test
+  void tokens_areCappedAtMaximumLength() {
+    String longWord = "abcdefghijklmnopqrstuvwxyz";
+
+    assertThat(ProductSearchFields.tokens(longWord)).hasSize(ProductSearchFields.MAX_TOKEN_LENGTH);
+    assertThat(ProductSearchFields.queryTerms(longWord)).containsExactly(longWord.substring(0, ProductSearchFields.MAX_TOKEN_LENGTH));
+  }
+
+  @Test
+  void queryTerms_whenQueryHasNoWords_returnEmpty() {
+    assertThat(ProductSearchFields.queryTerms("  !! ")).isEmpty();
+  }
+
+  @Test
+  void apply_populatesSearchFieldsFromTitle() {
+    Product product = Product.builder().title("Apple MacBook").build();
+
+    ProductSearchFields.apply(product);
+
+    assertThat(product.getNormalizedTitle()).isEqualTo("apple macbook");
+    assertThat(product.getSearchTokens()).contains("app", "macbook");
+  }
+}
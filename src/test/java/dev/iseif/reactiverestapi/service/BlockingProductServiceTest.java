@@ -0,0 +1,113 @@
+package dev.iseif.reactiverestapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.bulk.BulkWriteError;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.BulkChunkResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult.Status;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.MultiGetResult;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.repository.BlockingProductRepository;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import javax.validation.Validation;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+class BlockingProductServiceTest {
+
+  private final Product product1 = Product.builder().id("1").title("Apple iPhone XS Max").description("New iPhone XS Max").price(1099.99).build();
+  private final Product product2 = Product.builder().id("2").title("Apple MacBook Pro").description("New MacBook").price(2599.99).build();
+  private final Product invalidProduct = Product.builder().id("3").title("Samsung Galaxy S10+").description("New Galaxy!!").build();
+
+  @Mock
+  private BlockingProductRepository productRepository;
+
+  private ProductProperties productProperties;
+  private BlockingProductService productService;
+
+  @BeforeEach
+  void setUp() {
+    productProperties = new ProductProperties();
+    productProperties.getBulk().setChunkSize(2);
+    productService = new BlockingProductService(productRepository, productProperties,
+        Validation.buildDefaultValidatorFactory().getValidator());
+  }
+
+  @Test
+  void getAllById_returnProductsInRequestOrderAndMissingIds() {
+    when(productRepository.findAllById(Arrays.asList("2", "4", "1"))).thenReturn(Arrays.asList(product1, product2));
+
+    MultiGetResult actual = productService.getAllById(Arrays.asList("2", "4", "1"), ProductFields.ALL);
+
+    assertThat(actual).isEqualTo(new MultiGetResult(Arrays.asList(product2, product1), Collections.singletonList("4")));
+  }
+
+  @Test
+  void getAllById_whenTooManyIds_throwInvalidRequest() {
+    productProperties.getMultiGet().setMaxIds(1);
+
+    assertThatThrownBy(() -> productService.getAllById(Arrays.asList("1", "2"), ProductFields.ALL))
+        .isInstanceOf(InvalidRequestException.class);
+    verifyNoInteractions(productRepository);
+  }
+
+  @Test
+  void update_whenVersionIsStale_throwOptimisticLockingFailure() {
+    List<Long> expectedVersions = Collections.singletonList(1L);
+    when(productRepository.findAndModifyById("1", product1, expectedVersions)).thenReturn(Optional.empty());
+    when(productRepository.existsById("1")).thenReturn(true);
+
+    assertThatThrownBy(() -> productService.update("1", product1, expectedVersions))
+        .isInstanceOf(OptimisticLockingFailureException.class);
+  }
+
+  @Test
+  void update_whenProductNotExist_returnEmpty() {
+    List<Long> expectedVersions = Collections.singletonList(1L);
+    when(productRepository.findAndModifyById("1", product1, expectedVersions)).thenReturn(Optional.empty());
+    when(productRepository.existsById("1")).thenReturn(false);
+
+    assertThat(productService.update("1", product1, expectedVersions)).isEmpty();
+  }
+
+  @Test
+  void deleteById_whenUnconditional_returnDeletedProduct() {
+    when(productRepository.findAndRemoveById("1", null)).thenReturn(Optional.of(product1));
+
+    assertThat(productService.deleteById("1", null)).contains(product1);
+  }
+
+  @Test
+  void createChunk_reportStatusOfEveryItem() {
+    when(productRepository.bulkInsert(anyList())).thenAnswer(invocation -> {
+      List<Product> products = invocation.getArgument(0);
+      products.get(0).setId("a");
+      products.get(1).setId("b");
+      return Collections.singletonList(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1));
+    });
+
+    BulkChunkResult actual = productService.createChunk(2, Arrays.asList(product1, invalidProduct, product2));
+
+    assertThat(actual).isEqualTo(new BulkChunkResult(1, Arrays.asList(
+        new BulkItemResult(2, "a", Status.CREATED, null),
+        new BulkItemResult(3, null, Status.INVALID, "'price' is required"),
+        new BulkItemResult(4, "b", Status.FAILED, "duplicate key"))));
+  }
+}
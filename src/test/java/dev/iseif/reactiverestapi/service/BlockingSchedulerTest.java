@@ -0,0 +1,72 @@
+package dev.iseif.reactiverestapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+class BlockingSchedulerTest {
+
+  private final ProductProperties productProperties = new ProductProperties();
+  private BlockingScheduler blockingScheduler;
+
+  @AfterEach
+  void tearDown() {
+    if (blockingScheduler != null) {
+      blockingScheduler.destroy();
+    }
+  }
+
+  @Test
+  void call_whenBoundedElastic_runOnBoundedElasticThread() {
+    blockingScheduler = new BlockingScheduler(productProperties);
+
+    StepVerifier
+        .create(blockingScheduler.call(() -> Thread.currentThread().getName()))
+        .assertNext(thread -> assertThat(thread).startsWith("boundedElastic-"))
+        .verifyComplete();
+    assertThat(blockingScheduler.isVirtualThreads()).isFalse();
+  }
+
+  @Test
+  void call_whenVirtualThreadsAreUnavailable_fallBackToBoundedElastic() {
+    assumeFalse(BlockingScheduler.isVirtualThreadsAvailable());
+    productProperties.getBlocking().setExecutor(ProductProperties.Blocking.Executor.VIRTUAL_THREADS);
+    blockingScheduler = new BlockingScheduler(productProperties);
+
+    StepVerifier
+        .create(blockingScheduler.call(() -> Thread.currentThread().getName()))
+        .assertNext(thread -> assertThat(thread).startsWith("boundedElastic-"))
+        .verifyComplete();
+    assertThat(blockingScheduler.isVirtualThreads()).isFalse();
+  }
+
+  @Test
+  void call_whenVirtualThreadsAreAvailable_runOnVirtualThread() {
+    assumeTrue(BlockingScheduler.isVirtualThreadsAvailable());
+    productProperties.getBlocking().setExecutor(ProductProperties.Blocking.Executor.VIRTUAL_THREADS);
+    blockingScheduler = new BlockingScheduler(productProperties);
+
+    StepVerifier
+        .create(blockingScheduler.call(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())))
+        .expectNext(true)
+        .verifyComplete();
+    assertThat(blockingScheduler.isVirtualThreads()).isTrue();
+  }
+
+  @Test
+  void destroy_whenBoundedElastic_leaveSharedSchedulerRunning() {
+    blockingScheduler = new BlockingScheduler(productProperties);
+
+    blockingScheduler.destroy();
+
+    StepVerifier
+        .create(new BlockingScheduler(productProperties).call(() -> "still running"))
+        .expectNext("still running")
+        .verifyComplete();
+  }
+}
@@ -0,0 +1,154 @@
+package dev.iseif.reactiverestapi.service;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.bulk.BulkWriteError;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.BulkChunkResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult;
+import dev.iseif.reactiverestapi.model.BulkItemResult.Status;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductRevision;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.validation.Validation;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+class ProductBulkServiceTest {
+
+  private final Product product1 = Product.builder().id("1").title("Apple iPhone XS Max").description("New iPhone XS Max").price(1099.99).build();
+  private final Product product2 = Product.builder().id("2").title("Apple MacBook Pro").description("New MacBook").price(2599.99).build();
+  private final Product invalidProduct = Product.builder().id("3").title("Samsung Galaxy S10+").description("New Galaxy!!").build();
+
+  @Mock
+  private ProductRepository productRepository;
+
+  private ProductBulkService productBulkService;
+
+  @BeforeEach
+  void setUp() {
+    ProductProperties productProperties = new ProductProperties();
+    productProperties.getBulk().setChunkSize(2);
+    ProductRepositoryGuard guard = new ProductRepositoryGuard(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(),
+        TimeLimiterRegistry.ofDefaults(), productProperties);
+    productBulkService = new ProductBulkService(productRepository, new ProductCache(productProperties, new SimpleMeterRegistry()), guard,
+        new ProductStats(productRepository, productProperties),
+        Validation.buildDefaultValidatorFactory().getValidator(), productProperties);
+  }
+
+  @Test
+  void create_reportStatusOfEveryItemPerChunk() {
+    when(productRepository.bulkInsert(anyList())).thenAnswer(invocation -> {
+      List<Product> products = invocation.getArgument(0);
+      for (int i = 0; i < products.size(); i++) {
+        products.get(i).setId("new-" + i);
+      }
+      return Mono.just(Collections.emptyList());
+    });
+
+    Flux<BulkChunkResult> actual = productBulkService.create(Flux.just(product1, product2, invalidProduct));
+
+    StepVerifier
+        .create(actual)
+        .expectNext(new BulkChunkResult(0, Arrays.asList(
+            new BulkItemResult(0, "new-0", Status.CREATED, null),
+            new BulkItemResult(1, "new-1", Status.CREATED, null))))
+        .expectNext(new BulkChunkResult(1, Collections.singletonList(
+            new BulkItemResult(2, null, Status.INVALID, "'price' is required"))))
+        .verifyComplete();
+  }
+
+  @Test
+  void create_whenWriteFails_reportFailedItem() {
+    when(productRepository.bulkInsert(anyList())).thenAnswer(invocation -> {
+      List<Product> products = invocation.getArgument(0);
+      products.get(0).setId("a");
+      products.get(1).setId("b");
+      return Mono.just(Collections.singletonList(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)));
+    });
+
+    Flux<BulkChunkResult> actual = productBulkService.create(Flux.just(product1, product2));
+
+    StepVerifier
+        .create(actual)
+        .expectNext(new BulkChunkResult(0, Arrays.asList(
+            new BulkItemResult(0, "a", Status.CREATED, null),
+            new BulkItemResult(1, "b", Status.FAILED, "duplicate key"))))
+        .verifyComplete();
+  }
+
+  @Test
+  void update_whenProductNotExist_reportNotFound() {
+    when(productRepository.updateById("1", product1, null))
+        .thenReturn(Mono.just(new ProductRevision(product1, product1.toBuilder().version(1L).build())));
+    when(productRepository.updateById("2", product2, null)).thenReturn(Mono.empty());
+
+    Flux<BulkChunkResult> actual = productBulkService.update(Flux.just(product1, product2));
+
+    StepVerifier
+        .create(actual)
+        .expectNext(new BulkChunkResult(0, Arrays.asList(
+            new BulkItemResult(0, "1", Status.UPDATED, null),
+            new BulkItemResult(1, "2", Status.NOT_FOUND, null))))
+        .verifyComplete();
+  }
+
+  @Test
+  void update_whenWriteIsRejected_reportFailedItem() {
+    when(productRepository.updateById("1", product1, null)).thenReturn(Mono.error(new DataIntegrityViolationException("rejected")));
+
+    Flux<BulkChunkResult> actual = productBulkService.update(Flux.just(product1));
+
+    StepVerifier
+        .create(actual)
+        .expectNext(new BulkChunkResult(0, Collections.singletonList(new BulkItemResult(0, "1", Status.FAILED, "rejected"))))
+        .verifyComplete();
+  }
+
+  @Test
+  void delete_whenProductIsGoneAtWrite_reportNotFound() {
+    when(productRepository.findAndRemoveById("1", null)).thenReturn(Mono.just(product1));
+    when(productRepository.findAndRemoveById("2", null)).thenReturn(Mono.empty());
+
+    Flux<BulkChunkResult> actual = productBulkService.delete(Flux.just(product1, product2));
+
+    StepVerifier
+        .create(actual)
+        .expectNext(new BulkChunkResult(0, Arrays.asList(
+            new BulkItemResult(0, "1", Status.DELETED, null),
+            new BulkItemResult(1, "2", Status.NOT_FOUND, null))))
+        .verifyComplete();
+  }
+
+  @Test
+  void delete_whenIdIsMissing_reportInvalid() {
+    Product withoutId = Product.builder().build();
+    when(productRepository.findAndRemoveById("1", null)).thenReturn(Mono.just(product1));
+
+    Flux<BulkChunkResult> actual = productBulkService.delete(Flux.just(product1, withoutId));
+
+    StepVerifier
+        .create(actual)
+        .expectNext(new BulkChunkResult(0, Arrays.asList(
+            new BulkItemResult(0, "1", Status.DELETED, null),
+            new BulkItemResult(1, null, Status.INVALID, "'id' is required"))))
+        .verifyComplete();
+  }
+}
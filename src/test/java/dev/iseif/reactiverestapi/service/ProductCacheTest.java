@@ -0,0 +1,102 @@
+package dev.iseif.reactiverestapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class ProductCacheTest {
+
+  private final Product product = Product.builder().id("1").title("Apple iPhone XS Max").description("New iPhone XS Max").price(1099.99).build();
+
+  private final AtomicInteger loads = new AtomicInteger();
+  private SimpleMeterRegistry meterRegistry;
+  private ProductCache productCache;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    productCache = new ProductCache(new ProductProperties(), meterRegistry);
+  }
+
+  @Test
+  void get_whenMissesAreConcurrent_loadOnce() {
+    Flux<Product> actual = Flux.range(0, 10)
+        .flatMap(i -> productCache.get(product.getId(), id -> load(Mono.just(product).delayElement(Duration.ofMillis(50)))));
+
+    StepVerifier
+        .create(actual)
+        .expectNextCount(10)
+        .verifyComplete();
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void get_whenProductNotExist_doNotCacheEmptyResult() {
+    StepVerifier.create(productCache.get(product.getId(), id -> load(Mono.empty()))).verifyComplete();
+    StepVerifier.create(productCache.get(product.getId(), id -> load(Mono.just(product)))).expectNext(product).verifyComplete();
+
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void invalidate_whenProductIsCached_reloadOnNextGet() {
+    productCache.get(product.getId(), id -> load(Mono.just(product))).block();
+
+    productCache.invalidate(product.getId());
+    productCache.get(product.getId(), id -> load(Mono.just(product))).block();
+
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void getAllPresent_returnLoadedProductsOnly() {
+    Product other = product.toBuilder().id("2").build();
+    productCache.get(product.getId(), id -> load(Mono.just(product))).block();
+    productCache.get(other.getId(), id -> load(Mono.<Product>never())).subscribe();
+    productCache.putIfAbsent(product.toBuilder().id("3").build());
+
+    assertThat(productCache.getAllPresent(Arrays.asList("1", "2", "3", "4"))).containsOnlyKeys("1", "3");
+  }
+
+  @Test
+  void putIfAbsent_whenProductIsCachedOrLoading_keepCachedEntry() {
+    Sinks.One<Product> loading = Sinks.one();
+    productCache.get(product.getId(), id -> load(Mono.just(product))).block();
+    Mono<Product> pending = productCache.get("2", id -> load(loading.asMono()));
+    pending.subscribe();
+
+    productCache.putIfAbsent(product.toBuilder().title("Stale").build());
+    productCache.putIfAbsent(product.toBuilder().id("2").title("Stale").build());
+    loading.tryEmitValue(product.toBuilder().id("2").build());
+
+    assertThat(productCache.getAllPresent(Arrays.asList("1", "2"))).extractingFromEntries(entry -> entry.getValue().getTitle())
+        .containsOnly(product.getTitle());
+  }
+
+  @Test
+  void get_recordsHitsAndMissesInMeterRegistry() {
+    productCache.get(product.getId(), id -> load(Mono.just(product))).block();
+    productCache.get(product.getId(), id -> load(Mono.just(product))).block();
+
+    assertThat(meterRegistry.get("cache.gets").tag("cache", "products").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("cache.gets").tag("cache", "products").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+  }
+
+  private Mono<Product> load(Mono<Product> result) {
+    return Mono.defer(() -> {
+      loads.incrementAndGet();
+      return result;
+    });
+  }
+}
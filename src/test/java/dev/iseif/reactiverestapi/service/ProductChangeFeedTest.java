@@ -0,0 +1,254 @@
+package dev.iseif.reactiverestapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.MongoQueryException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+class ProductChangeFeedTest {
+
+  private final MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+
+  @Mock
+  private ReactiveMongoTemplate mongoTemplate;
+
+  private final List<Optional<BsonValue>> resumeTokens = new CopyOnWriteArrayList<>();
+
+  private ProductChangeFeed productChangeFeed;
+
+  @BeforeEach
+  void setUp() {
+    when(mongoTemplate.getCollectionName(Product.class)).thenReturn("product");
+    productChangeFeed = new ProductChangeFeed(mongoTemplate, new ProductProperties(), new SimpleMeterRegistry());
+  }
+
+  @Test
+  void changes_whenSeveralClientsSubscribe_shareOneChangeStream() {
+    AtomicInteger subscriptions = new AtomicInteger();
+    Sinks.Many<ChangeStreamEvent<Product>> events = Sinks.many().multicast().onBackpressureBuffer();
+    when(mongoTemplate.changeStream(eq("product"), any(ChangeStreamOptions.class), eq(Product.class)))
+        .thenReturn(events.asFlux().doOnSubscribe(subscription -> subscriptions.incrementAndGet()));
+    ObjectId id = ObjectId.get();
+
+    Flux<ServerSentEvent<ProductChange>> first = productChangeFeed.changes(null);
+    Flux<ServerSentEvent<ProductChange>> second = productChangeFeed.changes(null);
+
+    StepVerifier.create(Flux.merge(first, second).take(2))
+        .then(() -> events.tryEmitNext(event(OperationType.DELETE, id, "token-1")))
+        .expectNextMatches(event -> "delete".equals(event.event()) && id.toHexString().equals(event.data().getProductId()))
+        .expectNextMatches(event -> "delete".equals(event.event()) && id.toHexString().equals(event.data().getProductId()))
+        .verifyComplete();
+    assertThat(subscriptions).hasValue(1);
+  }
+
+  @Test
+  void changes_whenLastEventIdIsGiven_replayUpToSharedPositionThenRejoin() {
+    Sinks.Many<ChangeStreamEvent<Product>> shared = Sinks.many().multicast().onBackpressureBuffer();
+    Sinks.Many<ChangeStreamEvent<Product>> replay = Sinks.many().multicast().onBackpressureBuffer();
+    whenChangeStream(shared, replay);
+    Disposable liveClient = productChangeFeed.changes(null).subscribe();
+    shared.tryEmitNext(event("token-1"));
+    shared.tryEmitNext(event("token-2"));
+
+    StepVerifier.create(productChangeFeed.changes(id("token-1")))
+        .then(() -> replay.tryEmitNext(event("token-2")))
+        .expectNextMatches(event -> id("token-2").equals(event.id()))
+        .then(() -> assertThat(replay.currentSubscriberCount()).isZero())
+        .then(() -> shared.tryEmitNext(event("token-3")))
+        .expectNextMatches(event -> id("token-3").equals(event.id()))
+        .thenCancel()
+        .verify();
+    assertThat(resumeTokens).containsExactly(Optional.empty(), Optional.of(token("token-1")));
+    liveClient.dispose();
+  }
+
+  @Test
+  void changes_whenReplayOvertakesSharedStream_rejoinWithoutDuplicates() {
+    Sinks.Many<ChangeStreamEvent<Product>> shared = Sinks.many().multicast().onBackpressureBuffer();
+    Sinks.Many<ChangeStreamEvent<Product>> replay = Sinks.many().multicast().onBackpressureBuffer();
+    whenChangeStream(shared, replay);
+
+    StepVerifier.create(productChangeFeed.changes(id("token-0")))
+        .then(() -> {
+          replay.tryEmitNext(event("token-1"));
+          replay.tryEmitNext(event("token-2"));
+        })
+        .expectNextMatches(event -> id("token-1").equals(event.id()))
+        .expectNextMatches(event -> id("token-2").equals(event.id()))
+        .then(() -> shared.tryEmitNext(event("token-1")))
+        .then(() -> assertThat(replay.currentSubscriberCount()).isZero())
+        .then(() -> {
+          shared.tryEmitNext(event("token-2"));
+          shared.tryEmitNext(event("token-3"));
+        })
+        .expectNextMatches(event -> id("token-3").equals(event.id()))
+        .thenCancel()
+        .verify();
+  }
+
+  @Test
+  void changes_whenSharedStreamDeliversFirst_rejoinAtThatEvent() {
+    Sinks.Many<ChangeStreamEvent<Product>> shared = Sinks.many().multicast().onBackpressureBuffer();
+    Sinks.Many<ChangeStreamEvent<Product>> replay = Sinks.many().multicast().onBackpressureBuffer();
+    whenChangeStream(shared, replay);
+
+    StepVerifier.create(productChangeFeed.changes(id("token-0")))
+        .then(() -> {
+          replay.tryEmitNext(event("token-1"));
+          shared.tryEmitNext(event("token-2"));
+          shared.tryEmitNext(event("token-3"));
+          replay.tryEmitNext(event("token-2"));
+        })
+        .expectNextMatches(event -> id("token-1").equals(event.id()))
+        .expectNextMatches(event -> id("token-2").equals(event.id()))
+        .expectNextMatches(event -> id("token-3").equals(event.id()))
+        .then(() -> assertThat(replay.currentSubscriberCount()).isZero())
+        .thenCancel()
+        .verify();
+  }
+
+  @Test
+  void changes_whenReplayFails_sendResetThenSharedEvents() {
+    Sinks.Many<ChangeStreamEvent<Product>> shared = Sinks.many().multicast().onBackpressureBuffer();
+    Sinks.Many<ChangeStreamEvent<Product>> replay = Sinks.many().multicast().onBackpressureBuffer();
+    whenChangeStream(shared, replay);
+
+    StepVerifier.create(productChangeFeed.changes(id("token-0")))
+        .then(() -> {
+          shared.tryEmitNext(event("token-2"));
+          replay.tryEmitError(historyLost());
+        })
+        .expectNextMatches(event -> "reset".equals(event.event()))
+        .expectNextMatches(event -> id("token-2").equals(event.id()))
+        .thenCancel()
+        .verify();
+  }
+
+  @Test
+  void changes_whenLastSubscriberLeaves_restartWithLiveEvents() {
+    Sinks.Many<ChangeStreamEvent<Product>> shared = Sinks.many().multicast().onBackpressureBuffer();
+    whenChangeStream(shared, Flux.never());
+
+    Disposable first = productChangeFeed.changes(null).subscribe();
+    shared.tryEmitNext(event("token-1"));
+    first.dispose();
+    productChangeFeed.changes(null).subscribe().dispose();
+
+    assertThat(resumeTokens).containsExactly(Optional.empty(), Optional.empty());
+  }
+
+  @Test
+  void changes_whenSharedStreamFails_resumeAfterLastEvent() {
+    ArgumentCaptor<ChangeStreamOptions> options = ArgumentCaptor.forClass(ChangeStreamOptions.class);
+    when(mongoTemplate.changeStream(eq("product"), any(ChangeStreamOptions.class), eq(Product.class)))
+        .thenReturn(Flux.just(event("token-1")).concatWith(Flux.error(new DataAccessResourceFailureException("Connection lost"))), Flux.never());
+
+    Disposable client = productChangeFeed.changes(null).subscribe();
+
+    verify(mongoTemplate, timeout(5_000).times(2)).changeStream(eq("product"), options.capture(), eq(Product.class));
+    assertThat(options.getAllValues().get(1).getResumeToken()).hasValue(token("token-1"));
+    client.dispose();
+  }
+
+  @Test
+  void changes_whenSharedStreamHistoryIsLost_restartWithLiveEvents() {
+    ArgumentCaptor<ChangeStreamOptions> options = ArgumentCaptor.forClass(ChangeStreamOptions.class);
+    when(mongoTemplate.changeStream(eq("product"), any(ChangeStreamOptions.class), eq(Product.class)))
+        .thenReturn(Flux.just(event("token-1")).concatWith(Flux.error(historyLost())), Flux.never());
+
+    Disposable client = productChangeFeed.changes(null).subscribe();
+
+    verify(mongoTemplate, timeout(5_000).times(2)).changeStream(eq("product"), options.capture(), eq(Product.class));
+    assertThat(options.getAllValues().get(1).getResumeToken()).isEmpty();
+    client.dispose();
+  }
+
+  @Test
+  void changes_whenLastEventIdIsMalformed_throwIllegalArgument() {
+    assertThatThrownBy(() -> productChangeFeed.changes("%%%"))
+        .isInstanceOf(InvalidRequestException.class);
+  }
+
+  /**
+   * Streams without a resume token are the shared one, the others are replays.
+   */
+  private void whenChangeStream(Sinks.Many<ChangeStreamEvent<Product>> shared, Sinks.Many<ChangeStreamEvent<Product>> replay) {
+    whenChangeStream(shared, replay.asFlux());
+  }
+
+  private void whenChangeStream(Sinks.Many<ChangeStreamEvent<Product>> shared, Flux<ChangeStreamEvent<Product>> replay) {
+    when(mongoTemplate.changeStream(eq("product"), any(ChangeStreamOptions.class), eq(Product.class))).thenAnswer(invocation -> {
+      Optional<BsonValue> resumeToken = invocation.<ChangeStreamOptions>getArgument(1).getResumeToken();
+      resumeTokens.add(resumeToken);
+      return resumeToken.isPresent() ? replay : shared.asFlux();
+    });
+  }
+
+  private static BsonDocument token(String token) {
+    return new BsonDocument("_data", new BsonString(token));
+  }
+
+  private static String id(String token) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(token(token).toJson().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Exception historyLost() {
+    return new UncategorizedMongoDbException("Resume point lost", new MongoQueryException(new ServerAddress(), 286, "History lost"));
+  }
+
+  private ChangeStreamEvent<Product> event(String token) {
+    return event(OperationType.DELETE, ObjectId.get(), token);
+  }
+
+  private ChangeStreamEvent<Product> event(OperationType operationType, ObjectId id, String token) {
+    ChangeStreamDocument<Document> raw = new ChangeStreamDocument<>(operationType,
+        new BsonDocument("_data", new BsonString(token)), null, null, null,
+        new BsonDocument("_id", new BsonObjectId(id)), null, null, null, null);
+    return new ChangeStreamEvent<>(raw, Product.class, converter);
+  }
+}
@@ -0,0 +1,152 @@
+package dev.iseif.reactiverestapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.bulk.BulkWriteError;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+class ProductCreateBatcherTest {
+
+  private final Product product1 = Product.builder().title("Apple iPhone XS Max").description("New iPhone XS Max").price(1099.99).build();
+  private final Product product2 = Product.builder().title("Apple MacBook Pro").description("New MacBook").price(2599.99).build();
+  private final Product product3 = Product.builder().title("Samsung Galaxy S10+").description("New Galaxy!!").price(799.99).build();
+
+  @Mock
+  private ProductRepository productRepository;
+
+  private ProductCreateBatcher createBatcher;
+  private SimpleMeterRegistry meterRegistry;
+  private CircuitBreakerRegistry circuitBreakerRegistry;
+
+  @BeforeEach
+  void setUp() {
+    ProductProperties productProperties = new ProductProperties();
+    productProperties.getCreateBatching().setEnabled(true);
+    productProperties.getCreateBatching().setMaxBatchSize(3);
+    productProperties.getCreateBatching().setMaxDelay(Duration.ofSeconds(1));
+    meterRegistry = new SimpleMeterRegistry();
+    circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+    ProductRepositoryGuard guard = new ProductRepositoryGuard(circuitBreakerRegistry, BulkheadRegistry.ofDefaults(),
+        TimeLimiterRegistry.ofDefaults(), productProperties);
+    createBatcher = new ProductCreateBatcher(productRepository, guard, productProperties, meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    createBatcher.close();
+  }
+
+  @Test
+  void create_coalesceConcurrentCreatesIntoOneInsert() {
+    when(productRepository.bulkInsert(anyList())).thenAnswer(invocation -> {
+      List<Product> products = invocation.getArgument(0);
+      for (int i = 0; i < products.size(); i++) {
+        products.get(i).setId("new-" + i);
+      }
+      return Mono.just(Collections.emptyList());
+    });
+
+    Mono<List<Product>> actual = Flux.merge(createBatcher.create(product1), createBatcher.create(product2), createBatcher.create(product3))
+        .collectList();
+
+    StepVerifier
+        .create(actual)
+        .assertNext(products -> assertThat(products).extracting(Product::getId).containsExactlyInAnyOrder("new-0", "new-1", "new-2"))
+        .verifyComplete();
+    verify(productRepository, times(1)).bulkInsert(anyList());
+    DistributionSummary batchSizes = meterRegistry.get(ProductCreateBatcher.BATCH_SIZE_METRIC).summary();
+    assertThat(batchSizes.count()).isEqualTo(1);
+    assertThat(batchSizes.totalAmount()).isEqualTo(3);
+    assertThat(meterRegistry.get(ProductCreateBatcher.BATCH_TIMER).timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  void create_whenOneProductFails_failOnlyThatCaller() {
+    when(productRepository.bulkInsert(anyList()))
+        .thenReturn(Mono.just(Collections.singletonList(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1))));
+
+    Flux<Object> actual = Flux.mergeSequential(
+        createBatcher.create(product1).map(Object.class::cast),
+        createBatcher.create(product2).map(Object.class::cast).onErrorResume(Mono::just),
+        createBatcher.create(product3).map(Object.class::cast));
+
+    StepVerifier
+        .create(actual)
+        .expectNext(product1)
+        .assertNext(error -> assertThat(error).isInstanceOf(DuplicateKeyException.class))
+        .expectNext(product3)
+        .verifyComplete();
+  }
+
+  @Test
+  void create_whenInsertFails_failEveryCaller() {
+    when(productRepository.bulkInsert(anyList())).thenReturn(Mono.error(new DataAccessResourceFailureException("down")));
+
+    Flux<Object> actual = Flux.merge(
+        createBatcher.create(product1).map(Object.class::cast).onErrorResume(Mono::just),
+        createBatcher.create(product2).map(Object.class::cast).onErrorResume(Mono::just));
+
+    StepVerifier
+        .create(actual)
+        .assertNext(error -> assertThat(error).isInstanceOf(DataAccessResourceFailureException.class))
+        .assertNext(error -> assertThat(error).isInstanceOf(DataAccessResourceFailureException.class))
+        .verifyComplete();
+    verify(productRepository, times(1)).bulkInsert(anyList());
+  }
+
+  @Test
+  void create_whenCircuitIsOpen_failEveryCallerWithoutInserting() {
+    circuitBreakerRegistry.circuitBreaker(ProductRepositoryGuard.CIRCUIT_BREAKER).transitionToOpenState();
+
+    Flux<Object> actual = Flux.merge(
+        createBatcher.create(product1).map(Object.class::cast).onErrorResume(Mono::just),
+        createBatcher.create(product2).map(Object.class::cast).onErrorResume(Mono::just));
+
+    StepVerifier
+        .create(actual)
+        .assertNext(error -> assertThat(error).isInstanceOf(CallNotPermittedException.class))
+        .assertNext(error -> assertThat(error).isInstanceOf(CallNotPermittedException.class))
+        .verifyComplete();
+    verify(productRepository, never()).bulkInsert(anyList());
+  }
+
+  @Test
+  void create_whenClosed_failWithoutInserting() {
+    createBatcher.close();
+
+    StepVerifier
+        .create(createBatcher.create(product1))
+        .expectError(IllegalStateException.class)
+        .verify(Duration.ofSeconds(5));
+    verify(productRepository, never()).bulkInsert(anyList());
+  }
+}
@@ -0,0 +1,101 @@
+package dev.iseif.reactiverestapi.service;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.Product;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class ProductRepositoryGuardTest {
+
+  private final Product product = Product.builder().id("1").title("Apple iPhone XS Max").price(1099.99).build();
+
+  private CircuitBreakerRegistry circuitBreakerRegistry;
+  private ProductRepositoryGuard guard;
+
+  @BeforeEach
+  void setUp() {
+    circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+    BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+        .maxConcurrentCalls(1)
+        .maxWaitDuration(Duration.ZERO)
+        .build());
+    TimeLimiterRegistry timeLimiterRegistry = TimeLimiterRegistry.of(TimeLimiterConfig.custom()
+        .timeoutDuration(Duration.ofMillis(100))
+        .build());
+    guard = new ProductRepositoryGuard(circuitBreakerRegistry, bulkheadRegistry, timeLimiterRegistry, new ProductProperties());
+  }
+
+  @Test
+  void read_whenCallIsTooSlow_failWithTimeout() {
+    StepVerifier
+        .create(guard.read("getById", Mono.just(product).delayElement(Duration.ofSeconds(1))))
+        .expectError(TimeoutException.class)
+        .verify();
+  }
+
+  @Test
+  void read_whenStreamStartsInTime_doNotTimeOutLaterElements() {
+    Flux<Product> products = Flux.just(product, product).delayUntil(p -> Mono.delay(Duration.ofMillis(60)));
+
+    StepVerifier
+        .create(guard.read("streamAll", products))
+        .expectNextCount(2)
+        .verifyComplete();
+  }
+
+  @Test
+  void read_whenBulkheadIsFull_rejectImmediately() {
+    guard.read("getById", Mono.never()).subscribe();
+
+    StepVerifier
+        .create(guard.read("getById", Mono.just(product)))
+        .expectError(BulkheadFullException.class)
+        .verify();
+  }
+
+  @Test
+  void lastKnownGood_whenCircuitIsOpen_replayLastResult() {
+    StepVerifier
+        .create(guard.lastKnownGood("getById:1", guard.read("getById", Mono.just(product))))
+        .expectNext(product)
+        .verifyComplete();
+
+    circuitBreakerRegistry.circuitBreaker(ProductRepositoryGuard.CIRCUIT_BREAKER).transitionToOpenState();
+
+    StepVerifier
+        .create(guard.lastKnownGood("getById:1", guard.read("getById", Mono.just(product))))
+        .expectNext(product)
+        .verifyComplete();
+    StepVerifier
+        .create(guard.lastKnownGood("getById:2", guard.read("getById", Mono.just(product))))
+        .expectError(CallNotPermittedException.class)
+        .verify();
+  }
+
+  @Test
+  void lastKnownGood_whenCircuitIsOpen_replayLastStream() {
+    StepVerifier
+        .create(guard.lastKnownGood("search:apple", guard.read("search", Flux.just(product, product))))
+        .expectNextCount(2)
+        .verifyComplete();
+
+    circuitBreakerRegistry.circuitBreaker(ProductRepositoryGuard.CIRCUIT_BREAKER).transitionToOpenState();
+
+    StepVerifier
+        .create(guard.lastKnownGood("search:apple", guard.read("search", Flux.<Product>empty())))
+        .expectNext(product, product)
+        .verifyComplete();
+  }
+}
@@ -0,0 +1,122 @@
+package dev.iseif.reactiverestapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.repository.ProductReadRouting;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class ProductSearchCacheTest {
+
+  private final Product product1 = Product.builder().id("1").title("Apple iPhone XS Max").description("New iPhone XS Max").price(1099.99).build();
+  private final Product product2 = Product.builder().id("2").title("Apple MacBook Pro").description("New MacBook").price(2599.99).build();
+
+  private final AtomicInteger searches = new AtomicInteger();
+
+  @Test
+  void get_whenIdenticalSearchesAreConcurrent_searchOnce() {
+    ProductSearchCache searchCache = searchCache(Duration.ZERO);
+    Flux<Product> slowSearch = search(Flux.just(product1, product2).delayElements(Duration.ofMillis(20)));
+
+    Flux<Product> actual = Flux.just("apple", "Apple", " APPLE ", "apple!")
+        .flatMap(query -> searchCache.get(query, ProductFields.ALL, () -> slowSearch));
+
+    StepVerifier
+        .create(actual)
+        .expectNextCount(8)
+        .verifyComplete();
+    assertThat(searches).hasValue(1);
+  }
+
+  @Test
+  void get_whenTimeToLiveIsZero_searchAgainAfterCompletion() {
+    ProductSearchCache searchCache = searchCache(Duration.ZERO);
+
+    searchCache.get("apple", ProductFields.ALL, () -> search(Flux.just(product1))).blockLast();
+    searchCache.get("apple", ProductFields.ALL, () -> search(Flux.just(product1))).blockLast();
+
+    assertThat(searches).hasValue(2);
+  }
+
+  @Test
+  void get_whenWithinTimeToLive_reuseResultsInOrder() {
+    ProductSearchCache searchCache = searchCache(Duration.ofMinutes(1));
+    searchCache.get("apple", ProductFields.ALL, () -> search(Flux.just(product1, product2))).blockLast();
+
+    StepVerifier
+        .create(searchCache.get("APPLE", ProductFields.ALL, () -> search(Flux.just(product2))))
+        .expectNext(product1, product2)
+        .verifyComplete();
+    assertThat(searches).hasValue(1);
+  }
+
+  @Test
+  void get_whenPinnedToPrimary_searchWithoutSharedResults() {
+    ProductSearchCache searchCache = searchCache(Duration.ofMinutes(1));
+    searchCache.get("apple", ProductFields.ALL, () -> search(Flux.just(product1))).blockLast();
+
+    StepVerifier
+        .create(searchCache.get("apple", ProductFields.ALL, () -> search(Flux.just(product1, product2)))
+            .contextWrite(ProductReadRouting::pinToPrimary))
+        .expectNext(product1, product2)
+        .verifyComplete();
+    assertThat(searches).hasValue(2);
+  }
+
+  @Test
+  void get_whenFieldsDiffer_searchSeparately() {
+    ProductSearchCache searchCache = searchCache(Duration.ofMinutes(1));
+
+    searchCache.get("apple", ProductFields.ALL, () -> search(Flux.just(product1))).blockLast();
+    searchCache.get("apple", ProductFields.parse("title"), () -> search(Flux.just(product1))).blockLast();
+
+    assertThat(searches).hasValue(2);
+  }
+
+  @Test
+  void get_whenSearchFails_doNotKeepFailure() {
+    ProductSearchCache searchCache = searchCache(Duration.ofMinutes(1));
+
+    StepVerifier
+        .create(searchCache.get("apple", ProductFields.ALL, () -> search(Flux.error(new IllegalStateException("down")))))
+        .expectError(IllegalStateException.class)
+        .verify();
+    StepVerifier
+        .create(searchCache.get("apple", ProductFields.ALL, () -> search(Flux.just(product1))))
+        .expectNext(product1)
+        .verifyComplete();
+    assertThat(searches).hasValue(2);
+  }
+
+  @Test
+  void get_whenCoalescingIsDisabled_searchEveryTime() {
+    ProductProperties productProperties = new ProductProperties();
+    productProperties.getSearch().setCoalesce(false);
+    ProductSearchCache searchCache = new ProductSearchCache(productProperties, new SimpleMeterRegistry());
+
+    searchCache.get("apple", ProductFields.ALL, () -> search(Flux.just(product1))).blockLast();
+    searchCache.get("apple", ProductFields.ALL, () -> search(Flux.just(product1))).blockLast();
+
+    assertThat(searches).hasValue(2);
+  }
+
+  private ProductSearchCache searchCache(Duration resultTimeToLive) {
+    ProductProperties productProperties = new ProductProperties();
+    productProperties.getSearch().setResultTimeToLive(resultTimeToLive);
+    return new ProductSearchCache(productProperties, new SimpleMeterRegistry());
+  }
+
+  private Flux<Product> search(Flux<Product> results) {
+    return Flux.defer(() -> {
+      searches.incrementAndGet();
+      return results;
+    });
+  }
+}
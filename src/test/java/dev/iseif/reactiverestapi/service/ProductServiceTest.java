@@ -1,14 +1,41 @@
 package dev.iseif.reactiverestapi.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.MultiGetResult;
+import dev.iseif.reactiverestapi.model.PageCursor;
 import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductFields;
+import dev.iseif.reactiverestapi.model.ProductFilter;
+import dev.iseif.reactiverestapi.model.ProductOrder;
+import dev.iseif.reactiverestapi.model.PriceSummary;
+import dev.iseif.reactiverestapi.model.ProductPage;
+import dev.iseif.reactiverestapi.model.ProductRevision;
+import dev.iseif.reactiverestapi.model.ProductSort;
+import dev.iseif.reactiverestapi.model.ProductStatistics.PriceBucket;
 import dev.iseif.reactiverestapi.repository.ProductRepository;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import org.reactivestreams.Publisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -17,29 +44,117 @@ import reactor.test.StepVerifier;
 @ExtendWith(SpringExtension.class)
 class ProductServiceTest {
 
-  private final Product product1 = Product.builder().title("Apple iPhone XS Max").description("New iPhone XS Max").price(1099.99).build();
-  private final Product product2 = Product.builder().title("Apple MacBook Pro").description("New MacBook").price(2599.99).build();
-  private final Product product3 = Product.builder().title("Samsung Galaxy S10+").description("New Galaxy!!").price(799.99).build();
+  private final Product product1 = Product.builder().id("1").title("Apple iPhone XS Max").description("New iPhone XS Max").price(1099.99).build();
+  private final Product product2 = Product.builder().id("2").title("Apple MacBook Pro").description("New MacBook").price(2599.99).build();
+  private final Product product3 = Product.builder().id("3").title("Samsung Galaxy S10+").description("New Galaxy!!").price(799.99).build();
 
   @Mock
   private ProductRepository productRepository;
 
   private ProductService productService;
+  private SimpleMeterRegistry meterRegistry;
+  private ProductStats productStats;
+  private CircuitBreakerRegistry circuitBreakerRegistry;
 
   @BeforeEach
   void setUp() {
-    productService = new ProductService(productRepository);
+    ProductProperties productProperties = new ProductProperties();
+    meterRegistry = new SimpleMeterRegistry();
+    productStats = new ProductStats(productRepository, productProperties);
+    circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+    ProductRepositoryGuard guard = new ProductRepositoryGuard(circuitBreakerRegistry, BulkheadRegistry.ofDefaults(),
+        TimeLimiterRegistry.ofDefaults(), productProperties);
+    productService = new ProductService(productRepository, productProperties, new ProductCache(productProperties, meterRegistry),
+        new ProductSearchCache(productProperties, meterRegistry), guard,
+        new ProductCreateBatcher(productRepository, guard, productProperties, meterRegistry), productStats, meterRegistry);
   }
 
   @Test
-  void getAll() {
-    when(productRepository.findAll()).thenReturn(Flux.just(product1, product2, product3));
+  void streamAll() {
+    when(productRepository.streamAll(256, ProductFilter.NONE, null, ProductFields.ALL)).thenReturn(Flux.just(product1, product2, product3));
 
-    Flux<Product> actual = productService.getAll();
+    Flux<Product> actual = productService.streamAll(ProductFilter.NONE, null, ProductFields.ALL);
 
     assertResults(actual, product1, product2, product3);
   }
 
+  @Test
+  void getPage_whenMoreProductsExist_returnNextCursor() {
+    Product first = product1.toBuilder().id("1").build();
+    Product second = product2.toBuilder().id("2").build();
+    Product third = product3.toBuilder().id("3").build();
+    when(productRepository.findPage(ProductOrder.ascending(ProductSort.PRICE), ProductFilter.NONE, null, 3, ProductFields.ALL)).thenReturn(Flux.just(first, second, third));
+
+    Mono<ProductPage> actual = productService.getPage(ProductOrder.ascending(ProductSort.PRICE), ProductFilter.NONE, null, 2, ProductFields.ALL);
+
+    StepVerifier
+        .create(actual)
+        .expectNext(new ProductPage(Arrays.asList(first, second), PageCursor.after(ProductOrder.ascending(ProductSort.PRICE), second).encode()))
+        .verifyComplete();
+  }
+
+  @Test
+  void getPage_whenFieldsExcludeSortProperty_buildCursorBeforeProjecting() {
+    ProductFields fields = ProductFields.parse("title");
+    when(productRepository.findPage(ProductOrder.ascending(ProductSort.PRICE), ProductFilter.NONE, null, 2, fields)).thenReturn(Flux.just(product1, product2));
+
+    Mono<ProductPage> actual = productService.getPage(ProductOrder.ascending(ProductSort.PRICE), ProductFilter.NONE, null, 1, fields);
+
+    StepVerifier
+        .create(actual)
+        .expectNextMatches(page -> page.getContent().get(0).getPrice() == null
+            && page.getContent().get(0).getTitle().equals(product1.getTitle())
+            && page.getNextCursor().equals(PageCursor.after(ProductOrder.ascending(ProductSort.PRICE), product1).encode()))
+        .verifyComplete();
+  }
+
+  @Test
+  void getPage_whenLastPage_returnNoCursor() {
+    Product first = product1.toBuilder().id("1").build();
+    PageCursor cursor = new PageCursor(ProductOrder.ascending(ProductSort.ID), "0", null);
+    when(productRepository.findPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, cursor, 3, ProductFields.ALL)).thenReturn(Flux.just(first));
+
+    Mono<ProductPage> actual = productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, cursor.encode(), 2, ProductFields.ALL);
+
+    StepVerifier
+        .create(actual)
+        .expectNext(new ProductPage(Collections.singletonList(first), null))
+        .verifyComplete();
+  }
+
+  @Test
+  void getPage_whenSizeExceedsMaximum_clampToMaximum() {
+    when(productRepository.findPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, 501, ProductFields.ALL)).thenReturn(Flux.empty());
+
+    Mono<ProductPage> actual = productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, 10_000, ProductFields.ALL);
+
+    StepVerifier
+        .create(actual)
+        .expectNext(new ProductPage(Collections.emptyList(), null))
+        .verifyComplete();
+  }
+
+  @Test
+  void getPage_whenSizeIsAbsent_useDefaultSize() {
+    when(productRepository.findPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, 21, ProductFields.ALL)).thenReturn(Flux.empty());
+
+    Mono<ProductPage> actual = productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, null, null, ProductFields.ALL);
+
+    StepVerifier
+        .create(actual)
+        .expectNext(new ProductPage(Collections.emptyList(), null))
+        .verifyComplete();
+  }
+
+  @Test
+  void getPage_whenCursorIsMalformed_returnError() {
+    Mono<ProductPage> actual = productService.getPage(ProductOrder.ascending(ProductSort.ID), ProductFilter.NONE, "not a cursor", 2, ProductFields.ALL);
+
+    StepVerifier
+        .create(actual)
+        .verifyError(InvalidRequestException.class);
+  }
+
   @Test
   void getById_whenIdExists_returnCorrectProduct() {
     when(productRepository.findById(product1.getId())).thenReturn(Mono.just(product1));
@@ -49,6 +164,85 @@ class ProductServiceTest {
     assertResults(actual, product1);
   }
 
+  @Test
+  void getById_whenCalledTwice_loadProductOnce() {
+    when(productRepository.findById(product1.getId())).thenReturn(Mono.just(product1));
+
+    assertResults(productService.getById(product1.getId()), product1);
+    assertResults(productService.getById(product1.getId()), product1);
+
+    verify(productRepository, times(1)).findById(product1.getId());
+  }
+
+  @Test
+  void getVersion_whenProductIsCached_skipRepository() {
+    Product versionedProduct = product1.toBuilder().version(2L).build();
+    when(productRepository.findById(product1.getId())).thenReturn(Mono.just(versionedProduct));
+    productService.getById(product1.getId()).block();
+
+    StepVerifier
+        .create(productService.getVersion(product1.getId()))
+        .expectNext(2L)
+        .verifyComplete();
+  }
+
+  @Test
+  void getVersion_whenProductIsNotCached_loadVersionOnly() {
+    when(productRepository.findVersionById(product1.getId())).thenReturn(Mono.just(5L));
+
+    StepVerifier
+        .create(productService.getVersion(product1.getId()))
+        .expectNext(5L)
+        .verifyComplete();
+  }
+
+  @Test
+  void getAllById_keepRequestedOrderAndReportMissingIds() {
+    when(productRepository.findById(product2.getId())).thenReturn(Mono.just(product2));
+    productService.getById(product2.getId()).block();
+    when(productRepository.findAllById(new LinkedHashSet<>(Arrays.asList("3", "4", "1")))).thenReturn(Flux.just(product1, product3));
+
+    StepVerifier
+        .create(productService.getAllById(Arrays.asList("3", "2", "4", "1"), ProductFields.ALL))
+        .expectNext(new MultiGetResult(Arrays.asList(product3, product2, product1), Collections.singletonList("4")))
+        .verifyComplete();
+  }
+
+  @Test
+  void getAllById_whenAllProductsAreCached_skipRepository() {
+    when(productRepository.findAllById(new LinkedHashSet<>(Arrays.asList("1", "2")))).thenReturn(Flux.just(product1, product2));
+    productService.getAllById(Arrays.asList("1", "2"), ProductFields.ALL).block();
+
+    StepVerifier
+        .create(productService.getAllById(Arrays.asList("2", "1"), ProductFields.parse("title")))
+        .expectNextMatches(result -> result.getProducts().get(0).getId().equals("2") && result.getProducts().get(0).getPrice() == null
+            && result.getMissing().isEmpty())
+        .verifyComplete();
+    verify(productRepository, times(1)).findAllById(any(Iterable.class));
+  }
+
+  @Test
+  void getAllById_whenTooManyIds_returnIllegalArgument() {
+    List<String> ids = Collections.nCopies(1001, "1");
+
+    StepVerifier
+        .create(productService.getAllById(ids, ProductFields.ALL))
+        .expectError(InvalidRequestException.class)
+        .verify();
+  }
+
+  @Test
+  void getById_recordTimerPerOutcome() {
+    when(productRepository.findById(product1.getId())).thenReturn(Mono.just(product1));
+    when(productRepository.findById(product2.getId())).thenReturn(Mono.empty());
+
+    assertResults(productService.getById(product1.getId()), product1);
+    assertResults(productService.getById(product2.getId()));
+
+    assertThat(timerCount("getById", "success")).isEqualTo(1);
+    assertThat(timerCount("getById", "empty")).isEqualTo(1);
+  }
+
   @Test
   void getById_whenIdNotExist_returnEmptyMono() {
     when(productRepository.findById(product1.getId())).thenReturn(Mono.empty());
@@ -61,9 +255,19 @@ class ProductServiceTest {
   @Test
   void searchByTitle() {
     final String title = "apple";
-    when(productRepository.findByTitleContainingIgnoreCase(title)).thenReturn(Flux.just(product1, product2));
+    when(productRepository.searchByTitle(title, 100, ProductFields.ALL)).thenReturn(Flux.just(product1, product2));
 
-    Flux<Product> actual = productService.searchByTitle(title);
+    Flux<Product> actual = productService.searchByTitle(title, ProductFields.ALL);
+
+    assertResults(actual, product1, product2);
+  }
+
+  @Test
+  void streamByTitle() {
+    final String title = "apple";
+    when(productRepository.searchByTitle(title, 100, ProductFields.ALL)).thenReturn(Flux.just(product1, product2));
+
+    Flux<Product> actual = productService.streamByTitle(title, ProductFields.ALL);
 
     assertResults(actual, product1, product2);
   }
@@ -79,42 +283,133 @@ class ProductServiceTest {
 
   @Test
   void update_whenIdExists_returnUpdatedProduct() {
-    when(productRepository.findById(product1.getId())).thenReturn(Mono.just(product1));
-    when(productRepository.save(product1)).thenReturn(Mono.just(product1));
+    when(productRepository.updateById(product1.getId(), product1, null)).thenReturn(Mono.just(new ProductRevision(product1, product1)));
 
-    Mono<Product> actual = productService.update(product1.getId(), product1);
+    Mono<Product> actual = productService.update(product1.getId(), product1, null);
 
     assertResults(actual, product1);
   }
 
+  @Test
+  void update_applyPriceChangeToStatistics() {
+    when(productRepository.summarizePrices(Arrays.asList(10.0, 50.0, 100.0, 500.0, 1000.0)))
+        .thenReturn(Mono.just(new PriceSummary(3, 4499.97, 799.99, 2599.99, new long[]{0, 0, 0, 0, 0, 3})));
+    Product updatedProduct = product1.toBuilder().price(1.0).build();
+    when(productRepository.updateById(product1.getId(), updatedProduct, null))
+        .thenReturn(Mono.just(new ProductRevision(product1, updatedProduct)));
+
+    productStats.reconcile().block();
+    productService.update(product1.getId(), updatedProduct, null).block();
+
+    StepVerifier
+        .create(productService.getStatistics())
+        .assertNext(statistics -> {
+          assertThat(statistics.getCount()).isEqualTo(3);
+          assertThat(statistics.getMinPrice()).isEqualTo(1.0);
+          assertThat(statistics.getAveragePrice()).isCloseTo((4499.97 - 1099.99 + 1.0) / 3, within(1e-9));
+          assertThat(statistics.getPriceHistogram()).extracting(PriceBucket::getCount).containsExactly(1L, 0L, 0L, 0L, 0L, 2L);
+        })
+        .verifyComplete();
+  }
+
+  @Test
+  void getStatistics_whenNotReconciledYet_returnEmptyMono() {
+    StepVerifier
+        .create(productService.getStatistics())
+        .verifyComplete();
+  }
+
+  @Test
+  void update_whenProductIsCached_invalidateCachedProduct() {
+    Product updatedProduct = product1.toBuilder().price(1.0).build();
+    when(productRepository.findById(product1.getId())).thenReturn(Mono.just(product1), Mono.just(updatedProduct));
+    when(productRepository.updateById(product1.getId(), updatedProduct, null))
+        .thenReturn(Mono.just(new ProductRevision(product1, updatedProduct)));
+
+    assertResults(productService.getById(product1.getId()), product1);
+    assertResults(productService.update(product1.getId(), updatedProduct, null), updatedProduct);
+
+    StepVerifier
+        .create(productService.getById(product1.getId()))
+        .expectNextMatches(product -> product.getPrice() == 1.0)
+        .verifyComplete();
+  }
+
+  @Test
+  void update_whenCircuitOpensAfterwards_doNotReplayReplacedProduct() {
+    Product updatedProduct = product1.toBuilder().price(1.0).build();
+    when(productRepository.findById(product1.getId())).thenReturn(Mono.just(product1));
+    when(productRepository.updateById(product1.getId(), updatedProduct, null))
+        .thenReturn(Mono.just(new ProductRevision(product1, updatedProduct)));
+
+    assertResults(productService.getById(product1.getId()), product1);
+    assertResults(productService.update(product1.getId(), updatedProduct, null), updatedProduct);
+    circuitBreakerRegistry.circuitBreaker(ProductRepositoryGuard.CIRCUIT_BREAKER).transitionToOpenState();
+
+    StepVerifier
+        .create(productService.getById(product1.getId()))
+        .expectError(CallNotPermittedException.class)
+        .verify();
+  }
+
+  @Test
+  void update_whenVersionIsStale_returnOptimisticLockingFailure() {
+    List<Long> expectedVersions = Collections.singletonList(3L);
+    when(productRepository.updateById(product1.getId(), product1, expectedVersions)).thenReturn(Mono.empty());
+    when(productRepository.existsById(product1.getId())).thenReturn(Mono.just(true));
+
+    Mono<Product> actual = productService.update(product1.getId(), product1, expectedVersions);
+
+    StepVerifier
+        .create(actual)
+        .verifyError(OptimisticLockingFailureException.class);
+    assertThat(meterRegistry.get(ProductService.TIMER_NAME)
+        .tags("operation", "update", "outcome", "error", "exception", "OptimisticLockingFailureException")
+        .timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  void update_whenVersionIsGivenAndIdNotExist_returnEmptyMono() {
+    List<Long> expectedVersions = Collections.singletonList(3L);
+    when(productRepository.updateById(product1.getId(), product1, expectedVersions)).thenReturn(Mono.empty());
+    when(productRepository.existsById(product1.getId())).thenReturn(Mono.just(false));
+
+    Mono<Product> actual = productService.update(product1.getId(), product1, expectedVersions);
+
+    assertResults(actual);
+  }
+
   @Test
   void update_whenIdNotExist_returnEmptyMono() {
-    when(productRepository.findById(product1.getId())).thenReturn(Mono.empty());
+    when(productRepository.updateById(product1.getId(), product1, null)).thenReturn(Mono.empty());
 
-    Mono<Product> actual = productService.update(product1.getId(), product1);
+    Mono<Product> actual = productService.update(product1.getId(), product1, null);
 
     assertResults(actual);
   }
 
   @Test
   void delete_whenProductExists_performDeletion() {
-    when(productRepository.findById(product1.getId())).thenReturn(Mono.just(product1));
-    when(productRepository.delete(product1)).thenReturn(Mono.empty());
+    when(productRepository.findAndRemoveById(product1.getId(), null)).thenReturn(Mono.just(product1));
 
-    Mono<Product> actual = productService.deleteById(product1.getId());
+    Mono<Product> actual = productService.deleteById(product1.getId(), null);
 
     assertResults(actual, product1);
   }
 
   @Test
   void delete_whenIdNotExist_returnEmptyMono() {
-    when(productRepository.findById(product1.getId())).thenReturn(Mono.empty());
+    when(productRepository.findAndRemoveById(product1.getId(), null)).thenReturn(Mono.empty());
 
-    Mono<Product> actual = productService.deleteById(product1.getId());
+    Mono<Product> actual = productService.deleteById(product1.getId(), null);
 
     assertResults(actual);
   }
 
+  private long timerCount(String operation, String outcome) {
+    return meterRegistry.get(ProductService.TIMER_NAME).tags("operation", operation, "outcome", outcome).timer().count();
+  }
+
   private void assertResults(Publisher<Product> publisher, Product... expectedProducts) {
     StepVerifier
         .create(publisher)
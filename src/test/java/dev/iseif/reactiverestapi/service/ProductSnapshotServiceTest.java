@@ -0,0 +1,119 @@
+package dev.iseif.reactiverestapi.service;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.bulk.BulkWriteError;
+import dev.iseif.reactiverestapi.codec.ProductSnapshots;
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.InvalidRequestException;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.SnapshotImportResult;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.validation.Validation;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+class ProductSnapshotServiceTest {
+
+  private final Product product1 = Product.builder().id("5c8f5a1e2f8fb814b56fa181").title("Apple iPhone XS Max").description("New iPhone XS Max").price(1099.99).build();
+  private final Product product2 = Product.builder().id("5c8f5a1e2f8fb814b56fa182").title("Apple MacBook Pro").description("New MacBook").price(2599.99).build();
+  private final Product product3 = Product.builder().id("5c8f5a1e2f8fb814b56fa183").title("Samsung Galaxy S10+").description("New Galaxy!!").price(799.99).build();
+
+  @Mock
+  private ProductRepository productRepository;
+
+  private ProductProperties productProperties;
+  private ProductSnapshotService productSnapshotService;
+
+  @BeforeEach
+  void setUp() {
+    productProperties = new ProductProperties();
+    productProperties.getSnapshot().setChunkSize(2);
+    productSnapshotService = new ProductSnapshotService(productRepository, productProperties, new ProductStats(productRepository, productProperties),
+        new BlockingScheduler(productProperties), Validation.buildDefaultValidatorFactory().getValidator());
+  }
+
+  @Test
+  void restore_whenUploaded_insertInChunksAndCountFailures() {
+    when(productRepository.bulkRestore(anyList())).thenAnswer(invocation -> {
+      List<Product> chunk = invocation.getArgument(0);
+      return Mono.just(chunk.contains(product3)
+          ? Collections.singletonList(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0))
+          : Collections.emptyList());
+    });
+    Flux<Product> products = Flux.just(product1, product2, product3);
+
+    StepVerifier
+        .create(productSnapshotService.importSnapshot(ProductSnapshots.write(products, DefaultDataBufferFactory.sharedInstance, 2)))
+        .expectNext(new SnapshotImportResult(2, 1))
+        .verifyComplete();
+  }
+
+  @Test
+  void restore_whenUploadIsNotASnapshot_failWithIllegalArgument() {
+    Flux<DataBuffer> upload = Flux.just(
+        DefaultDataBufferFactory.sharedInstance.wrap("not a snapshot".getBytes(StandardCharsets.UTF_8)));
+
+    StepVerifier
+        .create(productSnapshotService.importSnapshot(upload))
+        .expectError(InvalidRequestException.class)
+        .verify();
+  }
+
+  @Test
+  void restore_whenProductIsInvalid_countAsFailedWithoutInserting() {
+    Product invalidProduct = product3.toBuilder().price(-1.0).build();
+    when(productRepository.bulkRestore(anyList())).thenReturn(Mono.just(Collections.emptyList()));
+
+    StepVerifier
+        .create(productSnapshotService.restore(Flux.just(product1, invalidProduct, product2)))
+        .expectNext(new SnapshotImportResult(2, 1))
+        .verifyComplete();
+    verify(productRepository).bulkRestore(Collections.singletonList(product1));
+    verify(productRepository).bulkRestore(Collections.singletonList(product2));
+  }
+
+  @Test
+  void restore_keepVersions() {
+    Product versionedProduct = product1.toBuilder().version(7L).build();
+    when(productRepository.bulkRestore(anyList())).thenReturn(Mono.just(Collections.emptyList()));
+
+    StepVerifier
+        .create(productSnapshotService.importSnapshot(
+            ProductSnapshots.write(Flux.just(versionedProduct, product2), DefaultDataBufferFactory.sharedInstance, 2)))
+        .expectNext(new SnapshotImportResult(2, 0))
+        .verifyComplete();
+    verify(productRepository).bulkRestore(Arrays.asList(versionedProduct, product2));
+  }
+
+  @Test
+  void restore_whenUploadIsTooLarge_failWithInvalidRequest() {
+    productProperties.getSnapshot().setMaxUploadSize(DataSize.ofBytes(10));
+    Flux<DataBuffer> upload = Flux.just(
+        DefaultDataBufferFactory.sharedInstance.wrap(new byte[8]), DefaultDataBufferFactory.sharedInstance.wrap(new byte[8]));
+
+    StepVerifier
+        .create(productSnapshotService.importSnapshot(upload))
+        .expectError(InvalidRequestException.class)
+        .verify();
+    verifyNoInteractions(productRepository);
+  }
+}
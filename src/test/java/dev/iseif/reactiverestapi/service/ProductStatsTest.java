@@ -0,0 +1,166 @@
+package dev.iseif.reactiverestapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.when;
+
+import dev.iseif.reactiverestapi.config.ProductProperties;
+import dev.iseif.reactiverestapi.model.PriceSummary;
+import dev.iseif.reactiverestapi.model.Product;
+import dev.iseif.reactiverestapi.model.ProductStatistics;
+import dev.iseif.reactiverestapi.model.ProductStatistics.PriceBucket;
+import dev.iseif.reactiverestapi.repository.ProductRepository;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(SpringExtension.class)
+class ProductStatsTest {
+
+  private final Product cheap = Product.builder().id("1").title("USB Cable").description("1m").price(5.0).build();
+  private final Product medium = Product.builder().id("2").title("Keyboard").description("Mechanical").price(50.0).build();
+  private final Product expensive = Product.builder().id("3").title("Laptop").description("New Laptop").price(2000.0).build();
+
+  @Mock
+  private ProductRepository productRepository;
+
+  private ProductStats productStats;
+
+  @BeforeEach
+  void setUp() {
+    ProductProperties productProperties = new ProductProperties();
+    productProperties.getStats().setPriceBuckets(Arrays.asList(100.0, 10.0));
+    productProperties.getStats().setReconcileInterval(Duration.ofHours(1));
+    productProperties.getStats().setReconcileDelay(Duration.ofMillis(10));
+    productStats = new ProductStats(productRepository, productProperties);
+  }
+
+  @AfterEach
+  void tearDown() {
+    productStats.stop();
+  }
+
+  @Test
+  void current_whenNeverReconciled_returnNull() {
+    productStats.added(cheap);
+
+    assertThat(productStats.current()).isNull();
+  }
+
+  @Test
+  void current_whenReconciled_returnAggregatedStatistics() {
+    reconcileTo(new PriceSummary(3, 2055.0, 5.0, 2000.0, new long[]{1, 1, 1}));
+
+    ProductStatistics statistics = productStats.current();
+
+    assertThat(statistics.getCount()).isEqualTo(3);
+    assertThat(statistics.getMinPrice()).isEqualTo(5.0);
+    assertThat(statistics.getMaxPrice()).isEqualTo(2000.0);
+    assertThat(statistics.getAveragePrice()).isEqualTo(685.0);
+    assertThat(statistics.getPriceHistogram()).containsExactly(
+        new PriceBucket(0, 10.0, 1), new PriceBucket(10, 100.0, 1), new PriceBucket(100, null, 1));
+    assertThat(statistics.getReconciledAt()).isNotNull();
+  }
+
+  @Test
+  void current_whenCatalogIsEmpty_omitPrices() {
+    reconcileTo(new PriceSummary(0, 0, null, null, new long[3]));
+
+    ProductStatistics statistics = productStats.current();
+
+    assertThat(statistics.getCount()).isZero();
+    assertThat(statistics.getMinPrice()).isNull();
+    assertThat(statistics.getAveragePrice()).isNull();
+  }
+
+  @Test
+  void current_whenThereAreNoBucketBounds_returnSingleBucket() {
+    ProductProperties productProperties = new ProductProperties();
+    productProperties.getStats().setPriceBuckets(Collections.emptyList());
+    ProductStats singleBucket = new ProductStats(productRepository, productProperties);
+    when(productRepository.summarizePrices(Collections.emptyList()))
+        .thenReturn(Mono.just(new PriceSummary(2, 55.0, 5.0, 50.0, new long[]{2})));
+    singleBucket.reconcile().block();
+
+    singleBucket.added(expensive);
+
+    assertThat(singleBucket.current().getPriceHistogram()).containsExactly(new PriceBucket(0, null, 3));
+  }
+
+  @Test
+  void new_whenBucketBoundIsNotPositive_failFast() {
+    ProductProperties productProperties = new ProductProperties();
+    productProperties.getStats().setPriceBuckets(Arrays.asList(0.0, 10.0));
+
+    assertThatIllegalArgumentException().isThrownBy(() -> new ProductStats(productRepository, productProperties));
+  }
+
+  @Test
+  void addedAndChanged_updateStatisticsIncrementally() {
+    reconcileTo(new PriceSummary(1, 50.0, 50.0, 50.0, new long[]{0, 1, 0}));
+
+    productStats.added(cheap);
+    productStats.added(expensive);
+    productStats.changed(medium, medium.toBuilder().price(20.0).build());
+
+    ProductStatistics statistics = productStats.current();
+    assertThat(statistics.getCount()).isEqualTo(3);
+    assertThat(statistics.getMinPrice()).isEqualTo(5.0);
+    assertThat(statistics.getMaxPrice()).isEqualTo(2000.0);
+    assertThat(statistics.getAveragePrice()).isEqualTo(2025.0 / 3);
+    assertThat(statistics.getPriceHistogram()).extracting(PriceBucket::getCount).containsExactly(1L, 1L, 1L);
+  }
+
+  @Test
+  void removed_whenPriceIsNotABound_updateStatisticsIncrementally() {
+    reconcileTo(new PriceSummary(3, 2055.0, 5.0, 2000.0, new long[]{1, 1, 1}));
+
+    productStats.removed(medium);
+
+    ProductStatistics statistics = productStats.current();
+    assertThat(statistics.getCount()).isEqualTo(2);
+    assertThat(statistics.getAveragePrice()).isEqualTo(1002.5);
+    assertThat(statistics.getPriceHistogram()).extracting(PriceBucket::getCount).containsExactly(1L, 0L, 1L);
+  }
+
+  @Test
+  void removed_whenPriceIsTheMinimum_reconcile() throws InterruptedException {
+    AtomicInteger aggregations = new AtomicInteger();
+    when(productRepository.summarizePrices(Arrays.asList(10.0, 100.0))).thenReturn(Mono.fromSupplier(() ->
+        aggregations.incrementAndGet() == 1
+            ? new PriceSummary(3, 2055.0, 5.0, 2000.0, new long[]{1, 1, 1})
+            : new PriceSummary(2, 2050.0, 50.0, 2000.0, new long[]{0, 1, 1})));
+    productStats.start();
+    awaitMinPrice(5.0);
+
+    productStats.removed(cheap);
+
+    awaitMinPrice(50.0);
+    assertThat(aggregations.get()).isEqualTo(2);
+  }
+
+  private void reconcileTo(PriceSummary summary) {
+    when(productRepository.summarizePrices(Arrays.asList(10.0, 100.0))).thenReturn(Mono.just(summary));
+    productStats.reconcile().block();
+  }
+
+  private void awaitMinPrice(double expected) throws InterruptedException {
+    for (int i = 0; i < 500 && !hasMinPrice(expected); i++) {
+      Thread.sleep(10);
+    }
+    assertThat(productStats.current().getMinPrice()).isEqualTo(expected);
+  }
+
+  private boolean hasMinPrice(double expected) {
+    ProductStatistics statistics = productStats.current();
+    return statistics != null && Double.valueOf(expected).equals(statistics.getMinPrice());
+  }
+}